@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import me.zbl.easyjson.AbstractJsonTypeAdapter;
+import me.zbl.easyjson.EasyJson;
+import me.zbl.easyjson.EasyJsonBuilder;
+import me.zbl.easyjson.JsonType;
+import me.zbl.easyjson.JsonTypeAdapterFactory;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.benchmarks.fixtures.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过 {@link AbstractJsonTypeAdapter#convertToJson} 转换对象图
+ * <p>
+ * mode 为 reflective 时使用反射的绑定计划，generated 时在运行期生成字节码，
+ * compiled 时使用 easy-json-processor 在编译期生成的适配器
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdapterBenchmark {
+
+  static final String COMPILED_FACTORY = "me.zbl.easyjson.benchmarks.generated.BenchmarkTypeAdapterFactory";
+
+  @Param({"reflective", "generated", "compiled"})
+  public String mode;
+
+  @Param({"api", "telemetry", "config"})
+  public String payload;
+
+  private EasyJson easyJson;
+  private AbstractJsonTypeAdapter<Object> adapter;
+  private Object data;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    easyJson = create(mode);
+    data = Fixtures.payload(payload);
+    adapter = (AbstractJsonTypeAdapter<Object>) easyJson.getAdapter(JsonType.get(data.getClass()));
+  }
+
+  static EasyJson create(String mode) {
+    switch (mode) {
+      case "reflective":
+        return new EasyJsonBuilder().disableServiceLoading().build();
+      case "generated":
+        return new EasyJsonBuilder().disableServiceLoading().generateAdapters().build();
+      case "compiled":
+        EasyJson easyJson = new EasyJsonBuilder().build();
+        for (JsonTypeAdapterFactory factory : easyJson.getFactories()) {
+          if (factory.getClass().getName().equals(COMPILED_FACTORY)) {
+            return easyJson;
+          }
+        }
+        throw new IllegalStateException("没有加载编译期生成的适配器工厂：" + COMPILED_FACTORY);
+      default:
+        throw new IllegalArgumentException("未知的模式：" + mode);
+    }
+  }
+
+  @Benchmark
+  public long chars() throws IOException {
+    DiscardingWriter out = new DiscardingWriter();
+    JsonStringWriter w = easyJson.newJsonWriter(out);
+    adapter.convertToJson(data, w);
+    w.flush();
+    return out.count();
+  }
+
+  @Benchmark
+  public byte[] utf8() {
+    return easyJson.toJsonBytes(data);
+  }
+}
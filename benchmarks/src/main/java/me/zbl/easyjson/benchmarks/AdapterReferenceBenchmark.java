@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import me.zbl.easyjson.benchmarks.fixtures.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以 Jackson 和 Gson 转换同样的对象图，作为 {@link AdapterBenchmark} 的对照
+ * <p>
+ * 两者不识别 {@code @JsonFieldName}，输出的个别键名与 easy-json 不同，长度相差无几
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdapterReferenceBenchmark {
+
+  @Param({"api", "telemetry", "config"})
+  public String payload;
+
+  private ObjectMapper mapper;
+  private Gson gson;
+  private Object data;
+
+  @Setup
+  public void setUp() {
+    mapper = new ObjectMapper();
+    gson = new Gson();
+    data = Fixtures.payload(payload);
+  }
+
+  @Benchmark
+  public long jacksonChars() throws IOException {
+    DiscardingWriter out = new DiscardingWriter();
+    mapper.writeValue(out, data);
+    return out.count();
+  }
+
+  @Benchmark
+  public byte[] jacksonUtf8() throws IOException {
+    return mapper.writeValueAsBytes(data);
+  }
+
+  @Benchmark
+  public long gsonChars() {
+    DiscardingWriter out = new DiscardingWriter();
+    gson.toJson(data, out);
+    return out.count();
+  }
+}
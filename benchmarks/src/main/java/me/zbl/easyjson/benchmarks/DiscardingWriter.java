@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import java.io.Writer;
+
+/**
+ * 丢弃所有字符的输出流，只测量生成 Json 的开销
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+final class DiscardingWriter extends Writer {
+
+  private long count;
+
+  @Override
+  public void write(int c) {
+    count++;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    count += len;
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    count += len;
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() {
+  }
+
+  /**
+   * 已写出的字符数，返回给 JMH 以免整个调用被优化掉
+   */
+  long count() {
+    return count;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import me.zbl.easyjson.JsonBasic;
+import me.zbl.easyjson.data.StringNumber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonBasic#equals(Object)} 和 {@link JsonBasic#hashCode()} 在数值内容上的开销
+ * <p>
+ * 比较的两个对象内容相等但互不相同，number 为 parsed 时内容是解析得到的 {@link StringNumber}
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBasicBenchmark {
+
+  @Param({"int", "long", "double", "parsed"})
+  public String number;
+
+  private JsonBasic left;
+  private JsonBasic right;
+
+  @Setup
+  public void setUp() {
+    left = create(number);
+    right = create(number);
+  }
+
+  private static JsonBasic create(String number) {
+    switch (number) {
+      case "int":
+        return new JsonBasic(Integer.valueOf(123456));
+      case "long":
+        return new JsonBasic(Long.valueOf(1518739200000L));
+      case "double":
+        return new JsonBasic(Double.valueOf(36.625));
+      case "parsed":
+        return new JsonBasic(new StringNumber(new String("1518739200000")));
+      default:
+        throw new IllegalArgumentException("未知的数值类型：" + number);
+    }
+  }
+
+  @Benchmark
+  public boolean equalsSameContent() {
+    return left.equals(right);
+  }
+
+  @Benchmark
+  public int hashCodeOf() {
+    return left.hashCode();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import me.zbl.easyjson.JsonObject;
+import me.zbl.easyjson.JsonTreeParser;
+import me.zbl.easyjson.JsonTreeWriter;
+import me.zbl.easyjson.LazyJsonObject;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关式的转发：从 200 个键的请求体中读取 3 个键，替换其中一个，其余原样写出
+ * 对比完整解析为 {@link JsonObject} 与按需解析的 {@link LazyJsonObject}
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LazyObjectBenchmark {
+
+  private static final int FIELDS = 200;
+
+  private byte[] body;
+  private JsonTreeParser parser;
+  private JsonTreeWriter treeWriter;
+  private JsonUtf8Writer writer;
+
+  @Setup
+  public void setUp() throws IOException {
+    JsonObject obj = new JsonObject();
+    for (int i = 0; i < FIELDS; i++) {
+      switch (i % 4) {
+        case 0:
+          obj.addProperty("field" + i, "value of field " + i + " with some text");
+          break;
+        case 1:
+          obj.addProperty("field" + i, i * 1000003L);
+          break;
+        case 2:
+          obj.addProperty("field" + i, i % 3 == 0);
+          break;
+        default:
+          JsonObject nested = new JsonObject();
+          nested.addProperty("id", i);
+          nested.addProperty("name", "nested " + i);
+          nested.addProperty("score", i / 7.0);
+          obj.addItem("field" + i, nested);
+      }
+    }
+    obj.addProperty("user", "alice");
+    obj.addProperty("route", "/orders/42");
+    obj.addProperty("traceId", "0af7651916cd43dd8448eb211c80319c");
+    parser = new JsonTreeParser();
+    treeWriter = new JsonTreeWriter();
+    writer = new JsonUtf8Writer();
+    treeWriter.write(obj, writer);
+    body = writer.toByteArray();
+  }
+
+  @Benchmark
+  public int eagerForward(Blackhole bh) throws IOException {
+    JsonObject obj = (JsonObject) parser.parse(body);
+    bh.consume(obj.getItem("user").getStringValue());
+    bh.consume(obj.getItem("route").getStringValue());
+    obj.addProperty("traceId", "forwarded");
+    writer.reset();
+    treeWriter.write(obj, writer);
+    return writer.size();
+  }
+
+  @Benchmark
+  public int lazyForward(Blackhole bh) throws IOException {
+    LazyJsonObject obj = new LazyJsonObject(body);
+    bh.consume(obj.getItem("user").getStringValue());
+    bh.consume(obj.getItem("route").getStringValue());
+    obj.addProperty("traceId", "forwarded");
+    writer.reset();
+    treeWriter.write(obj, writer);
+    return writer.size();
+  }
+}
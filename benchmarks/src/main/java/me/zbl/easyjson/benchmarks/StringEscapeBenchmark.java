@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import me.zbl.easyjson.benchmarks.fixtures.Fixtures;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字符串转义的开销：纯 ASCII、大量需要转义的字符、中文
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringEscapeBenchmark {
+
+  @Param({"ascii", "escape", "cjk"})
+  public String style;
+
+  @Param({"false", "true"})
+  public boolean htmlSafe;
+
+  @Param({"4096"})
+  public int length;
+
+  private String text;
+
+  @Setup
+  public void setUp() {
+    text = Fixtures.text(style, length);
+  }
+
+  @Benchmark
+  public long chars() throws IOException {
+    DiscardingWriter out = new DiscardingWriter();
+    JsonStringWriter w = new JsonStringWriter(out);
+    w.setHtmlSafe(htmlSafe);
+    w.value(text);
+    w.flush();
+    return out.count();
+  }
+
+  @Benchmark
+  public int utf8() throws IOException {
+    JsonUtf8Writer w = new JsonUtf8Writer();
+    w.setHtmlSafe(htmlSafe);
+    w.value(text);
+    return w.size();
+  }
+}
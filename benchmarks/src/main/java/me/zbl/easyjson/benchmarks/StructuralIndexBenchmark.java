@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import me.zbl.easyjson.EasyJsonBuilder;
+import me.zbl.easyjson.JsonItem;
+import me.zbl.easyjson.JsonTreeParser;
+import me.zbl.easyjson.benchmarks.fixtures.Fixtures;
+import me.zbl.easyjson.io.JsonUtf8Reader;
+import me.zbl.easyjson.simd.IndexedArrayParser;
+import me.zbl.easyjson.simd.StructuralIndex;
+import me.zbl.easyjson.simd.StructuralIndexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * easy-json-simd 的结构字符索引与逐字节读取的对照
+ * <p>
+ * 输入为数 MB 的顶级数组：telemetry 以数值为主，api 为重复的 {@link Fixtures#apiResponse(int)}，字符串较多。
+ * scalarSkip 以 {@link JsonUtf8Reader#skipValue()} 逐个字节读过整个文档；swarIndex、vectorIndex 只建立位图；
+ * *Split 在此基础上沿位图找出顶级元素的边界；scalarParse 与 indexedParse 为完整的解析。
+ * 需要 JDK 17 及以上运行，fork 的 JVM 会加上 jdk.incubator.vector 模块
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class StructuralIndexBenchmark {
+
+  @Param({"telemetry", "api"})
+  public String document;
+
+  private byte[] utf8;
+  private StructuralIndexer swar;
+  private StructuralIndexer vector;
+  private JsonTreeParser treeParser;
+  private IndexedArrayParser indexedParser;
+
+  @Setup
+  public void setUp() {
+    Object payload = "api".equals(document)
+        ? Collections.nCopies(500, Fixtures.apiResponse(20))
+        : Fixtures.telemetry(50000);
+    utf8 = new EasyJsonBuilder().build().toJsonBytes(payload);
+    swar = StructuralIndexer.newSwarInstance();
+    vector = StructuralIndexer.newVectorInstance();
+    treeParser = new JsonTreeParser();
+    indexedParser = new IndexedArrayParser(vector);
+  }
+
+  @Benchmark
+  public JsonUtf8Reader scalarSkip() throws IOException {
+    JsonUtf8Reader reader = new JsonUtf8Reader(ByteBuffer.wrap(utf8));
+    reader.skipValue();
+    return reader;
+  }
+
+  @Benchmark
+  public StructuralIndex swarIndex() {
+    return swar.index(utf8);
+  }
+
+  @Benchmark
+  public StructuralIndex vectorIndex() {
+    return vector.index(utf8);
+  }
+
+  @Benchmark
+  public int[] swarSplit() {
+    return IndexedArrayParser.elementBounds(swar.index(utf8));
+  }
+
+  @Benchmark
+  public int[] vectorSplit() {
+    return IndexedArrayParser.elementBounds(vector.index(utf8));
+  }
+
+  @Benchmark
+  public JsonItem scalarParse() {
+    return treeParser.parse(utf8);
+  }
+
+  @Benchmark
+  public List<JsonItem> indexedParse() {
+    return indexedParser.parse(utf8);
+  }
+}
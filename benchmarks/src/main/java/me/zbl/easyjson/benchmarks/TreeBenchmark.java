@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import me.zbl.easyjson.EasyJsonBuilder;
+import me.zbl.easyjson.JsonItem;
+import me.zbl.easyjson.JsonTreeParser;
+import me.zbl.easyjson.benchmarks.fixtures.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 由 {@link JsonTreeParser} 解析得到的树及其 {@link JsonItem#itemClone()}，
+ * Jackson 和 Gson 的树模型作为对照
+ * <p>
+ * document 为 api 时使用 fixtures/api-response.json，其余由 {@link Fixtures} 生成
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeBenchmark {
+
+  @Param({"api", "telemetry", "config"})
+  public String document;
+
+  private String text;
+  private byte[] utf8;
+  private JsonItem tree;
+  private JsonTreeParser parser;
+  private ObjectMapper mapper;
+
+  @Setup
+  public void setUp() {
+    if ("api".equals(document)) {
+      utf8 = Fixtures.resource("api-response.json");
+    } else {
+      utf8 = new EasyJsonBuilder().build().toJsonBytes(Fixtures.payload(document));
+    }
+    text = new String(utf8, StandardCharsets.UTF_8);
+    parser = new JsonTreeParser();
+    tree = parser.parse(text);
+    mapper = new ObjectMapper();
+  }
+
+  @Benchmark
+  public JsonItem itemClone() {
+    return tree.itemClone();
+  }
+
+  @Benchmark
+  public JsonItem parseChars() {
+    return parser.parse(text);
+  }
+
+  @Benchmark
+  public JsonItem parseUtf8() {
+    return parser.parse(utf8);
+  }
+
+  @Benchmark
+  public JsonNode jacksonReadTree() throws IOException {
+    return mapper.readTree(utf8);
+  }
+
+  @Benchmark
+  public JsonElement gsonParse() {
+    return JsonParser.parseString(text);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import me.zbl.easyjson.JsonArray;
+import me.zbl.easyjson.JsonObject;
+import me.zbl.easyjson.benchmarks.fixtures.Fixtures;
+import me.zbl.easyjson.benchmarks.fixtures.TelemetryRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以 {@link JsonObject}、{@link JsonArray} 手工构造树
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeBuildBenchmark {
+
+  @Param({"1000"})
+  public int records;
+
+  private List<TelemetryRecord> data;
+
+  @Setup
+  public void setUp() {
+    data = Fixtures.telemetry(records);
+  }
+
+  /**
+   * 逐个添加属性构造遥测记录
+   */
+  @Benchmark
+  public JsonArray build() {
+    JsonArray array = new JsonArray();
+    for (TelemetryRecord r : data) {
+      JsonObject o = new JsonObject();
+      o.addProperty("device_id", r.deviceId);
+      o.addProperty("timestamp", r.timestamp);
+      o.addProperty("temperature", r.temperature);
+      o.addProperty("humidity", r.humidity);
+      o.addProperty("battery", r.battery);
+      o.addProperty("charging", r.charging);
+      o.addProperty("firmware", r.firmware);
+      array.addItem(o);
+    }
+    return array;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks;
+
+import me.zbl.easyjson.benchmarks.fixtures.Fixtures;
+import me.zbl.easyjson.benchmarks.fixtures.TelemetryRecord;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonStringWriter} 逐个写记号的吞吐量，不经过适配器
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WriterBenchmark {
+
+  @Param({"1000"})
+  public int records;
+
+  private List<TelemetryRecord> data;
+
+  @Setup
+  public void setUp() {
+    data = Fixtures.telemetry(records);
+  }
+
+  /**
+   * 写到字符流
+   */
+  @Benchmark
+  public long chars() throws IOException {
+    DiscardingWriter out = new DiscardingWriter();
+    write(new JsonStringWriter(out));
+    return out.count();
+  }
+
+  /**
+   * 以 UTF-8 写到内存中
+   */
+  @Benchmark
+  public int utf8() throws IOException {
+    JsonUtf8Writer w = new JsonUtf8Writer();
+    write(w);
+    return w.size();
+  }
+
+  private void write(JsonStringWriter w) throws IOException {
+    w.newJsonArray();
+    for (TelemetryRecord r : data) {
+      w.newJsonObject();
+      w.name("device_id").value(r.deviceId);
+      w.name("timestamp").value(r.timestamp);
+      w.name("temperature").value(r.temperature);
+      w.name("humidity").value(r.humidity);
+      w.name("battery").value(r.battery);
+      w.name("charging").value(r.charging);
+      w.name("firmware").value(r.firmware);
+      w.finishJsonObject();
+    }
+    w.finishJsonArray();
+    w.flush();
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks.fixtures;
+
+import me.zbl.easyjson.annotations.JsonFieldName;
+
+import java.util.List;
+
+/**
+ * 常见的分页接口响应
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+public class ApiResponse {
+
+  @JsonFieldName("code")
+  public int status;
+  public String message;
+  public long timestamp;
+  public List<User> data;
+  public Paging paging;
+}
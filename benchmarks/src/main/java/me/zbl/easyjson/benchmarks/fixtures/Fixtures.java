@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks.fixtures;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试使用的标准数据
+ * <p>
+ * 数据由固定的随机种子生成，每次运行的内容完全相同
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+public final class Fixtures {
+
+  private static final long SEED = 20180216L;
+
+  private static final String[] CITIES = {"Beijing", "Shanghai", "Hangzhou", "Shenzhen", "Chengdu"};
+  private static final String[] TAGS = {"admin", "beta", "vip", "mobile", "desktop", "legacy"};
+
+  private Fixtures() {
+  }
+
+  /**
+   * 小型的接口响应，包含一页用户
+   *
+   * @param users 用户数
+   */
+  public static ApiResponse apiResponse(int users) {
+    Random random = new Random(SEED);
+    ApiResponse response = new ApiResponse();
+    response.status = 200;
+    response.message = "OK";
+    response.timestamp = 1518739200000L;
+    response.data = new ArrayList<>(users);
+    for (int i = 0; i < users; i++) {
+      response.data.add(user(random, i));
+    }
+    response.paging = new Paging();
+    response.paging.page = 1;
+    response.paging.size = users;
+    response.paging.total = 1024;
+    return response;
+  }
+
+  private static User user(Random random, int i) {
+    User user = new User();
+    user.id = 100000L + i;
+    user.name = "user-" + i;
+    user.email = "user" + i + "@example.com";
+    user.active = random.nextBoolean();
+    user.score = Math.round(random.nextDouble() * 10000) / 100.0;
+    user.tags = new String[1 + random.nextInt(3)];
+    for (int t = 0; t < user.tags.length; t++) {
+      user.tags[t] = TAGS[random.nextInt(TAGS.length)];
+    }
+    user.address = new Address();
+    user.address.street = (1 + random.nextInt(999)) + " Main Street";
+    user.address.city = CITIES[random.nextInt(CITIES.length)];
+    user.address.zip = String.valueOf(100000 + random.nextInt(900000));
+    return user;
+  }
+
+  /**
+   * 大量的遥测记录，以数值为主
+   *
+   * @param count 记录数
+   */
+  public static List<TelemetryRecord> telemetry(int count) {
+    Random random = new Random(SEED);
+    List<TelemetryRecord> records = new ArrayList<>(count);
+    long timestamp = 1518739200000L;
+    for (int i = 0; i < count; i++) {
+      TelemetryRecord record = new TelemetryRecord();
+      record.deviceId = "device-" + random.nextInt(256);
+      record.timestamp = timestamp + i * 1000L;
+      record.temperature = -20 + random.nextDouble() * 60;
+      record.humidity = random.nextDouble() * 100;
+      record.battery = random.nextInt(101);
+      record.charging = random.nextInt(4) == 0;
+      record.firmware = "1." + random.nextInt(10) + "." + random.nextInt(100);
+      records.add(record);
+    }
+    return records;
+  }
+
+  /**
+   * 层层嵌套的配置
+   *
+   * @param depth  嵌套层数
+   * @param fanout 每层的子节点数
+   */
+  public static ConfigNode config(int depth, int fanout) {
+    return config(new Random(SEED), "root", 0, depth, fanout);
+  }
+
+  private static ConfigNode config(Random random, String name, int level, int depth, int fanout) {
+    ConfigNode node = new ConfigNode();
+    node.name = name;
+    node.level = level;
+    node.enabled = random.nextBoolean();
+    node.settings = new LinkedHashMap<>();
+    for (int i = 0; i < 3; i++) {
+      node.settings.put("key" + i, Integer.toHexString(random.nextInt()));
+    }
+    node.children = new ArrayList<>();
+    if (level + 1 < depth) {
+      for (int i = 0; i < fanout; i++) {
+        node.children.add(config(random, name + "." + i, level + 1, depth, fanout));
+      }
+    }
+    return node;
+  }
+
+  /**
+   * 不同风格的字符串：纯 ASCII、大量需要转义的字符、中文
+   */
+  public static String text(String style, int length) {
+    Random random = new Random(SEED);
+    StringBuilder builder = new StringBuilder(length);
+    switch (style) {
+      case "ascii":
+        while (builder.length() < length) {
+          builder.append((char) ('a' + random.nextInt(26)));
+          if (random.nextInt(6) == 0) {
+            builder.append(' ');
+          }
+        }
+        break;
+      case "escape":
+        String specials = "\"\\n\t\r\b/<>&'\u0001";
+        while (builder.length() < length) {
+          builder.append(random.nextInt(3) == 0
+              ? specials.charAt(random.nextInt(specials.length()))
+              : (char) ('a' + random.nextInt(26)));
+        }
+        break;
+      case "cjk":
+        while (builder.length() < length) {
+          builder.append((char) (0x4E00 + random.nextInt(0x5000)));
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("未知的字符串风格：" + style);
+    }
+    builder.setLength(length);
+    return builder.toString();
+  }
+
+  /**
+   * 读取 classpath 中 fixtures 目录下的文件
+   */
+  public static byte[] resource(String name) {
+    try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+      if (null == in) {
+        throw new IllegalArgumentException("找不到文件：" + name);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static String resourceText(String name) {
+    return new String(resource(name), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * 按名称选择载荷：api、telemetry、config
+   */
+  public static Object payload(String name) {
+    switch (name) {
+      case "api":
+        return apiResponse(20);
+      case "telemetry":
+        return telemetry(10000);
+      case "config":
+        return config(6, 4);
+      default:
+        throw new IllegalArgumentException("未知的载荷：" + name);
+    }
+  }
+}
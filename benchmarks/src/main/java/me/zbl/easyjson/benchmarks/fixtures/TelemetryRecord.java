@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.benchmarks.fixtures;
+
+import me.zbl.easyjson.annotations.JsonFieldName;
+
+/**
+ * 设备上报的遥测数据，以数值为主
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+public class TelemetryRecord {
+
+  @JsonFieldName("device_id")
+  public String deviceId;
+  public long timestamp;
+  public double temperature;
+  public double humidity;
+  public int battery;
+  public boolean charging;
+  public String firmware;
+}
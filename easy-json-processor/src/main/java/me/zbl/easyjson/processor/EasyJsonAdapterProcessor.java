@@ -0,0 +1,443 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编译期生成类型适配器的注解处理器
+ * <p>
+ * 对使用了 {@code JsonFieldName} 或 {@code EasyJsonProcess} 注解的类，生成直接读取域的
+ * {@code AbstractJsonTypeAdapter} 子类（与被适配的类位于同一个包中），以及一个汇总所有生成的适配器的
+ * {@code JsonTypeAdapterFactory}，并将该工厂登记到 META-INF/services 中，
+ * 由 {@code EasyJson} 通过 {@link java.util.ServiceLoader} 加载，运行时不再需要反射
+ * <p>
+ * 工厂的类名可通过编译参数 -Aeasyjson.factory=完整类名 指定，同一个运行环境中的多个模块应使用不同的类名。
+ * 私有的域需要有可访问的 getXxx()/isXxx() 方法，否则不为该类生成适配器，运行时仍使用反射
+ *
+ * @author JamesZBL
+ * @date 2018-02-09
+ */
+@SupportedAnnotationTypes({
+        EasyJsonAdapterProcessor.JSON_FIELD_NAME,
+        EasyJsonAdapterProcessor.EASY_JSON_PROCESS
+})
+@SupportedOptions(EasyJsonAdapterProcessor.OPTION_FACTORY)
+public final class EasyJsonAdapterProcessor extends AbstractProcessor {
+
+  static final String JSON_FIELD_NAME = "me.zbl.easyjson.annotations.JsonFieldName";
+  static final String EASY_JSON_PROCESS = "me.zbl.easyjson.annotations.EasyJsonProcess";
+  static final String OPTION_FACTORY = "easyjson.factory";
+
+  private static final String DEFAULT_FACTORY = "me.zbl.easyjson.generated.GeneratedTypeAdapterFactory";
+  private static final String FACTORY_SERVICE = "META-INF/services/me.zbl.easyjson.JsonTypeAdapterFactory";
+  private static final String ADAPTER_SUFFIX = "_EasyJsonAdapter";
+
+  /**
+   * 已处理过的类
+   */
+  private final Set<String> processed = new HashSet<>();
+  /**
+   * 已生成的适配器的完整类名
+   */
+  private final List<String> adapters = new ArrayList<>();
+  /**
+   * 已生成、尚未写入工厂的适配器数量
+   */
+  private int pending;
+  private String factoryName;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      if (null != factoryName) {
+        writeService();
+      }
+      return false;
+    }
+    Set<TypeElement> classes = new LinkedHashSet<>();
+    for (TypeElement annotation : annotations) {
+      for (Element e : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (e.getKind() == ElementKind.FIELD) {
+          classes.add((TypeElement) e.getEnclosingElement());
+        }
+      }
+    }
+    boolean generated = false;
+    for (TypeElement c : classes) {
+      if (!isReachable(c)) {
+        warn(c, "无法为该类生成适配器，运行时将使用反射");
+        continue;
+      }
+      if (processed.add(c.getQualifiedName().toString()) && generateAdapter(c)) {
+        generated = true;
+      }
+    }
+    // 某一轮没有生成新的适配器时，再写出工厂，使工厂本身也经过正常的编译轮次
+    if (!generated && pending > 0) {
+      writeFactory();
+    }
+    return false;
+  }
+
+  /**
+   * 为指定的类生成适配器
+   *
+   * @return 是否生成成功
+   */
+  private boolean generateAdapter(TypeElement c) {
+    if (c.getKind() != ElementKind.CLASS || c.getModifiers().contains(Modifier.ABSTRACT)) {
+      warn(c, "无法为该类生成适配器，运行时将使用反射");
+      return false;
+    }
+    String pkg = packageOf(c);
+    List<String> statements = new ArrayList<>();
+    List<String> constants = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    for (TypeElement t : hierarchyOf(c)) {
+      for (VariableElement f : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+        Set<Modifier> m = f.getModifiers();
+        if (m.contains(Modifier.STATIC) || m.contains(Modifier.TRANSIENT) || isSkipped(f)) {
+          continue;
+        }
+        String name = serializedNameOf(f);
+        if (!names.add(name)) {
+          error(f, "存在重复的域名称：" + name);
+          return false;
+        }
+        String access = accessOf(t, f, pkg);
+        if (null == access) {
+          warn(f, "该域无法直接访问，也没有可访问的 getter，运行时将使用反射转换 " + c.getQualifiedName());
+          return false;
+        }
+        // 名称只编码一次，保存为常量
+        String constant = "NAME_" + constants.size();
+        constants.add("  private static final me.zbl.easyjson.io.PreEncodedName " + constant
+                + " = me.zbl.easyjson.io.PreEncodedName.of(" + literal(name) + ");");
+        statements.add("    w.name(" + constant + ");");
+        if (isDirectValue(f.asType())) {
+          statements.add("    w.value(" + access + ");");
+        } else {
+          statements.add("    context.toJson(" + access + ", w);");
+        }
+      }
+    }
+    String simple = adapterSimpleName(c);
+    String qualified = pkg.isEmpty() ? simple : pkg + "." + simple;
+    String type = c.getQualifiedName().toString();
+    StringBuilder s = new StringBuilder();
+    if (!pkg.isEmpty()) {
+      s.append("package ").append(pkg).append(";\n\n");
+    }
+    s.append("/**\n")
+            .append(" * ").append(type).append(" 的类型适配器\n")
+            .append(" * 由 ").append(EasyJsonAdapterProcessor.class.getName()).append(" 生成，请勿修改\n")
+            .append(" */\n")
+            .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+            .append("public final class ").append(simple)
+            .append(" extends me.zbl.easyjson.AbstractJsonTypeAdapter<").append(type).append("> {\n\n")
+            .append("  public static final Class<?> TYPE = ").append(type).append(".class;\n\n");
+    for (String constant : constants) {
+      s.append(constant).append("\n");
+    }
+    if (!constants.isEmpty()) {
+      s.append("\n");
+    }
+    s.append("  private final me.zbl.easyjson.EasyJson context;\n\n")
+            .append("  public ").append(simple).append("(me.zbl.easyjson.EasyJson context) {\n")
+            .append("    this.context = context;\n")
+            .append("  }\n\n")
+            .append("  @Override\n")
+            .append("  public void convertToJson(").append(type).append(" o, me.zbl.easyjson.io.JsonStringWriter w) throws java.io.IOException {\n")
+            .append("    if (null == o) {\n")
+            .append("      w.nullValue();\n")
+            .append("      return;\n")
+            .append("    }\n")
+            .append("    w.newJsonObject();\n");
+    for (String statement : statements) {
+      s.append(statement).append("\n");
+    }
+    s.append("    w.finishJsonObject();\n")
+            .append("  }\n")
+            .append("}\n");
+    if (!writeSource(qualified, s.toString(), c)) {
+      return false;
+    }
+    adapters.add(qualified);
+    pending++;
+    return true;
+  }
+
+  /**
+   * 写出汇总所有适配器的工厂
+   */
+  private void writeFactory() {
+    String option = processingEnv.getOptions().get(OPTION_FACTORY);
+    String name = null != option && !option.isEmpty() ? option : DEFAULT_FACTORY;
+    if (null != factoryName) {
+      error(null, "工厂 " + name + " 已经生成，后续轮次中出现的类无法再加入");
+      return;
+    }
+    int dot = name.lastIndexOf('.');
+    String pkg = dot < 0 ? "" : name.substring(0, dot);
+    String simple = name.substring(dot + 1);
+    StringBuilder s = new StringBuilder();
+    if (!pkg.isEmpty()) {
+      s.append("package ").append(pkg).append(";\n\n");
+    }
+    s.append("/**\n")
+            .append(" * 编译期生成的类型适配器工厂\n")
+            .append(" * 由 ").append(EasyJsonAdapterProcessor.class.getName()).append(" 生成，请勿修改\n")
+            .append(" */\n")
+            .append("public final class ").append(simple).append(" implements me.zbl.easyjson.JsonTypeAdapterFactory {\n\n")
+            .append("  @Override\n")
+            .append("  @SuppressWarnings(\"unchecked\")\n")
+            .append("  public <T> me.zbl.easyjson.AbstractJsonTypeAdapter<T> createAdapter(me.zbl.easyjson.EasyJson context, me.zbl.easyjson.JsonType<?> type) {\n")
+            .append("    Class<?> raw = type.getRaw();\n");
+    for (String adapter : adapters) {
+      s.append("    if (raw == ").append(adapter).append(".TYPE) {\n")
+              .append("      return (me.zbl.easyjson.AbstractJsonTypeAdapter<T>) (me.zbl.easyjson.AbstractJsonTypeAdapter<?>) new ")
+              .append(adapter).append("(context);\n")
+              .append("    }\n");
+    }
+    s.append("    return null;\n")
+            .append("  }\n")
+            .append("}\n");
+    if (writeSource(name, s.toString(), null)) {
+      factoryName = name;
+      pending = 0;
+    }
+  }
+
+  /**
+   * 将工厂登记到 META-INF/services 中
+   */
+  private void writeService() {
+    try {
+      FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", FACTORY_SERVICE);
+      try (Writer w = file.openWriter()) {
+        w.write(factoryName);
+        w.write("\n");
+      }
+    } catch (IOException e) {
+      error(null, "无法写出 " + FACTORY_SERVICE + "：" + e.getMessage());
+    }
+  }
+
+  private boolean writeSource(String name, String content, Element origin) {
+    try {
+      Element[] origins = null == origin ? new Element[0] : new Element[]{origin};
+      try (Writer w = processingEnv.getFiler().createSourceFile(name, origins).openWriter()) {
+        w.write(content);
+      }
+      return true;
+    } catch (IOException e) {
+      error(origin, "无法写出 " + name + "：" + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * 按父类在前的顺序列出类及其所有父类（不包括 Object）
+   */
+  private List<TypeElement> hierarchyOf(TypeElement c) {
+    List<TypeElement> hierarchy = new ArrayList<>();
+    TypeElement t = c;
+    while (null != t && !"java.lang.Object".equals(t.getQualifiedName().toString())) {
+      hierarchy.add(0, t);
+      TypeMirror s = t.getSuperclass();
+      t = s.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) s).asElement() : null;
+    }
+    return hierarchy;
+  }
+
+  /**
+   * 获取读取域的表达式，无法访问时返回 null
+   *
+   * @param owner 声明该域的类
+   * @param pkg   生成的适配器所在的包
+   */
+  private String accessOf(TypeElement owner, VariableElement f, String pkg) {
+    String name = f.getSimpleName().toString();
+    if (isAccessible(f, owner, pkg)) {
+      return "o." + name;
+    }
+    String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    for (ExecutableElement m : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+      String method = m.getSimpleName().toString();
+      boolean named = method.equals("get" + suffix)
+              || (f.asType().getKind() == TypeKind.BOOLEAN && method.equals("is" + suffix));
+      if (named && m.getParameters().isEmpty() && !m.getModifiers().contains(Modifier.STATIC)
+              && processingEnv.getTypeUtils().isSameType(m.getReturnType(), f.asType())
+              && isAccessible(m, owner, pkg)) {
+        return "o." + method + "()";
+      }
+    }
+    return null;
+  }
+
+  private boolean isAccessible(Element member, TypeElement owner, String pkg) {
+    Set<Modifier> m = member.getModifiers();
+    if (m.contains(Modifier.PRIVATE)) {
+      return false;
+    }
+    return m.contains(Modifier.PUBLIC) || packageOf(owner).equals(pkg);
+  }
+
+  /**
+   * 判断是否可以从同一个包中访问该类（嵌套类必须为非私有的成员类）
+   * 局部类和匿名类没有可以在别处引用的类名，也不会有唯一的完整类名
+   */
+  private boolean isReachable(TypeElement c) {
+    for (Element e = c; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      NestingKind kind = ((TypeElement) e).getNestingKind();
+      if ((kind != NestingKind.TOP_LEVEL && kind != NestingKind.MEMBER) || e.getModifiers().contains(Modifier.PRIVATE)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 判断域的值能否直接交给 JsonStringWriter.value 写出
+   * 包括基本数据类型、字符串、布尔、字符及所有数值类型
+   */
+  private boolean isDirectValue(TypeMirror t) {
+    if (t.getKind().isPrimitive()) {
+      return true;
+    }
+    if (t.getKind() != TypeKind.DECLARED) {
+      return false;
+    }
+    String name = ((TypeElement) ((DeclaredType) t).asElement()).getQualifiedName().toString();
+    if ("java.lang.String".equals(name) || "java.lang.Boolean".equals(name) || "java.lang.Character".equals(name)) {
+      return true;
+    }
+    TypeMirror number = processingEnv.getElementUtils().getTypeElement("java.lang.Number").asType();
+    return processingEnv.getTypeUtils().isAssignable(t, number);
+  }
+
+  private boolean isSkipped(VariableElement f) {
+    AnnotationMirror a = annotationOf(f, EASY_JSON_PROCESS);
+    if (null == a) {
+      return false;
+    }
+    Object skip = valueOf(a, "skip");
+    return Boolean.TRUE.equals(skip);
+  }
+
+  private String serializedNameOf(VariableElement f) {
+    AnnotationMirror a = annotationOf(f, JSON_FIELD_NAME);
+    return null != a ? String.valueOf(valueOf(a, "value")) : f.getSimpleName().toString();
+  }
+
+  private AnnotationMirror annotationOf(Element e, String type) {
+    for (AnnotationMirror a : e.getAnnotationMirrors()) {
+      if (((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(type)) {
+        return a;
+      }
+    }
+    return null;
+  }
+
+  private Object valueOf(AnnotationMirror a, String name) {
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+            processingEnv.getElementUtils().getElementValuesWithDefaults(a);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+    return null;
+  }
+
+  private String packageOf(Element e) {
+    PackageElement p = processingEnv.getElementUtils().getPackageOf(e);
+    return p.isUnnamed() ? "" : p.getQualifiedName().toString();
+  }
+
+  /**
+   * 生成的适配器的类名，嵌套类以下划线连接，如 Outer_Inner_EasyJsonAdapter
+   */
+  private String adapterSimpleName(TypeElement c) {
+    StringBuilder s = new StringBuilder(c.getSimpleName());
+    for (Element e = c.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+      s.insert(0, '_').insert(0, e.getSimpleName());
+    }
+    return s.append(ADAPTER_SUFFIX).toString();
+  }
+
+  /**
+   * 转换成 Java 字符串字面量
+   */
+  private static String literal(String s) {
+    StringBuilder b = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        b.append('\\').append(c);
+      } else if (c < 0x20 || c > 0x7e) {
+        b.append(String.format("\\u%04x", (int) c));
+      } else {
+        b.append(c);
+      }
+    }
+    return b.append('"').toString();
+  }
+
+  private void warn(Element e, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, e);
+  }
+
+  private void error(Element e, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, e);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link EasyJsonAdapterProcessor} 的测试
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class EasyJsonAdapterProcessorTest {
+
+  private static Compilation compile(JavaFileObject source) {
+    return javac().withProcessors(new EasyJsonAdapterProcessor()).compile(source);
+  }
+
+  @Test
+  public void generatesAdaptersForTopLevelAndMemberClasses() {
+    Compilation compilation = compile(JavaFileObjects.forSourceLines("test.Outer",
+            "package test;",
+            "import me.zbl.easyjson.annotations.JsonFieldName;",
+            "public class Outer {",
+            "  @JsonFieldName(\"n\") public int value;",
+            "  public static class Member {",
+            "    @JsonFieldName(\"m\") public String text;",
+            "  }",
+            "}"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation).generatedSourceFile("test.Outer_EasyJsonAdapter");
+    assertThat(compilation).generatedSourceFile("test.Outer_Member_EasyJsonAdapter");
+    assertThat(compilation).generatedSourceFile("me.zbl.easyjson.generated.GeneratedTypeAdapterFactory");
+    assertThat(compilation).generatedFile(StandardLocation.CLASS_OUTPUT,
+            "META-INF/services/me.zbl.easyjson.JsonTypeAdapterFactory");
+  }
+
+  @Test
+  public void skipsLocalAndAnonymousClasses() {
+    Compilation compilation = compile(JavaFileObjects.forSourceLines("test.Holder",
+            "package test;",
+            "import me.zbl.easyjson.annotations.JsonFieldName;",
+            "public class Holder {",
+            "  public Object first() {",
+            "    class Local { @JsonFieldName(\"a\") public int a; }",
+            "    return new Local();",
+            "  }",
+            "  public Object second() {",
+            "    class Local { @JsonFieldName(\"b\") public int b; }",
+            "    return new Object() { @JsonFieldName(\"c\") public int c; Local l = new Local(); };",
+            "  }",
+            "}"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertTrue(compilation.generatedSourceFiles().isEmpty());
+  }
+
+  @Test
+  public void skipsPrivateNestedClasses() {
+    Compilation compilation = compile(JavaFileObjects.forSourceLines("test.Owner",
+            "package test;",
+            "import me.zbl.easyjson.annotations.JsonFieldName;",
+            "public class Owner {",
+            "  private static class Hidden {",
+            "    @JsonFieldName(\"h\") public int h;",
+            "    public static class Inner { @JsonFieldName(\"i\") public int i; }",
+            "  }",
+            "}"));
+    assertThat(compilation).succeeded();
+    assertEquals(2, compilation.warnings().size());
+    assertTrue(compilation.generatedSourceFiles().isEmpty());
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.simd;
+
+import me.zbl.easyjson.JsonItem;
+import me.zbl.easyjson.JsonTreeParser;
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 借助 {@link StructuralIndex} 解析顶级元素为数组的文档
+ * <p>
+ * 找元素边界时只沿位图跳到下一个结构字符，根据括号维护嵌套深度，在深度为 1 的逗号处切分，
+ * 不再逐个字节判断是否位于字符串中；各元素再由 {@link JsonTreeParser} 解析。
+ * <p>
+ * 复用索引器和解析器的暂存数组，因此不是线程安全的
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class IndexedArrayParser {
+
+  private final StructuralIndexer indexer;
+  private final JsonTreeParser treeParser = new JsonTreeParser();
+
+  /**
+   * 使用 {@link StructuralIndexer#newInstance()}
+   */
+  public IndexedArrayParser() {
+    this(StructuralIndexer.newInstance());
+  }
+
+  public IndexedArrayParser(StructuralIndexer indexer) {
+    StatusCheck.checkIfNull(indexer);
+    this.indexer = indexer;
+  }
+
+  /**
+   * 将以 UTF-8 编码的数组解析为元素列表
+   */
+  public List<JsonItem> parse(byte[] utf8) {
+    StatusCheck.checkIfNull(utf8);
+    StructuralIndex index = indexer.index(utf8);
+    int[] bounds = elementBounds(index);
+    List<JsonItem> items = new ArrayList<>(bounds.length / 2);
+    ByteBuffer element = ByteBuffer.wrap(utf8);
+    for (int i = 0; i < bounds.length; i += 2) {
+      ((Buffer) element).clear();
+      ((Buffer) element).position(bounds[i]);
+      ((Buffer) element).limit(bounds[i + 1]);
+      try {
+        items.add(treeParser.parse(element));
+      } catch (RuntimeException e) {
+        throw new JsonUnknownFormatException("位于第 " + bounds[i] + " 个字节的元素格式错误", e);
+      }
+    }
+    return items;
+  }
+
+  /**
+   * 找出顶级数组中每个元素的范围
+   *
+   * @return 依次为每个元素的开始位置和结束位置（元素之后的逗号或右方括号），元素两侧可能有空白字符
+   */
+  public static int[] elementBounds(StructuralIndex index) {
+    StatusCheck.checkIfNull(index);
+    byte[] in = index.getInput();
+    int start = index.getOffset();
+    int end = start + index.getLength();
+    int p = index.next(start);
+    if (p < 0 || in[p] != '[' || !isBlank(in, start, p)) {
+      throw error("顶级元素不是数组", start);
+    }
+    if (index.hasUnclosedString()) {
+      throw error("字符串未结束", end);
+    }
+    int[] bounds = new int[16];
+    int size = 0;
+    int depth = 0;
+    int elementStart = p + 1;
+    for (; p >= 0; p = index.next(p + 1)) {
+      switch (in[p]) {
+        case '[':
+        case '{':
+          depth++;
+          break;
+        case ']':
+        case '}':
+          if (--depth > 0) {
+            break;
+          }
+          if (in[p] != ']') {
+            throw error("括号不匹配", p);
+          }
+          if (!isBlank(in, elementStart, p)) {
+            bounds = add(bounds, size, elementStart, p);
+            size += 2;
+          } else if (size > 0) {
+            throw error("数组中缺少元素", p);
+          }
+          if (!isBlank(in, p + 1, end)) {
+            throw error("存在多个顶级元素", p + 1);
+          }
+          return Arrays.copyOf(bounds, size);
+        case ',':
+          if (depth == 1) {
+            if (isBlank(in, elementStart, p)) {
+              throw error("数组中缺少元素", p);
+            }
+            bounds = add(bounds, size, elementStart, p);
+            size += 2;
+            elementStart = p + 1;
+          }
+          break;
+        default:
+          // 双引号和冒号不影响元素的边界
+          break;
+      }
+    }
+    throw error("数组未结束", end);
+  }
+
+  private static int[] add(int[] bounds, int size, int start, int end) {
+    if (size + 2 > bounds.length) {
+      bounds = Arrays.copyOf(bounds, bounds.length * 2);
+    }
+    bounds[size] = start;
+    bounds[size + 1] = end;
+    return bounds;
+  }
+
+  /**
+   * [from, to) 范围内是否只有空白字符，只用于元素之间和文档两端的少量字节
+   */
+  private static boolean isBlank(byte[] in, int from, int to) {
+    for (int i = from; i < to; i++) {
+      byte b = in[i];
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static JsonUnknownFormatException error(String message, int offset) {
+    return new JsonUnknownFormatException(message + "，位于第 " + offset + " 个字节");
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.simd;
+
+/**
+ * {@link StructuralIndexer} 建立的结构字符位图
+ * <p>
+ * 第 i 位对应输入中第 offset + i 个字节，为 1 表示该字节是字符串之外的 {@code {}[]:,}，
+ * 或者字符串两侧的双引号。通过 {@link #next(int)} 依次跳到下一个结构字符，不必逐个字节判断
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class StructuralIndex {
+
+  private final byte[] input;
+  private final int offset;
+  private final int length;
+  private final long[] bits;
+  private final boolean unclosedString;
+
+  StructuralIndex(byte[] input, int offset, int length, long[] bits, boolean unclosedString) {
+    this.input = input;
+    this.offset = offset;
+    this.length = length;
+    this.bits = bits;
+    this.unclosedString = unclosedString;
+  }
+
+  /**
+   * 建立索引的输入
+   */
+  public byte[] getInput() {
+    return input;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * 输入结束时是否仍位于字符串中
+   */
+  public boolean hasUnclosedString() {
+    return unclosedString;
+  }
+
+  /**
+   * 位置不小于 from 的第一个结构字符在输入中的位置，没有时返回 -1
+   */
+  public int next(int from) {
+    int rel = Math.max(0, from - offset);
+    if (rel >= length) {
+      return -1;
+    }
+    int word = rel >>> 6;
+    long w = bits[word] & -1L << rel;
+    while (w == 0) {
+      if (++word == bits.length) {
+        return -1;
+      }
+      w = bits[word];
+    }
+    return offset + (word << 6) + Long.numberOfTrailingZeros(w);
+  }
+
+  /**
+   * 该位置是否为结构字符
+   */
+  public boolean isStructural(int pos) {
+    int rel = pos - offset;
+    return rel >= 0 && rel < length && (bits[rel >>> 6] & 1L << rel) != 0;
+  }
+
+  /**
+   * 结构字符的数量
+   */
+  public int count() {
+    int n = 0;
+    for (long w : bits) {
+      n += Long.bitCount(w);
+    }
+    return n;
+  }
+}
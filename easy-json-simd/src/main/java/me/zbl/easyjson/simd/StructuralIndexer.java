@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.simd;
+
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.util.Arrays;
+
+/**
+ * 为 UTF-8 编码的 Json 建立结构字符的位图
+ * <p>
+ * 每次处理 64 个字节：子类找出其中的反斜杠、双引号和 {@code {}[]:,} 的位置，各得到一个 64 位的掩码，
+ * 之后不再逐个字节判断，而是以位运算去掉被转义的双引号（奇数个连续反斜杠之后的字符），
+ * 以前缀异或得到位于字符串中的范围，去掉字符串中的结构字符。
+ * 字符串和转义的状态跨块延续。结果中包含字符串两侧的双引号
+ * <p>
+ * {@link #newInstance()} 返回以 long 同时比较 8 个字节的 SWAR 实现。基于 Vector API 的实现
+ * 在 JDK 17 上实测慢 2 到 3 倍，只能通过 {@link #newVectorInstance()} 显式选用。
+ * 保存跨块的状态，因此不是线程安全的
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public abstract class StructuralIndexer {
+
+  private static final String VECTOR_INDEXER = "me.zbl.easyjson.simd.VectorStructuralIndexer";
+  private static final boolean VECTOR_AVAILABLE = null != loadVector();
+
+  /**
+   * 奇数位
+   */
+  private static final long ODD_BITS = 0xAAAAAAAAAAAAAAAAL;
+
+  /**
+   * 当前块中反斜杠、双引号、结构字符的掩码，由 {@link #scan(byte[], int)} 写入
+   */
+  long backslash;
+  long quote;
+  long structural;
+
+  /**
+   * 上一块的最后一个字节是否为转义序列的开始（0 或 1）
+   */
+  private long nextIsEscaped;
+  /**
+   * 上一块结束时是否位于字符串中（0 或 -1）
+   */
+  private long inStringCarry;
+  /**
+   * 末尾不足 64 个字节时以空格补齐
+   */
+  private final byte[] tail = new byte[64];
+
+  StructuralIndexer() {
+  }
+
+  /**
+   * 默认的实现，即 {@link #newSwarInstance()}
+   */
+  public static StructuralIndexer newInstance() {
+    return new SwarStructuralIndexer();
+  }
+
+  /**
+   * 以 long 同时比较 8 个字节的实现，任何 JVM 都可以使用
+   */
+  public static StructuralIndexer newSwarInstance() {
+    return new SwarStructuralIndexer();
+  }
+
+  /**
+   * 基于 Vector API 的实现
+   *
+   * @throws UnsupportedOperationException 当前 JVM 不能使用 jdk.incubator.vector
+   */
+  public static StructuralIndexer newVectorInstance() {
+    StructuralIndexer indexer = loadVector();
+    if (null == indexer) {
+      throw new UnsupportedOperationException("当前 JVM 不能使用 jdk.incubator.vector");
+    }
+    return indexer;
+  }
+
+  /**
+   * 当前 JVM 能否使用 jdk.incubator.vector（JDK 17 及以上，并且启动时加上了 add-modules jdk.incubator.vector）
+   */
+  public static boolean isVectorAvailable() {
+    return VECTOR_AVAILABLE;
+  }
+
+  private static StructuralIndexer loadVector() {
+    try {
+      return (StructuralIndexer) Class.forName(VECTOR_INDEXER).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // 低版本的 JVM 不能加载该类，或者没有加上 jdk.incubator.vector 模块
+      return null;
+    }
+  }
+
+  /**
+   * 为整个数组建立索引
+   */
+  public StructuralIndex index(byte[] utf8) {
+    StatusCheck.checkIfNull(utf8);
+    return index(utf8, 0, utf8.length);
+  }
+
+  /**
+   * 为数组中 [offset, offset + length) 范围内的字节建立索引
+   */
+  public StructuralIndex index(byte[] utf8, int offset, int length) {
+    StatusCheck.checkIfNull(utf8);
+    StatusCheck.checkIfLegal(offset >= 0 && length >= 0 && offset + length <= utf8.length && offset + length >= 0);
+    nextIsEscaped = 0;
+    inStringCarry = 0;
+    long[] bits = new long[(length + 63) >>> 6];
+    int full = length & ~63;
+    int i = 0;
+    for (; i < full; i += 64) {
+      bits[i >>> 6] = block(utf8, offset + i);
+    }
+    if (i < length) {
+      Arrays.fill(tail, (byte) ' ');
+      System.arraycopy(utf8, offset + i, tail, 0, length - i);
+      bits[i >>> 6] = block(tail, 0);
+    }
+    return new StructuralIndex(utf8, offset, length, bits, inStringCarry != 0);
+  }
+
+  /**
+   * 处理从 pos 开始的 64 个字节，返回结构字符的位图
+   */
+  private long block(byte[] in, int pos) {
+    scan(in, pos);
+    long quotes = quote & ~escaped(backslash);
+    long inString = prefixXor(quotes) ^ inStringCarry;
+    inStringCarry = inString >> 63;
+    return structural & ~inString | quotes;
+  }
+
+  /**
+   * 被转义的字符的掩码：奇数个连续反斜杠之后的字符
+   * 从每一串反斜杠的开头起，奇偶位交替；开头位于偶数位和奇数位的串分别处理，以一次减法得到每一串的结束位置
+   */
+  private long escaped(long backslash) {
+    if (backslash == 0) {
+      long escaped = nextIsEscaped;
+      nextIsEscaped = 0;
+      return escaped;
+    }
+    long potentialEscape = backslash & ~nextIsEscaped;
+    long maybeEscaped = potentialEscape << 1;
+    long escapeAndTerminalCode = ((maybeEscaped | ODD_BITS) - potentialEscape) ^ ODD_BITS;
+    long escaped = escapeAndTerminalCode ^ (backslash | nextIsEscaped);
+    long escape = escapeAndTerminalCode & backslash;
+    nextIsEscaped = escape >>> 63;
+    return escaped;
+  }
+
+  /**
+   * 前缀异或：结果的第 i 位为 x 的第 0 到 i 位的异或，即位于一对双引号之间（含开头的双引号）的位置
+   */
+  private static long prefixXor(long x) {
+    x ^= x << 1;
+    x ^= x << 2;
+    x ^= x << 4;
+    x ^= x << 8;
+    x ^= x << 16;
+    x ^= x << 32;
+    return x;
+  }
+
+  /**
+   * 找出从 pos 开始的 64 个字节中的反斜杠、双引号和结构字符，
+   * 分别写入 {@link #backslash}、{@link #quote}、{@link #structural}，第 i 位对应第 pos + i 个字节
+   */
+  abstract void scan(byte[] in, int pos);
+}
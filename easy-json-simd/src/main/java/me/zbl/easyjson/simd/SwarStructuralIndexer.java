@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.simd;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 以 long 同时比较 8 个字节（SWAR）的 {@link StructuralIndexer}
+ * <p>
+ * 每次以小端序读出 8 个字节，与目标字符逐字节异或后，以不产生跨字节进位的方式找出为 0 的字节，
+ * 再以一次乘法把 8 个字节的最高位收集为 8 位掩码。
+ * '[' ']' 与 '{' '}' 只差 0x20 这一位，置位后只需比较两次
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+final class SwarStructuralIndexer extends StructuralIndexer {
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+  private static final long CASE_BIT = 0x2020202020202020L;
+  private static final long BACKSLASH = '\\' * ONES;
+  private static final long QUOTE = '"' * ONES;
+  private static final long OPEN_BRACE = '{' * ONES;
+  private static final long CLOSE_BRACE = '}' * ONES;
+  private static final long COLON = ':' * ONES;
+  private static final long COMMA = ',' * ONES;
+  /**
+   * 将各字节的最低位收集到最高字节中
+   */
+  private static final long GATHER = 0x0102040810204080L;
+
+  /**
+   * 上次读取的数组及以小端序访问它的缓冲区
+   */
+  private byte[] array;
+  private ByteBuffer words;
+
+  @Override
+  void scan(byte[] in, int pos) {
+    if (in != array) {
+      array = in;
+      words = ByteBuffer.wrap(in).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    long b = 0;
+    long q = 0;
+    long s = 0;
+    for (int i = 0; i < 64; i += 8) {
+      long w = words.getLong(pos + i);
+      long lower = w | CASE_BIT;
+      b |= movemask(zeroBytes(w ^ BACKSLASH)) << i;
+      q |= movemask(zeroBytes(w ^ QUOTE)) << i;
+      s |= movemask(zeroBytes(lower ^ OPEN_BRACE) | zeroBytes(lower ^ CLOSE_BRACE)
+          | zeroBytes(w ^ COLON) | zeroBytes(w ^ COMMA)) << i;
+    }
+    backslash = b;
+    quote = q;
+    structural = s;
+  }
+
+  /**
+   * 为 0 的字节的最高位置 1，其余位为 0
+   */
+  private static long zeroBytes(long x) {
+    long t = (x & LOW7) + LOW7;
+    return ~(t | x | LOW7);
+  }
+
+  /**
+   * 将各字节的最高位收集为 8 位掩码，第 i 位对应第 i 个字节
+   */
+  private static long movemask(long highBits) {
+    return (highBits >>> 7) * GATHER >>> 56;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.simd;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 Vector API（jdk.incubator.vector）的 {@link StructuralIndexer}
+ * <p>
+ * 每次比较 16 个字节，比较结果直接转换为掩码。JDK 17 中只有 128 位的比较结果能高效地转换为 long，
+ * 更宽的向量（AVX2、AVX-512）反而慢数倍，因此固定使用 128 位，x86 与 ARM 都能直接支持。
+ * 以 JDK 17 编译，只通过 {@link StructuralIndexer#newVectorInstance()} 以反射创建
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+final class VectorStructuralIndexer extends StructuralIndexer {
+
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+  private static final int LANES = SPECIES.length();
+
+  VectorStructuralIndexer() {
+  }
+
+  @Override
+  void scan(byte[] in, int pos) {
+    long b = 0;
+    long q = 0;
+    long s = 0;
+    for (int i = 0; i < 64; i += LANES) {
+      ByteVector v = ByteVector.fromArray(SPECIES, in, pos + i);
+      // '[' ']' 与 '{' '}' 只差 0x20 这一位
+      ByteVector lower = v.or((byte) 0x20);
+      b |= v.eq((byte) '\\').toLong() << i;
+      q |= v.eq((byte) '"').toLong() << i;
+      s |= lower.eq((byte) '{').or(lower.eq((byte) '}')).or(v.eq((byte) ':')).or(v.eq((byte) ',')).toLong() << i;
+    }
+    backslash = b;
+    quote = q;
+    structural = s;
+  }
+}
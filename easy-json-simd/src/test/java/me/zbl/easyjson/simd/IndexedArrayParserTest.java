@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.simd;
+
+import me.zbl.easyjson.JsonItem;
+import me.zbl.easyjson.JsonObject;
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link IndexedArrayParser} 的元素切分和格式错误
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class IndexedArrayParserTest {
+
+  private static List<JsonItem> parse(String json) {
+    return new IndexedArrayParser().parse(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void splitsTopLevelElements() {
+    List<JsonItem> items = parse(" [1, \"a,]\" ,{\"k\":[2,3]}, [[]] ] ");
+    assertEquals(4, items.size());
+    assertEquals(1, items.get(0).getIntValue());
+    assertEquals("a,]", items.get(1).getStringValue());
+    assertTrue(items.get(2) instanceof JsonObject);
+    assertTrue(items.get(3).typeOfJsonArray());
+  }
+
+  @Test
+  public void emptyArrays() {
+    assertEquals(0, parse("[]").size());
+    assertEquals(0, parse(" [ \n ] ").size());
+  }
+
+  @Test
+  public void rejectsMalformedArrays() {
+    String[] inputs = {"[1,]", "[,1]", "[1 2]", "[1]x", "[1][2]", "{\"a\":1}", "1", "", "[1", "[\"a]", "[1}", "[{]}", "[1,,2]"};
+    for (String input : inputs) {
+      try {
+        parse(input);
+        fail(input);
+      } catch (JsonUnknownFormatException expected) {
+      }
+    }
+  }
+}
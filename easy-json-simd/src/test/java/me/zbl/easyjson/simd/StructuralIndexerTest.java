@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.simd;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 以逐个字节判断的方式检查 SWAR 和 Vector API 两种实现建立的位图
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class StructuralIndexerTest {
+
+  private static final byte[] ALPHABET = "\"\\{}[]:,a1 \n".getBytes();
+
+  private static List<StructuralIndexer> indexers() {
+    List<StructuralIndexer> indexers = new ArrayList<>();
+    indexers.add(StructuralIndexer.newSwarInstance());
+    indexers.add(StructuralIndexer.newInstance());
+    if (StructuralIndexer.isVectorAvailable()) {
+      indexers.add(StructuralIndexer.newVectorInstance());
+    }
+    return indexers;
+  }
+
+  /**
+   * 逐个字节判断：奇数个连续反斜杠之后的双引号被转义，字符串之外的 {}[]:, 以及字符串两侧的双引号为结构字符
+   *
+   * @return 最后一个元素表示输入结束时是否仍位于字符串中
+   */
+  private static boolean[] reference(byte[] in, int offset, int length) {
+    boolean[] structural = new boolean[length + 1];
+    boolean inString = false;
+    boolean escapeNext = false;
+    for (int i = 0; i < length; i++) {
+      byte b = in[offset + i];
+      boolean escaped = escapeNext;
+      escapeNext = b == '\\' && !escaped;
+      if (b == '"' && !escaped) {
+        structural[i] = true;
+        inString = !inString;
+      } else if (!inString) {
+        structural[i] = b == '{' || b == '}' || b == '[' || b == ']' || b == ':' || b == ',';
+      }
+    }
+    structural[length] = inString;
+    return structural;
+  }
+
+  private static void check(StructuralIndexer indexer, byte[] in, int offset, int length) {
+    boolean[] expected = reference(in, offset, length);
+    StructuralIndex index = indexer.index(in, offset, length);
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      assertEquals(indexer.getClass().getSimpleName() + " 第 " + i + " 个字节", expected[i], index.isStructural(offset + i));
+      if (expected[i]) {
+        assertEquals(offset + i, index.next(offset + i));
+        count++;
+      }
+    }
+    assertEquals(count, index.count());
+    assertEquals(expected[length], index.hasUnclosedString());
+  }
+
+  @Test
+  public void matchesByteByByteScan() {
+    Random random = new Random(42);
+    List<StructuralIndexer> indexers = indexers();
+    for (int n = 0; n < 3000; n++) {
+      byte[] in = new byte[random.nextInt(300)];
+      boolean anyByte = random.nextBoolean();
+      for (int i = 0; i < in.length; i++) {
+        if (anyByte) {
+          in[i] = (byte) random.nextInt(256);
+        } else if (random.nextInt(8) == 0) {
+          // 较长的连续反斜杠，跨越 64 个字节的边界
+          int run = Math.min(in.length - i, random.nextInt(70) + 1);
+          for (int j = 0; j < run; j++) {
+            in[i + j] = '\\';
+          }
+          i += run - 1;
+        } else {
+          in[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+      }
+      int offset = in.length == 0 ? 0 : random.nextInt(in.length);
+      for (StructuralIndexer indexer : indexers) {
+        check(indexer, in, 0, in.length);
+        check(indexer, in, offset, in.length - offset);
+      }
+    }
+  }
+
+  @Test
+  public void escapesCarryAcrossBlocks() {
+    for (int run = 1; run <= 130; run++) {
+      StringBuilder b = new StringBuilder("\"");
+      for (int i = 0; i < run; i++) {
+        b.append('\\');
+      }
+      b.append("\",[1]");
+      byte[] in = b.toString().getBytes();
+      for (StructuralIndexer indexer : indexers()) {
+        check(indexer, in, 0, in.length);
+      }
+    }
+  }
+
+  @Test
+  public void indexerIsReusable() {
+    StructuralIndexer indexer = StructuralIndexer.newInstance();
+    byte[] unclosed = "[\"abc".getBytes();
+    assertEquals(true, indexer.index(unclosed).hasUnclosedString());
+    byte[] closed = "[\"a\",1]".getBytes();
+    check(indexer, closed, 0, closed.length);
+  }
+
+  @Test
+  public void defaultIsSwar() {
+    assertEquals(SwarStructuralIndexer.class, StructuralIndexer.newInstance().getClass());
+  }
+}
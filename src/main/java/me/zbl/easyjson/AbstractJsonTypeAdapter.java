@@ -18,8 +18,10 @@ package me.zbl.easyjson;
 
 import me.zbl.easyjson.exceptions.JsonIOException;
 import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Writer;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 
@@ -40,25 +42,44 @@ public abstract class AbstractJsonTypeAdapter<T> {
   public abstract void convertToJson(T o, JsonStringWriter w) throws IOException;
 
 
+  /**
+   * 写到字符流，写完后刷新字符流，但不关闭
+   */
   public final void convertToJson(T origin, Writer writer) throws IOException {
     JsonStringWriter j = new JsonStringWriter(writer);
     convertToJson(origin, j);
+    j.flush();
+  }
+
+  /**
+   * 以 UTF-8 编码写到字节流，写完后刷新字节流，但不关闭
+   */
+  public final void convertToJson(T origin, OutputStream out) throws IOException {
+    JsonUtf8Writer j = new JsonUtf8Writer(out);
+    convertToJson(origin, j);
+    j.flush();
   }
 
   public final String convertToJson(T origin, StringWriter s) throws IOException {
     JsonStringWriter j = new JsonStringWriter(s);
     convertToJson(origin, j);
+    j.flush();
     return s.toString();
   }
 
+  /**
+   * 转换成 Json 字符串
+   * 使用 {@link JsonWriterPool} 中复用的 JsonStringWriter 和缓冲区，除结果之外不再创建对象
+   */
   public final String convertToJson(T origin) {
-    StringWriter s = new StringWriter();
-    JsonStringWriter j = new JsonStringWriter(s);
+    JsonWriterPool pool = JsonWriterPool.acquire();
     try {
-      convertToJson(origin, j);
+      convertToJson(origin, pool.charWriter());
+      return pool.charsToString();
     } catch (IOException e) {
-      throw new JsonIOException();
+      throw new JsonIOException(e);
+    } finally {
+      pool.release();
     }
-    return s.toString();
   }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.io.lexical.JsonLexical;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 在 UTF-8 字节中找出顶级数组的各个元素的边界，不解析元素本身
+ * <p>
+ * 只跟踪字符串（包括其中的转义）和括号的嵌套深度，顶级数组本身的状态以 {@link JsonLexical} 表示。
+ * 输入可以分成多个窗口依次扫描，位置以在整个输入中的偏移表示。
+ * 元素内部的格式错误（如括号类型不匹配）留给之后解析元素时发现
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+final class ArrayElementScanner {
+
+  /**
+   * 接收找到的元素
+   */
+  interface Listener {
+
+    /**
+     * @param start 元素的第一个字节的偏移
+     * @param end   元素之后的逗号或右方括号的偏移，元素与其之间可能有空白字符
+     */
+    void element(long start, long end);
+  }
+
+  private final Listener listener;
+  /**
+   * 是否扫描完整的文档，否则只扫描一段元素，输入中没有方括号
+   */
+  private final boolean document;
+  private JsonLexical scope;
+  /**
+   * 在当前元素中的嵌套深度，0 表示直接位于顶级数组中
+   */
+  private int depth;
+  private boolean inString;
+  private boolean escaped;
+  /**
+   * 当前元素的开始位置，-1 表示还未遇到元素
+   */
+  private long elementStart = -1;
+  private boolean afterComma;
+
+  private ArrayElementScanner(Listener listener, boolean document) {
+    this.listener = listener;
+    this.document = document;
+    this.scope = document ? JsonLexical.DOCUMENT_WITHOUT_ANY_ELEMENTS : JsonLexical.ARRAY_WITHOUT_ELEMENT;
+  }
+
+  /**
+   * 扫描完整的文档，顶级元素必须是数组
+   */
+  static ArrayElementScanner document(Listener listener) {
+    return new ArrayElementScanner(listener, true);
+  }
+
+  /**
+   * 扫描以逗号分隔的若干个元素（数组中的一段，不含方括号）
+   */
+  static ArrayElementScanner elements(Listener listener) {
+    return new ArrayElementScanner(listener, false);
+  }
+
+  /**
+   * 扫描窗口中 [from, to) 范围内的字节
+   *
+   * @param base 窗口中的位置 0 在整个输入中的偏移
+   */
+  void scan(ByteBuffer window, int from, int to, long base) {
+    for (int i = from; i < to; i++) {
+      byte b = window.get(i);
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (b == '\\') {
+          escaped = true;
+        } else if (b == '"') {
+          inString = false;
+        }
+        continue;
+      }
+      if (depth > 0) {
+        if (b == '"') {
+          inString = true;
+        } else if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          depth--;
+        }
+        continue;
+      }
+      if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        continue;
+      }
+      topLevel(b, base + i);
+    }
+  }
+
+  private void topLevel(byte b, long p) {
+    switch (scope) {
+      case DOCUMENT_WITHOUT_ANY_ELEMENTS:
+        if (b != '[') {
+          throw error("顶级元素不是数组", p);
+        }
+        scope = JsonLexical.ARRAY_WITHOUT_ELEMENT;
+        return;
+      case DOCUMENT_ENDED:
+        throw error("存在多个顶级元素", p);
+      default:
+        break;
+    }
+    if (b == ',') {
+      if (elementStart < 0) {
+        throw error("数组中缺少元素", p);
+      }
+      endElement(p);
+      afterComma = true;
+    } else if (b == ']') {
+      if (elementStart >= 0) {
+        endElement(p);
+      } else if (afterComma) {
+        throw error("数组中缺少元素", p);
+      }
+      scope = JsonLexical.DOCUMENT_ENDED;
+    } else if (b == '}') {
+      throw error("括号不匹配", p);
+    } else {
+      if (elementStart < 0) {
+        elementStart = p;
+        afterComma = false;
+        scope = JsonLexical.ARRAY_WITH_ELEMENTS;
+      }
+      if (b == '"') {
+        inString = true;
+      } else if (b == '{' || b == '[') {
+        depth++;
+      }
+    }
+  }
+
+  private void endElement(long end) {
+    listener.element(elementStart, end);
+    elementStart = -1;
+  }
+
+  /**
+   * 输入结束
+   *
+   * @param end 输入的结束位置
+   */
+  void finish(long end) {
+    if (scope == JsonLexical.DOCUMENT_ENDED) {
+      return;
+    }
+    if (scope == JsonLexical.DOCUMENT_WITHOUT_ANY_ELEMENTS) {
+      throw error("没有任何元素", end);
+    }
+    if (inString || depth > 0) {
+      throw error("元素未结束", end);
+    }
+    if (document) {
+      throw error("数组未结束", end);
+    }
+    if (elementStart >= 0) {
+      endElement(end);
+    } else if (afterComma) {
+      throw error("数组中缺少元素", end);
+    }
+  }
+
+  private static JsonUnknownFormatException error(String message, long offset) {
+    return new JsonUnknownFormatException(message + "，位于第 " + offset + " 个字节");
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonException;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.PreEncodedName;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 类的绑定计划
+ * <p>
+ * 对一个类的所有需要序列化的域进行一次性解析（名称、是否跳过、读取方式），解析结果不可变，
+ * 由 {@link EasyJson} 按类缓存。序列化时只需按顺序遍历已绑定的域，不再查找注解，
+ * 基本数据类型的域通过类型精确的方法句柄读取，不经过 {@link Field#get} 的装箱
+ *
+ * @author JamesZBL
+ * @date 2018-02-07
+ */
+public final class BindingPlan {
+
+  private final Class<?> raw;
+
+  private final BoundField[] fields;
+
+  private BindingPlan(Class<?> raw, BoundField[] fields) {
+    this.raw = raw;
+    this.fields = fields;
+  }
+
+  /**
+   * 解析指定类（包括其父类）中所有需要序列化的域，生成绑定计划
+   *
+   * @param context 用于获取非基本数据类型的域的适配器
+   * @param raw     被解析的类
+   */
+  public static BindingPlan create(EasyJson context, Class<?> raw) {
+    StatusCheck.checkIfNull(context);
+    StatusCheck.checkIfNull(raw);
+    List<BoundField> bound = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    // 父类的域排在前面
+    List<Class<?>> hierarchy = new ArrayList<>();
+    for (Class<?> c = raw; null != c && c != Object.class; c = c.getSuperclass()) {
+      hierarchy.add(0, c);
+    }
+    for (Class<?> c : hierarchy) {
+      for (Field f : c.getDeclaredFields()) {
+        FieldItem item = new FieldItem(f);
+        if (item.isSkipped()) {
+          continue;
+        }
+        if (!names.add(item.getSerializedName())) {
+          throw new IllegalArgumentException("存在重复的域名称：" + item.getSerializedName() + "（" + raw.getName() + "）");
+        }
+        bound.add(bind(context, item));
+      }
+    }
+    return new BindingPlan(raw, bound.toArray(new BoundField[bound.size()]));
+  }
+
+  public Class<?> getRaw() {
+    return raw;
+  }
+
+  /**
+   * 需要序列化的域的数量
+   */
+  public int size() {
+    return fields.length;
+  }
+
+  /**
+   * 获取第 i 个需要序列化的域序列化之后的名称
+   */
+  public String getName(int i) {
+    return fields[i].name;
+  }
+
+  /**
+   * 获取第 i 个需要序列化的域预先编码好的名称
+   */
+  public PreEncodedName getEncodedName(int i) {
+    return fields[i].encodedName;
+  }
+
+  /**
+   * 获取第 i 个需要序列化的域的读取类型
+   * 即读取句柄的返回类型：byte、short 按 int 读取，非基本数据类型均为 Object
+   */
+  public Class<?> getReadType(int i) {
+    return fields[i].type;
+  }
+
+  /**
+   * 获取第 i 个需要序列化的域的读取句柄
+   * 基本数据类型的域，句柄类型为 (Object)对应的基本数据类型，其余为 (Object)Object
+   */
+  public MethodHandle getGetter(int i) {
+    return fields[i].getter;
+  }
+
+  /**
+   * 写出第 i 个需要序列化的域（包括名称）
+   *
+   * @param o 被转换的对象，不能为 null
+   * @param w JsonStringWriter
+   */
+  public void writeField(int i, Object o, JsonStringWriter w) throws IOException {
+    BoundField f = fields[i];
+    w.name(f.encodedName);
+    try {
+      f.write(o, w);
+    } catch (IOException | RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new JsonException("读取域失败：" + f.name, t);
+    }
+  }
+
+  /**
+   * 按顺序写出对象的所有域（不包括对象两侧的花括号）
+   *
+   * @param o 被转换的对象，不能为 null
+   * @param w JsonStringWriter
+   */
+  public void write(Object o, JsonStringWriter w) throws IOException {
+    for (BoundField f : fields) {
+      w.name(f.encodedName);
+      try {
+        f.write(o, w);
+      } catch (IOException | RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new JsonException("读取域失败：" + f.name, t);
+      }
+    }
+  }
+
+  /**
+   * 根据域的类型选择对应的绑定方式
+   */
+  private static BoundField bind(EasyJson context, FieldItem item) {
+    String name = item.getSerializedName();
+    MethodHandle getter = item.getGetter();
+    Class<?> type = item.getFieldTypeClass();
+    if (type == int.class || type == short.class || type == byte.class) {
+      return new IntField(name, getter.asType(MethodType.methodType(int.class, Object.class)));
+    } else if (type == long.class) {
+      return new LongField(name, getter.asType(MethodType.methodType(long.class, Object.class)));
+    } else if (type == double.class) {
+      return new DoubleField(name, getter.asType(MethodType.methodType(double.class, Object.class)));
+    } else if (type == float.class) {
+      return new FloatField(name, getter.asType(MethodType.methodType(float.class, Object.class)));
+    } else if (type == boolean.class) {
+      return new BooleanField(name, getter.asType(MethodType.methodType(boolean.class, Object.class)));
+    } else if (type == char.class) {
+      return new CharField(name, getter.asType(MethodType.methodType(char.class, Object.class)));
+    }
+    return new ObjectField(context, name, getter.asType(MethodType.methodType(Object.class, Object.class)), item.getFieldType());
+  }
+
+  /**
+   * 已绑定的域
+   */
+  private abstract static class BoundField {
+
+    final String name;
+    /**
+     * 转义后的名称，写出时整段复制
+     */
+    final PreEncodedName encodedName;
+    /**
+     * 已适配成 (Object)基本数据类型 或 (Object)Object 的读取句柄
+     */
+    final MethodHandle getter;
+    /**
+     * 读取句柄的返回类型
+     */
+    final Class<?> type;
+
+    BoundField(String name, MethodHandle getter) {
+      this.name = name;
+      this.encodedName = PreEncodedName.of(name);
+      this.getter = getter;
+      this.type = getter.type().returnType();
+    }
+
+    /**
+     * 读取域的值并写出（名称已写出）
+     */
+    abstract void write(Object o, JsonStringWriter w) throws Throwable;
+  }
+
+  private static final class IntField extends BoundField {
+
+    IntField(String name, MethodHandle getter) {
+      super(name, getter);
+    }
+
+    @Override
+    void write(Object o, JsonStringWriter w) throws Throwable {
+      w.value((int) getter.invokeExact(o));
+    }
+  }
+
+  private static final class LongField extends BoundField {
+
+    LongField(String name, MethodHandle getter) {
+      super(name, getter);
+    }
+
+    @Override
+    void write(Object o, JsonStringWriter w) throws Throwable {
+      w.value((long) getter.invokeExact(o));
+    }
+  }
+
+  private static final class DoubleField extends BoundField {
+
+    DoubleField(String name, MethodHandle getter) {
+      super(name, getter);
+    }
+
+    @Override
+    void write(Object o, JsonStringWriter w) throws Throwable {
+      w.value((double) getter.invokeExact(o));
+    }
+  }
+
+  private static final class FloatField extends BoundField {
+
+    FloatField(String name, MethodHandle getter) {
+      super(name, getter);
+    }
+
+    @Override
+    void write(Object o, JsonStringWriter w) throws Throwable {
+      w.value((float) getter.invokeExact(o));
+    }
+  }
+
+  private static final class BooleanField extends BoundField {
+
+    BooleanField(String name, MethodHandle getter) {
+      super(name, getter);
+    }
+
+    @Override
+    void write(Object o, JsonStringWriter w) throws Throwable {
+      w.value((boolean) getter.invokeExact(o));
+    }
+  }
+
+  private static final class CharField extends BoundField {
+
+    CharField(String name, MethodHandle getter) {
+      super(name, getter);
+    }
+
+    @Override
+    void write(Object o, JsonStringWriter w) throws Throwable {
+      w.value((char) getter.invokeExact(o));
+    }
+  }
+
+  /**
+   * 非基本数据类型的域，交给对应类型的适配器写出
+   */
+  private static final class ObjectField extends BoundField {
+
+    private final EasyJson context;
+    /**
+     * 域的声明类型（包含类型变量）
+     */
+    private final Type genericType;
+    /**
+     * 声明类型的适配器，仅当声明类型不可能有子类时使用，首次写出时获取
+     */
+    private AbstractJsonTypeAdapter<Object> adapter;
+    /**
+     * 声明类型是否足以确定运行时类型
+     */
+    private final boolean exact;
+
+    ObjectField(EasyJson context, String name, MethodHandle getter, Type genericType) {
+      super(name, getter);
+      this.context = context;
+      this.genericType = genericType;
+      Class<?> raw = JsonType.get(genericType).getRaw();
+      this.exact = Modifier.isFinal(raw.getModifiers()) || raw.isArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void write(Object o, JsonStringWriter w) throws Throwable {
+      Object value = getter.invokeExact(o);
+      if (null == value) {
+        w.nullValue();
+        return;
+      }
+      if (exact) {
+        AbstractJsonTypeAdapter<Object> a = adapter;
+        if (null == a) {
+          a = adapter = (AbstractJsonTypeAdapter<Object>) context.getAdapter(JsonType.get(genericType));
+        }
+        a.convertToJson(value, w);
+      } else {
+        context.toJson(value, w);
+      }
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+/**
+ * {@link JsonObject} 和 {@link JsonArray} 写时复制的状态
+ * <p>
+ * 状态以一个 long[] 表示：
+ * <ul>
+ * <li>null：没有被克隆过，所有子元素都只属于该对象</li>
+ * <li>{@link #SHARED}：保存子元素的数组与另一个对象共用，修改前需先复制</li>
+ * <li>其它：数组已经复制过，但子元素仍可能被另一棵树引用，
+ * 置位的下标对应已经复制过、只属于该对象的子元素</li>
+ * <li>{@link #FROZEN}：已冻结，数组和子元素都不再修改，子元素可以直接交给调用方</li>
+ * </ul>
+ * 取出被共用的子数组或子对象时先将其克隆（同样只是共用数组），再放回原来的位置，
+ * 因此修改只会复制从根到被修改处的路径
+ * <p>
+ * 克隆之前已经交给调用方的子数组或子对象（取出过的，或由调用方放入的）仍属于原来的对象，
+ * 调用方之后对它的修改不能出现在克隆得到的对象中，因此克隆时只为新的对象复制这些子元素，见
+ * {@link #markHandedOut(long[], int, int, JsonItem)}
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+final class CopyOnWrite {
+
+  static final long[] SHARED = new long[0];
+  static final long[] FROZEN = new long[0];
+
+  private CopyOnWrite() {
+  }
+
+  /**
+   * 数组复制之后的状态，没有只属于自己的子元素
+   */
+  static long[] owned(int capacity) {
+    return new long[(capacity + 63) >>> 6];
+  }
+
+  /**
+   * 交给调用方之前是否需要先克隆该位置的子元素，冻结的子元素不会被修改，总是共用
+   */
+  static boolean needsCopy(long[] cow, int i, JsonItem item) {
+    return null != cow && cow != FROZEN && isContainer(item) && !item.isFrozen() && !isPrivate(cow, i);
+  }
+
+  static void checkNotFrozen(long[] cow) {
+    if (cow == FROZEN) {
+      throw new UnsupportedOperationException("已冻结，不能修改");
+    }
+  }
+
+  /**
+   * 该位置的子元素是否可以直接交给调用方修改
+   */
+  static boolean isPrivate(long[] cow, int i) {
+    int word = i >>> 6;
+    return word < cow.length && (cow[word] & (1L << i)) != 0;
+  }
+
+  static long[] markPrivate(long[] cow, int i) {
+    int word = i >>> 6;
+    if (word >= cow.length) {
+      long[] grown = new long[Math.max(word + 1, cow.length * 2)];
+      System.arraycopy(cow, 0, grown, 0, cow.length);
+      cow = grown;
+    }
+    cow[word] |= 1L << i;
+    return cow;
+  }
+
+  /**
+   * 克隆时逐个检查子元素，交给过调用方且未冻结的在 marks 中置位
+   *
+   * @param marks 之前的结果，为 null 时按需创建
+   * @param size  子元素个数
+   *
+   * @return 置位的下标对应需要为新的对象复制的子元素，没有时为 null
+   */
+  static long[] markHandedOut(long[] marks, int i, int size, JsonItem item) {
+    if (!item.isHandedOut()) {
+      return marks;
+    }
+    return markPrivate(null == marks ? owned(size) : marks, i);
+  }
+
+  /**
+   * 移除位置 i 上的子元素后，其后的标记依次前移
+   *
+   * @param size 移除之前的子元素个数
+   */
+  static void remove(long[] cow, int i, int size) {
+    for (int j = i; j < size - 1; j++) {
+      if (isPrivate(cow, j + 1)) {
+        cow[j >>> 6] |= 1L << j;
+      } else if (isPrivate(cow, j)) {
+        cow[j >>> 6] &= ~(1L << j);
+      }
+    }
+    int last = size - 1;
+    if (isPrivate(cow, last)) {
+      cow[last >>> 6] &= ~(1L << last);
+    }
+  }
+
+  /**
+   * 数组和对象需要写时复制，基本数据类型和 null 本身不可变或原本就共用
+   */
+  static boolean isContainer(JsonItem item) {
+    return item instanceof JsonObject || item instanceof JsonArray || item instanceof LazyJsonObject;
+  }
+}
@@ -16,13 +16,328 @@
  */
 package me.zbl.easyjson;
 
+import me.zbl.easyjson.exceptions.JsonIOException;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+import me.zbl.easyjson.io.NonFiniteNumberPolicy;
+import me.zbl.easyjson.io.ParallelArrayWriter;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * 供外部调用的实现 Json 转换功能的主要类
+ * <p>
+ * 通过 {@link EasyJsonBuilder} 创建后不可变，可以在多个线程之间共享。
+ * 每种类型的适配器只由工厂创建一次，之后从缓存中获取，只需一次 Map 查找
  *
  * @author JamesZBL
  * @date 2018-02-06
  */
 public final class EasyJson {
 
+  /**
+   * 按顺序查找适配器的工厂，排在前面的优先
+   */
+  private final List<JsonTypeAdapterFactory> factories;
+  /**
+   * 已创建的适配器
+   */
+  private final ConcurrentMap<JsonType<?>, AbstractJsonTypeAdapter<?>> adapters = new ConcurrentHashMap<>();
+  /**
+   * 按类缓存的适配器，按运行时类型转换每个元素、每个域时不必再创建 JsonType
+   */
+  private final ConcurrentMap<Class<?>, AbstractJsonTypeAdapter<?>> classAdapters = new ConcurrentHashMap<>();
+  /**
+   * 当前线程中正在创建的适配器，用于处理递归的类型（如链表节点中引用了自身类型的域）
+   */
+  private final ThreadLocal<Map<JsonType<?>, FutureTypeAdapter<?>>> creating = new ThreadLocal<>();
+  /**
+   * 每个类的绑定计划，首次使用时创建
+   */
+  private final ConcurrentMap<Class<?>, BindingPlan> bindingPlans = new ConcurrentHashMap<>();
+  /**
+   * 输出时是否转义 HTML 中的特殊字符
+   */
+  private final boolean htmlSafe;
+  /**
+   * 输出时是否将所有非 ASCII 字符转义
+   */
+  private final boolean asciiOnly;
+  /**
+   * 输出 NaN、Infinity 时的处理方式
+   */
+  private final NonFiniteNumberPolicy nonFiniteNumberPolicy;
+  /**
+   * 转换时是否跳过写顺序的检查，由 {@link #newJsonWriter} 创建的不受影响
+   */
+  private final boolean trustedWriters;
+  /**
+   * 写到字符流或字节流时的缓冲区大小，为 0 时使用默认的大小
+   */
+  private final int writeBufferSize;
+  /**
+   * 写出数组、集合以及 {@link JsonArray} 的方式
+   */
+  private final ParallelArrayWriter arrayWriter;
+
+  /**
+   * 使用默认配置
+   */
+  public EasyJson() {
+    this(new EasyJsonBuilder());
+  }
+
+  EasyJson(EasyJsonBuilder builder) {
+    this.factories = Collections.unmodifiableList(new ArrayList<>(builder.factories()));
+    this.htmlSafe = builder.htmlSafe;
+    this.asciiOnly = builder.asciiOnly;
+    this.nonFiniteNumberPolicy = builder.nonFiniteNumberPolicy;
+    this.trustedWriters = builder.trustedWriters;
+    this.writeBufferSize = builder.writeBufferSize;
+    this.arrayWriter = builder.arrayWriter;
+  }
+
+  /**
+   * 获取按顺序查找适配器的工厂
+   */
+  public List<JsonTypeAdapterFactory> getFactories() {
+    return factories;
+  }
+
+  /**
+   * 获取写出数组、集合以及 {@link JsonArray} 的方式，未开启并行写出时为 {@link ParallelArrayWriter#SEQUENTIAL}
+   */
+  public ParallelArrayWriter getArrayWriter() {
+    return arrayWriter;
+  }
+
+  /**
+   * 获取指定类型的适配器
+   *
+   * @throws IllegalArgumentException 没有能够转换该类型的适配器
+   */
+  @SuppressWarnings("unchecked")
+  public <T> AbstractJsonTypeAdapter<T> getAdapter(JsonType<T> type) {
+    StatusCheck.checkIfNull(type);
+    AbstractJsonTypeAdapter<?> cached = adapters.get(type);
+    if (null != cached) {
+      return (AbstractJsonTypeAdapter<T>) cached;
+    }
+    Map<JsonType<?>, FutureTypeAdapter<?>> ongoing = creating.get();
+    boolean outermost = false;
+    if (null == ongoing) {
+      ongoing = new HashMap<>();
+      creating.set(ongoing);
+      outermost = true;
+    }
+    // 同一线程中正在创建该类型的适配器，说明类型存在递归，先返回一个占位的适配器
+    FutureTypeAdapter<T> future = (FutureTypeAdapter<T>) ongoing.get(type);
+    if (null != future) {
+      return future;
+    }
+    try {
+      future = new FutureTypeAdapter<>();
+      ongoing.put(type, future);
+      for (JsonTypeAdapterFactory factory : factories) {
+        AbstractJsonTypeAdapter<T> adapter = factory.createAdapter(this, type);
+        if (null != adapter) {
+          future.setDelegate(adapter);
+          AbstractJsonTypeAdapter<?> existing = adapters.putIfAbsent(type, adapter);
+          return null != existing ? (AbstractJsonTypeAdapter<T>) existing : adapter;
+        }
+      }
+      throw new IllegalArgumentException("无法转换的类型：" + type);
+    } finally {
+      ongoing.remove(type);
+      if (outermost) {
+        creating.remove();
+      }
+    }
+  }
+
+  /**
+   * 获取指定类的适配器，与 {@code getAdapter(JsonType.get(raw))} 相同，但按类缓存
+   *
+   * @throws IllegalArgumentException 没有能够转换该类型的适配器
+   */
+  @SuppressWarnings("unchecked")
+  public <T> AbstractJsonTypeAdapter<T> getAdapter(Class<T> raw) {
+    StatusCheck.checkIfNull(raw);
+    AbstractJsonTypeAdapter<?> cached = classAdapters.get(raw);
+    if (null != cached) {
+      return (AbstractJsonTypeAdapter<T>) cached;
+    }
+    AbstractJsonTypeAdapter<T> adapter = getAdapter(JsonType.get(raw));
+    // 递归的类型在创建完成之前得到的是占位的适配器，不缓存
+    if (!(adapter instanceof FutureTypeAdapter)) {
+      classAdapters.putIfAbsent(raw, adapter);
+    }
+    return adapter;
+  }
+
+  /**
+   * 获取指定类的绑定计划，每个类只解析一次
+   */
+  public BindingPlan getBindingPlan(Class<?> raw) {
+    BindingPlan plan = bindingPlans.get(raw);
+    if (null == plan) {
+      plan = BindingPlan.create(this, raw);
+      BindingPlan existing = bindingPlans.putIfAbsent(raw, plan);
+      if (null != existing) {
+        plan = existing;
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * 转换成 Json
+   *
+   * @param o 被转换的对象
+   */
+  public String toJson(Object o) {
+    JsonWriterPool pool = JsonWriterPool.acquire();
+    try {
+      toJson(o, internal(pool.charWriter()));
+      return pool.charsToString();
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    } finally {
+      pool.release();
+    }
+  }
+
+  /**
+   * 转换成 Json 并写到指定的字符流
+   * 写完后刷新字符流，但不关闭
+   *
+   * @param o 被转换的对象
+   * @param w 字符流
+   */
+  public void toJson(Object o, Writer w) throws IOException {
+    JsonStringWriter j = internal(newCharWriter(w));
+    toJson(o, j);
+    j.flush();
+  }
+
+  /**
+   * 转换成 UTF-8 编码的 Json
+   *
+   * @param o 被转换的对象
+   */
+  public byte[] toJsonBytes(Object o) {
+    JsonWriterPool pool = JsonWriterPool.acquire();
+    try {
+      JsonUtf8Writer j = internal(pool.byteWriter());
+      toJson(o, j);
+      return j.toByteArray();
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    } finally {
+      pool.release();
+    }
+  }
+
+  /**
+   * 转换成 UTF-8 编码的 Json 并写到指定的字节流
+   * 写完后刷新字节流，但不关闭
+   *
+   * @param o   被转换的对象
+   * @param out 字节流
+   */
+  public void toJson(Object o, OutputStream out) throws IOException {
+    JsonUtf8Writer j = internal(newByteWriter(out));
+    toJson(o, j);
+    j.flush();
+  }
+
+  /**
+   * 创建一个按当前配置输出的 JsonStringWriter
+   * 写完后需调用 flush() 或 close()，缓冲区中的内容才会写到字符流
+   *
+   * @param w 字符流
+   */
+  public JsonStringWriter newJsonWriter(Writer w) {
+    return configure(newCharWriter(w));
+  }
+
+  /**
+   * 创建一个按当前配置输出的 UTF-8 JsonUtf8Writer
+   * 写完后需调用 flush() 或 close()，缓冲区中的内容才会写到字节流
+   *
+   * @param out 字节流
+   */
+  public JsonUtf8Writer newJsonWriter(OutputStream out) {
+    return configure(newByteWriter(out));
+  }
+
+  private JsonStringWriter newCharWriter(Writer w) {
+    return 0 == writeBufferSize ? new JsonStringWriter(w) : new JsonStringWriter(w, writeBufferSize);
+  }
+
+  private JsonUtf8Writer newByteWriter(OutputStream out) {
+    return 0 == writeBufferSize ? new JsonUtf8Writer(out) : new JsonUtf8Writer(out, writeBufferSize);
+  }
+
+  private <W extends JsonStringWriter> W configure(W w) {
+    w.setHtmlSafe(htmlSafe);
+    w.setAsciiOnly(asciiOnly);
+    w.setNonFiniteNumberPolicy(nonFiniteNumberPolicy);
+    return w;
+  }
+
+  /**
+   * 配置只由适配器写出内容的 JsonStringWriter
+   */
+  private <W extends JsonStringWriter> W internal(W w) {
+    configure(w).setTrusted(trustedWriters);
+    return w;
+  }
+
+  /**
+   * 按对象的运行时类型选择适配器，将对象写到 JsonStringWriter
+   *
+   * @param o 被转换的对象
+   * @param w JsonStringWriter
+   */
+  @SuppressWarnings("unchecked")
+  public void toJson(Object o, JsonStringWriter w) throws IOException {
+    if (null == o) {
+      w.nullValue();
+      return;
+    }
+    AbstractJsonTypeAdapter<Object> adapter = (AbstractJsonTypeAdapter<Object>) getAdapter(o.getClass());
+    adapter.convertToJson(o, w);
+  }
+
+  /**
+   * 占位的适配器，在真正的适配器创建完成之后将调用委托给它
+   */
+  private static final class FutureTypeAdapter<T> extends AbstractJsonTypeAdapter<T> {
+
+    private volatile AbstractJsonTypeAdapter<T> delegate;
+
+    void setDelegate(AbstractJsonTypeAdapter<T> delegate) {
+      this.delegate = delegate;
+    }
 
+    @Override
+    public void convertToJson(T o, JsonStringWriter w) throws IOException {
+      AbstractJsonTypeAdapter<T> d = delegate;
+      if (null == d) {
+        throw new IllegalStateException("适配器尚未创建完成！");
+      }
+      d.convertToJson(o, w);
+    }
+  }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.io.NonFiniteNumberPolicy;
+import me.zbl.easyjson.io.ParallelArrayWriter;
+import me.zbl.easyjson.type.ReflectiveTypeAdapterFactory;
+import me.zbl.easyjson.type.TypeAdapterRepository;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link EasyJson} 的构建器
+ * <p>
+ * 适配器工厂的查找顺序为：注册的工厂、常见类型、通过 {@link ServiceLoader} 加载的工厂（编译期生成）、反射
+ *
+ * @author JamesZBL
+ * @date 2018-02-10
+ */
+public final class EasyJsonBuilder {
+
+  private final List<JsonTypeAdapterFactory> registered = new ArrayList<>();
+  private boolean generateAdapters;
+  private boolean loadServices = true;
+  boolean htmlSafe;
+  boolean asciiOnly;
+  boolean trustedWriters;
+  /**
+   * 为 0 时使用 JsonStringWriter、JsonUtf8Writer 各自默认的大小
+   */
+  int writeBufferSize;
+  NonFiniteNumberPolicy nonFiniteNumberPolicy = NonFiniteNumberPolicy.REJECT;
+  ParallelArrayWriter arrayWriter = ParallelArrayWriter.SEQUENTIAL;
+
+  /**
+   * 注册自定义的适配器工厂，先注册的优先
+   */
+  public EasyJsonBuilder registerFactory(JsonTypeAdapterFactory factory) {
+    StatusCheck.checkIfNull(factory);
+    registered.add(factory);
+    return this;
+  }
+
+  /**
+   * 为普通的 Java 对象在运行时生成专用的适配器类，而不是按绑定计划遍历域
+   */
+  public EasyJsonBuilder generateAdapters() {
+    this.generateAdapters = true;
+    return this;
+  }
+
+  /**
+   * 不通过 {@link ServiceLoader} 加载编译期生成的适配器工厂
+   */
+  public EasyJsonBuilder disableServiceLoading() {
+    this.loadServices = false;
+    return this;
+  }
+
+  /**
+   * 输出时转义 HTML 中的特殊字符（&lt; &gt; &amp; = '），使输出可以直接嵌入 HTML
+   */
+  public EasyJsonBuilder htmlSafe() {
+    this.htmlSafe = true;
+    return this;
+  }
+
+  /**
+   * 输出时将所有非 ASCII 字符转义为 \\uXXXX
+   */
+  public EasyJsonBuilder asciiOnly() {
+    this.asciiOnly = true;
+    return this;
+  }
+
+  /**
+   * 由 {@link EasyJson} 转换时跳过 JsonStringWriter 的写顺序检查，见 {@link me.zbl.easyjson.io.JsonStringWriter#setTrusted(boolean)}
+   * 只有所有适配器（包括注册的自定义适配器）的输出在结构上都正确时才能开启，
+   * 内置的适配器和编译期、运行时生成的适配器满足这一要求
+   */
+  public EasyJsonBuilder trustedWriters() {
+    this.trustedWriters = true;
+    return this;
+  }
+
+  /**
+   * 设置写到字符流或字节流时使用的缓冲区大小（字符流为字符数，字节流为字节数），至少为 16
+   * 缓冲区写满时才写到流中，默认字符流为 1024 个字符，字节流为 8192 个字节
+   */
+  public EasyJsonBuilder writeBufferSize(int size) {
+    StatusCheck.checkIfLegal(size >= 16);
+    this.writeBufferSize = size;
+    return this;
+  }
+
+  /**
+   * 元素很多的数组、集合以及 {@link JsonArray} 在 {@link ForkJoinPool#commonPool()} 中分块并行写出，
+   * 阈值和块大小为 {@link ParallelArrayWriter} 的默认值
+   */
+  public EasyJsonBuilder parallelSerialization() {
+    return parallelSerialization(ForkJoinPool.commonPool(), ParallelArrayWriter.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * 元素数量不少于 threshold 的数组、集合以及 {@link JsonArray} 在指定的线程池中分块并行写出，
+   * 输出与按顺序写出完全相同。并行写出时各元素的适配器会在多个线程中同时调用
+   */
+  public EasyJsonBuilder parallelSerialization(ForkJoinPool pool, int threshold) {
+    this.arrayWriter = new ParallelArrayWriter(pool, threshold, Math.min(threshold, ParallelArrayWriter.DEFAULT_CHUNK_SIZE));
+    return this;
+  }
+
+  /**
+   * 设置输出 NaN、Infinity 时的处理方式，默认抛出 {@link IllegalArgumentException}
+   */
+  public EasyJsonBuilder nonFiniteNumbers(NonFiniteNumberPolicy policy) {
+    StatusCheck.checkIfNull(policy);
+    this.nonFiniteNumberPolicy = policy;
+    return this;
+  }
+
+  public EasyJson build() {
+    return new EasyJson(this);
+  }
+
+  List<JsonTypeAdapterFactory> factories() {
+    List<JsonTypeAdapterFactory> f = new ArrayList<>(registered);
+    f.add(TypeAdapterRepository.STRING_FACTORY);
+    f.add(TypeAdapterRepository.NUMBER_FACTORY);
+    f.add(TypeAdapterRepository.BOOLEAN_FACTORY);
+    f.add(TypeAdapterRepository.CHARACTER_FACTORY);
+    f.add(TypeAdapterRepository.ENUM_FACTORY);
+    f.add(TypeAdapterRepository.ARRAY_FACTORY);
+    f.add(TypeAdapterRepository.COLLECTION_FACTORY);
+    f.add(TypeAdapterRepository.MAP_FACTORY);
+    f.add(TypeAdapterRepository.JSON_ITEM_FACTORY);
+    if (loadServices) {
+      // 编译期生成的适配器优先于反射
+      for (JsonTypeAdapterFactory generated : ServiceLoader.load(JsonTypeAdapterFactory.class)) {
+        f.add(generated);
+      }
+    }
+    f.add(new ReflectiveTypeAdapterFactory(generateAdapters));
+    return f;
+  }
+}
@@ -16,9 +16,15 @@
  */
 package me.zbl.easyjson;
 
+import me.zbl.easyjson.annotations.EasyJsonProcess;
+import me.zbl.easyjson.annotations.JsonFieldName;
 import me.zbl.easyjson.validation.StatusCheck;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 
 /**
@@ -30,10 +36,34 @@ import java.lang.reflect.Type;
 public final class FieldItem {
 
   private final Field content;
+  /**
+   * 序列化之后的名称（已解析 {@link JsonFieldName}）
+   */
+  private final String serializedName;
+  /**
+   * 是否跳过该域（已解析 {@link EasyJsonProcess} 以及 static、transient 修饰符）
+   */
+  private final boolean skipped;
+  /**
+   * 读取域的方法句柄，类型为 (声明类)域类型
+   */
+  private MethodHandle getter;
+  /**
+   * 适配为 (Object)Object 的 {@link #getter}，供 {@link #getFieldObject(Object)} 以 invokeExact 调用
+   */
+  private MethodHandle objectGetter;
 
   public FieldItem(Field content) {
     StatusCheck.checkIfNull(content);
     this.content = content;
+    JsonFieldName fieldName = content.getAnnotation(JsonFieldName.class);
+    this.serializedName = null != fieldName ? fieldName.value() : content.getName();
+    EasyJsonProcess process = content.getAnnotation(EasyJsonProcess.class);
+    int modifiers = content.getModifiers();
+    this.skipped = (null != process && process.skip())
+            || Modifier.isStatic(modifiers)
+            || Modifier.isTransient(modifiers)
+            || content.isSynthetic();
   }
 
   /**
@@ -43,6 +73,44 @@ public final class FieldItem {
     return content.getName();
   }
 
+  /**
+   * 获取序列化之后的名称
+   * 若域被 {@link JsonFieldName} 注解，返回注解中指定的名称，否则返回域的名称
+   */
+  public String getSerializedName() {
+    return serializedName;
+  }
+
+  /**
+   * 判断序列化时是否跳过该域
+   */
+  public boolean isSkipped() {
+    return skipped;
+  }
+
+  /**
+   * 获取读取该域的方法句柄
+   * 句柄的原始类型为 (声明类)域类型，可通过 {@link MethodHandle#asType} 适配成所需的类型后调用
+   */
+  public MethodHandle getGetter() {
+    if (null == getter) {
+      try {
+        content.setAccessible(true);
+        getter = MethodHandles.lookup().unreflectGetter(content);
+      } catch (IllegalAccessException | RuntimeException e) {
+        throw new IllegalStateException("无法访问域：" + content, e);
+      }
+    }
+    return getter;
+  }
+
+  private MethodHandle objectGetter() {
+    if (null == objectGetter) {
+      objectGetter = getGetter().asType(MethodType.methodType(Object.class, Object.class));
+    }
+    return objectGetter;
+  }
+
   /**
    * 获取域的类型（不包含类型变量）
    * 如：
@@ -79,6 +147,12 @@ public final class FieldItem {
    * @throws IllegalArgumentException
    */
   public Object getFieldObject(Object obj) throws IllegalAccessException {
-    return content.get(obj);
+    try {
+      return (Object) objectGetter().invokeExact(obj);
+    } catch (RuntimeException | Error | IllegalAccessException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
   }
 }
@@ -19,27 +19,68 @@ package me.zbl.easyjson;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Json 数组类型
+ * <p>
+ * {@link #itemClone()} 只共用元素列表，除交给过调用方的元素外不复制，之后修改哪一部分才复制哪一部分，见 {@link CopyOnWrite}
+ * <p>
+ * {@link #freeze()} 之后不能再修改，哈希值只计算一次
  *
  * @author JamesZBL
  * @date 2018-01-31
  */
 public final class JsonArray extends JsonItem implements Iterable<JsonItem> {
 
-  private final List<JsonItem> content;
+  private List<JsonItem> content;
+  /**
+   * 写时复制的状态，见 {@link CopyOnWrite}
+   */
+  private long[] cow;
+  /**
+   * 冻结之后缓存的哈希值，0 表示还未计算
+   */
+  private int hash;
+  /**
+   * 是否交给过调用方，见 {@link CopyOnWrite#markHandedOut(long[], int, int, JsonItem)}
+   */
+  private boolean handedOut;
 
   public JsonArray() {
     content = new ArrayList<JsonItem>();
   }
 
+  /**
+   * 以给定的元素列表创建，不复制
+   */
+  private JsonArray(List<JsonItem> content) {
+    this.content = content;
+  }
+
+  /**
+   * 以已知的元素创建，容量与元素个数相同
+   *
+   * @param items 元素，前 size 个有效
+   */
+  JsonArray(JsonItem[] items, int size) {
+    content = new ArrayList<JsonItem>(size);
+    for (int i = 0; i < size; i++) {
+      content.add(items[i]);
+    }
+  }
+
   /**
    * 添加数据项
    */
   public void addItem(JsonItem item) {
+    beforeWrite();
+    if (null != cow) {
+      cow = CopyOnWrite.markPrivate(cow, content.size());
+    }
     if (null != item) {
       content.add(item);
+      item.handOut();
     } else {
       content.add(JsonNull.getINSTANCE());
     }
@@ -51,18 +92,50 @@ public final class JsonArray extends JsonItem implements Iterable<JsonItem> {
    * @param i 数据项所在位置
    */
   public void removeItem(int i) {
+    beforeWrite();
+    int size = content.size();
     content.remove(i);
+    if (null != cow) {
+      CopyOnWrite.remove(cow, i, size);
+    }
   }
 
   /**
    * 根据位置获取项
+   * 该数组由克隆得到（或被克隆过）时，取出的数组或对象是只属于该数组的副本，可以直接修改
    *
    * @param i 数据项所在位置
    */
   public JsonItem getItem(int i) {
+    JsonItem item = content.get(i);
+    if (CopyOnWrite.needsCopy(cow, i, item)) {
+      beforeWrite();
+      item = item.itemClone();
+      content.set(i, item);
+      cow = CopyOnWrite.markPrivate(cow, i);
+    }
+    item.handOut();
+    return item;
+  }
+
+  /**
+   * 根据位置获取项，不复制共用的子元素，只用于读取（如写出）
+   */
+  JsonItem itemAt(int i) {
     return content.get(i);
   }
 
+  /**
+   * 修改元素列表之前调用，列表与其它数组共用时先复制
+   */
+  private void beforeWrite() {
+    CopyOnWrite.checkNotFrozen(cow);
+    if (cow == CopyOnWrite.SHARED) {
+      content = new ArrayList<JsonItem>(content);
+      cow = CopyOnWrite.owned(content.size());
+    }
+  }
+
   /**
    * 数组长度
    */
@@ -104,22 +177,98 @@ public final class JsonArray extends JsonItem implements Iterable<JsonItem> {
 
   private JsonItem newJsonItem(Object obj) {
     if (null != obj) {
-      return new JsonBasic(obj);
+      return JsonBasic.valueOf(obj);
     } else {
       return JsonNull.getINSTANCE();
     }
   }
 
+  /**
+   * 只共用元素列表，不复制其余的元素，两个数组之后各自的修改互不影响
+   * 交给过调用方的数组和对象元素仍属于该数组，新的数组中是它们的副本
+   * 冻结的数组克隆后得到的是可以修改的数组
+   */
   @Override
   public JsonItem itemClone() {
-    List<JsonItem> itemList = new ArrayList<JsonItem>();
-    itemList.addAll(content);
-    return null;
+    int size = content.size();
+    long[] handedOut = null;
+    if (cow != CopyOnWrite.FROZEN) {
+      for (int i = 0; i < size; i++) {
+        handedOut = CopyOnWrite.markHandedOut(handedOut, i, size, content.get(i));
+      }
+    }
+    if (null == handedOut) {
+      JsonArray newArray = new JsonArray(content);
+      newArray.cow = CopyOnWrite.SHARED;
+      if (cow != CopyOnWrite.FROZEN) {
+        cow = CopyOnWrite.SHARED;
+      }
+      return newArray;
+    }
+    List<JsonItem> copy = new ArrayList<JsonItem>(content);
+    for (int i = 0; i < size; i++) {
+      if (CopyOnWrite.isPrivate(handedOut, i)) {
+        copy.set(i, copy.get(i).itemClone());
+      }
+    }
+    JsonArray newArray = new JsonArray(copy);
+    newArray.cow = handedOut.clone();
+    if (cow != CopyOnWrite.SHARED) {
+      // 其余的元素从此与新的数组共用
+      cow = handedOut;
+    }
+    return newArray;
+  }
+
+  /**
+   * 冻结该数组及其所有元素
+   * 与克隆得到的数组共用的数组和对象元素先复制再冻结，另一个数组中的不受影响；
+   * 由调用方放入多个数组或对象中的同一个元素则一同冻结
+   */
+  @Override
+  public JsonItem freeze() {
+    if (cow == CopyOnWrite.FROZEN) {
+      return this;
+    }
+    beforeWrite();
+    for (int i = 0; i < content.size(); i++) {
+      JsonItem item = content.get(i);
+      content.set(i, CopyOnWrite.needsCopy(cow, i, item) ? item.itemClone().freeze() : item.freeze());
+    }
+    cow = CopyOnWrite.FROZEN;
+    return this;
   }
 
+  @Override
+  public boolean isFrozen() {
+    return cow == CopyOnWrite.FROZEN;
+  }
+
+  @Override
+  void handOut() {
+    if (cow != CopyOnWrite.FROZEN) {
+      handedOut = true;
+    }
+  }
+
+  @Override
+  boolean isHandedOut() {
+    return handedOut && cow != CopyOnWrite.FROZEN;
+  }
+
+  /**
+   * 与 List 相同，冻结之后只计算一次
+   */
   @Override
   public int hashCode() {
-    return content.hashCode();
+    int h = hash;
+    if (h == 0) {
+      h = content.hashCode();
+      if (cow == CopyOnWrite.FROZEN) {
+        hash = h;
+      }
+    }
+    return h;
   }
 
   @Override
@@ -128,7 +277,11 @@ public final class JsonArray extends JsonItem implements Iterable<JsonItem> {
       return true;
     } else {
       if (obj instanceof JsonArray) {
-        if (((JsonArray) obj).content.equals(content)) {
+        JsonArray origin = (JsonArray) obj;
+        if (isFrozen() && origin.isFrozen() && hashCode() != origin.hashCode()) {
+          return false;
+        }
+        if (origin.content.equals(content)) {
           return true;
         }
       }
@@ -136,8 +289,39 @@ public final class JsonArray extends JsonItem implements Iterable<JsonItem> {
     return false;
   }
 
+  /**
+   * 按位置逐个通过 {@link #getItem(int)} 取出元素
+   */
   @Override
   public Iterator<JsonItem> iterator() {
-    return content.iterator();
+    return new Iterator<JsonItem>() {
+
+      private int cursor;
+      private int last = -1;
+
+      @Override
+      public boolean hasNext() {
+        return cursor < content.size();
+      }
+
+      @Override
+      public JsonItem next() {
+        if (cursor >= content.size()) {
+          throw new NoSuchElementException();
+        }
+        last = cursor;
+        return getItem(cursor++);
+      }
+
+      @Override
+      public void remove() {
+        if (last < 0) {
+          throw new IllegalStateException();
+        }
+        removeItem(last);
+        cursor = last;
+        last = -1;
+      }
+    };
   }
 }
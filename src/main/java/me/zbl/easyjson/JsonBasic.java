@@ -17,19 +17,31 @@
 package me.zbl.easyjson;
 
 import me.zbl.easyjson.data.StringNumber;
+import me.zbl.easyjson.data.Utf8String;
+import me.zbl.easyjson.io.JsonStringWriter;
+
+import java.io.IOException;
 
 /**
  * Json 中的基本数据类型
  * <p>
  * 由于 Java 中基本数据类型的包装类型经过转换后的，其展现形式和基本数据类型是一样的，为方便
  * 处理，将基本数据类型及其包装类型统一视为 Json 中的基本数据类型
+ * <p>
+ * 通过 {@link #valueOf(long)}、{@link #valueOf(double)}、{@link #valueOf(boolean)} 创建的值
+ * 直接以基本数据类型保存，不再装箱，true、false 和较小的整数共用同一个对象，这些值不能修改。
+ * 以构造方法、{@link #valueOf(Object)} 以及 addProperty、addItem 创建的值与原来相同，可以修改
  *
  * @author JamesZBL
  * @date 2018-1-30
  */
-public final class JsonBasic extends JsonItem {
+public class JsonBasic extends JsonItem {
 
   private Object content;
+  /**
+   * 是否不可修改，只有包内的子类为 true
+   */
+  private final boolean frozen;
 
   private static final Class<?>[] BASIC_DATA_TYPES = {
           boolean.class,
@@ -53,31 +65,97 @@ public final class JsonBasic extends JsonItem {
           Character.class
   };
 
+  /**
+   * 以基本数据类型保存的子类使用，content 为 null
+   */
+  JsonBasic() {
+    this.frozen = true;
+  }
+
   public JsonBasic(Object origin) {
+    this.frozen = false;
     setContent(origin);
   }
 
   public JsonBasic(Number origin) {
+    this.frozen = false;
     setContent(origin);
   }
 
   public JsonBasic(Character origin) {
+    this.frozen = false;
     setContent(origin);
   }
 
   public JsonBasic(String origin) {
+    this.frozen = false;
     setContent(origin);
   }
 
   public JsonBasic(Boolean origin) {
+    this.frozen = false;
     setContent(origin);
   }
 
+  /**
+   * 以 long 保存的整数，不装箱
+   */
+  public static JsonBasic valueOf(long value) {
+    return JsonBasicLong.of(value);
+  }
+
+  /**
+   * 以 double 保存的数值，不装箱
+   */
+  public static JsonBasic valueOf(double value) {
+    return new JsonBasicDouble(value);
+  }
+
+  /**
+   * true 和 false 各自只有一个对象
+   */
+  public static JsonBasic valueOf(boolean value) {
+    return value ? JsonBasicBoolean.TRUE : JsonBasicBoolean.FALSE;
+  }
+
+  /**
+   * 单个字符作为字符串处理
+   */
+  public static JsonBasic valueOf(char value) {
+    return new JsonBasic(String.valueOf(value));
+  }
+
+  /**
+   * 同 {@link #JsonBasic(Object)}，创建的值可以修改
+   * 需要不装箱、不可修改的值时使用 {@link #valueOf(long)}、{@link #valueOf(double)}、{@link #valueOf(boolean)}
+   */
+  public static JsonBasic valueOf(Object origin) {
+    return new JsonBasic(origin);
+  }
+
   @Override
   public JsonItem itemClone() {
     return this;
   }
 
+  /**
+   * 以 {@link #JsonBasic(Object)} 创建的值可以修改，冻结时返回一个内容相同、不可修改的副本
+   */
+  @Override
+  public JsonItem freeze() {
+    if (isFrozen()) {
+      return this;
+    }
+    JsonBasic constant = new JsonBasicConstant();
+    constant.content = content;
+    return constant;
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return frozen;
+  }
+
   /**
    * 赋值只接受基本数据类型、字符串（字符）以及基本数据类型的包装类型
    * Json 中单个字符同样作为字符串处理，所有为了方便转换，将单个字符预先转换为字符串类型
@@ -107,10 +185,10 @@ public final class JsonBasic extends JsonItem {
   }
 
   /**
-   * 判断是否为字符串类型
+   * 判断是否为字符串类型（包括尚未解码的 {@link Utf8String}）
    */
   public boolean typeofString() {
-    return content instanceof String;
+    return content instanceof String || content instanceof Utf8String;
   }
 
   /**
@@ -186,7 +264,7 @@ public final class JsonBasic extends JsonItem {
    */
   @Override
   public Number getNumberValue() {
-    return content instanceof String ? new StringNumber((String) content) : (Number) content;
+    return typeofString() ? new StringNumber(content.toString()) : (Number) content;
   }
 
   /**
@@ -199,13 +277,31 @@ public final class JsonBasic extends JsonItem {
     } else if (typeOfNumber()) {
       return getNumberValue().toString();
     }
-    return (String) content;
+    // Utf8String 在此时才解码
+    return content.toString();
+  }
+
+  /**
+   * 写出该值，数值和布尔值不加引号
+   */
+  void write(JsonStringWriter w) throws IOException {
+    if (content instanceof Boolean) {
+      w.value(((Boolean) content).booleanValue());
+    } else if (content instanceof Number) {
+      w.value((Number) content);
+    } else {
+      w.value(content.toString());
+    }
   }
 
   /**
    * 判断传递进来的对象或值是否为基本数据类型（包装类型）或字符串类型
    */
   private static boolean isBasicDataTypeOrWrapperOrString(Object origin) {
+    // 解析得到的值只有这几种类型，先判断以免逐个比较类型
+    if (origin instanceof String || origin instanceof StringNumber || origin instanceof Utf8String || origin instanceof Boolean) {
+      return true;
+    }
     Class<?> originClazz = origin.getClass();
     for (Class<?> c : BASIC_DATA_TYPES) {
       if (c.isAssignableFrom(originClazz)) {
@@ -217,27 +313,32 @@ public final class JsonBasic extends JsonItem {
         return true;
       }
     }
-    return origin instanceof String;
+    return false;
   }
 
 
   /**
-   * 判断数值类型能否不丢失精度地转换成整数
+   * 判断数值能否不丢失精度地转换成整数
    */
-  private static boolean canParseToInt(JsonBasic origin) {
-    if (origin.content instanceof Number) {
-      Number n = (Number) origin.content;
-      return n instanceof Integer ||
-              n instanceof Short ||
-              n instanceof Long ||
-              n instanceof Byte;
-    }
-    return false;
+  boolean integral() {
+    return content instanceof Integer ||
+            content instanceof Short ||
+            content instanceof Long ||
+            content instanceof Byte;
+  }
+
+  /**
+   * 数值的哈希值按 double 计算，与 {@link #equals(Object)} 中数值的比较方式一致，
+   * 内容相等但类型不同的数值（如 1 和 1.0）哈希值相同
+   */
+  static int numberHashCode(double value) {
+    // 加 0.0 使 -0.0 变为 0.0
+    return Double.hashCode(value + 0.0);
   }
 
   @Override
   public int hashCode() {
-    return content.hashCode();
+    return typeOfNumber() ? numberHashCode(getDoubleValue()) : content.hashCode();
   }
 
   @Override
@@ -245,34 +346,28 @@ public final class JsonBasic extends JsonItem {
     if (this == obj) {
       return true;
     }
-
-    if (null != obj) {
-      if (getClass() != obj.getClass()) {
-        // 类型不同
+    if (!(obj instanceof JsonBasic)) {
+      return false;
+    }
+    JsonBasic origin = (JsonBasic) obj;
+    if (typeOfNumber()) {
+      if (!origin.typeOfNumber()) {
         return false;
-      } else {
-        // 类型相同
-        JsonBasic origin = (JsonBasic) obj;
-        if (typeOfNumber()) {
-          // 数值型
-          if (canParseToInt(this) && canParseToInt(origin)) {
-            // 如果可以不丢失精度地转换为整数，则比较转换成长整型后的值（保证最大精度）
-            long thisLv = getNumberValue().longValue();
-            long oriLv = origin.getNumberValue().longValue();
-            return thisLv == oriLv;
-          } else if (origin.content instanceof Number) {
-            // 目标为数值型不能无损转换成整数，则比较转换成双精度后的值
-            double oriDv = origin.getDoubleValue();
-            double thisDv = getDoubleValue();
-            // 注意判断是否为 NaN (0.0d/0 所得的值)，在 Json 中表示为 "NaN"
-            return thisDv == oriDv || Double.isNaN(oriDv) && Double.isNaN(oriDv);
-          }
-        } else {
-          return content.equals(origin.content);
-        }
       }
-    } else if (content == null) {
-      return true;
+      if (integral() && origin.integral()) {
+        // 如果可以不丢失精度地转换为整数，则比较转换成长整型后的值（保证最大精度）
+        return getLongValue() == origin.getLongValue();
+      }
+      // 不能无损转换成整数，则比较转换成双精度后的值
+      double thisDv = getDoubleValue();
+      double oriDv = origin.getDoubleValue();
+      // 注意判断是否为 NaN (0.0d/0 所得的值)，在 Json 中表示为 "NaN"
+      return thisDv == oriDv || Double.isNaN(thisDv) && Double.isNaN(oriDv);
+    } else if (typeofBoolean()) {
+      return origin.typeofBoolean() && getBooleanValue() == origin.getBooleanValue();
+    } else if (typeofString() && origin.typeofString()) {
+      // String 与 Utf8String 按解码后的内容比较
+      return content.getClass() == origin.content.getClass() ? content.equals(origin.content) : getStringValue().equals(origin.getStringValue());
     }
     return false;
   }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.io.JsonStringWriter;
+
+import java.io.IOException;
+
+/**
+ * 布尔值，只有 {@link #TRUE} 和 {@link #FALSE} 两个对象
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+final class JsonBasicBoolean extends JsonBasic {
+
+  static final JsonBasicBoolean TRUE = new JsonBasicBoolean(true);
+  static final JsonBasicBoolean FALSE = new JsonBasicBoolean(false);
+
+  private final boolean value;
+
+  private JsonBasicBoolean(boolean value) {
+    this.value = value;
+  }
+
+  @Override
+  public void setContent(Object origin) {
+    throw new UnsupportedOperationException("该值不能修改，请以新的 JsonBasic 替换");
+  }
+
+  @Override
+  public boolean typeOfNumber() {
+    return false;
+  }
+
+  @Override
+  public boolean typeofBoolean() {
+    return true;
+  }
+
+  @Override
+  public boolean typeofString() {
+    return false;
+  }
+
+  @Override
+  void write(JsonStringWriter w) throws IOException {
+    w.value(value);
+  }
+
+  @Override
+  public boolean getBooleanValue() {
+    return value;
+  }
+
+  @Override
+  public char getCharValue() {
+    return getStringValue().charAt(0);
+  }
+
+  @Override
+  public Number getNumberValue() {
+    throw new ClassCastException("布尔值不能以 Number 表示");
+  }
+
+  @Override
+  public String getStringValue() {
+    return String.valueOf(value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Boolean.hashCode(value);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof JsonBasicBoolean) {
+      return this == obj;
+    }
+    return super.equals(obj);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.io.JsonStringWriter;
+
+import java.io.IOException;
+
+/**
+ * 以 double 保存的数值
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+final class JsonBasicDouble extends JsonBasic {
+
+  private final double value;
+
+  JsonBasicDouble(double value) {
+    this.value = value;
+  }
+
+  @Override
+  public void setContent(Object origin) {
+    throw new UnsupportedOperationException("该值不能修改，请以新的 JsonBasic 替换");
+  }
+
+  @Override
+  public boolean typeOfNumber() {
+    return true;
+  }
+
+  @Override
+  public boolean typeofBoolean() {
+    return false;
+  }
+
+  @Override
+  public boolean typeofString() {
+    return false;
+  }
+
+  @Override
+  void write(JsonStringWriter w) throws IOException {
+    w.value(value);
+  }
+
+  @Override
+  boolean integral() {
+    return false;
+  }
+
+  @Override
+  public boolean getBooleanValue() {
+    return false;
+  }
+
+  @Override
+  public int getIntValue() {
+    return (int) value;
+  }
+
+  @Override
+  public short getShortValue() {
+    return (short) value;
+  }
+
+  @Override
+  public long getLongValue() {
+    return (long) value;
+  }
+
+  @Override
+  public byte getByteValue() {
+    return (byte) value;
+  }
+
+  @Override
+  public float getFloatValue() {
+    return (float) value;
+  }
+
+  @Override
+  public double getDoubleValue() {
+    return value;
+  }
+
+  @Override
+  public char getCharValue() {
+    return getStringValue().charAt(0);
+  }
+
+  @Override
+  public Number getNumberValue() {
+    return value;
+  }
+
+  @Override
+  public String getStringValue() {
+    return Double.toString(value);
+  }
+
+  @Override
+  public int hashCode() {
+    return numberHashCode(value);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof JsonBasicDouble) {
+      double other = ((JsonBasicDouble) obj).value;
+      return value == other || Double.isNaN(value) && Double.isNaN(other);
+    }
+    return super.equals(obj);
+  }
+}
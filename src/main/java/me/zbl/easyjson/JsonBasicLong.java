@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.io.JsonStringWriter;
+
+import java.io.IOException;
+
+/**
+ * 以 long 保存的整数
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+final class JsonBasicLong extends JsonBasic {
+
+  private static final int CACHE_LOW = -128;
+  private static final int CACHE_HIGH = 1023;
+  /**
+   * 较小的整数（状态码、计数、枚举值等）最为常见，预先创建以便共用
+   */
+  private static final JsonBasicLong[] CACHE = new JsonBasicLong[CACHE_HIGH - CACHE_LOW + 1];
+
+  static {
+    for (int i = 0; i < CACHE.length; i++) {
+      CACHE[i] = new JsonBasicLong(CACHE_LOW + i);
+    }
+  }
+
+  private final long value;
+
+  private JsonBasicLong(long value) {
+    this.value = value;
+  }
+
+  static JsonBasicLong of(long value) {
+    if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+      return CACHE[(int) value - CACHE_LOW];
+    }
+    return new JsonBasicLong(value);
+  }
+
+  @Override
+  public void setContent(Object origin) {
+    throw new UnsupportedOperationException("该值不能修改，请以新的 JsonBasic 替换");
+  }
+
+  @Override
+  public boolean typeOfNumber() {
+    return true;
+  }
+
+  @Override
+  public boolean typeofBoolean() {
+    return false;
+  }
+
+  @Override
+  public boolean typeofString() {
+    return false;
+  }
+
+  @Override
+  void write(JsonStringWriter w) throws IOException {
+    w.value(value);
+  }
+
+  @Override
+  boolean integral() {
+    return true;
+  }
+
+  @Override
+  public boolean getBooleanValue() {
+    return false;
+  }
+
+  @Override
+  public int getIntValue() {
+    return (int) value;
+  }
+
+  @Override
+  public short getShortValue() {
+    return (short) value;
+  }
+
+  @Override
+  public long getLongValue() {
+    return value;
+  }
+
+  @Override
+  public byte getByteValue() {
+    return (byte) value;
+  }
+
+  @Override
+  public float getFloatValue() {
+    return (float) value;
+  }
+
+  @Override
+  public double getDoubleValue() {
+    return (double) value;
+  }
+
+  @Override
+  public char getCharValue() {
+    return getStringValue().charAt(0);
+  }
+
+  @Override
+  public Number getNumberValue() {
+    return value;
+  }
+
+  @Override
+  public String getStringValue() {
+    return Long.toString(value);
+  }
+
+  @Override
+  public int hashCode() {
+    return numberHashCode((double) value);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof JsonBasicLong) {
+      return value == ((JsonBasicLong) obj).value;
+    }
+    return super.equals(obj);
+  }
+}
@@ -32,6 +32,37 @@ public abstract class JsonItem {
    */
   public abstract JsonItem itemClone();
 
+  /**
+   * 冻结：此后该元素及其所有子元素都不能修改，数组和对象的哈希值只计算一次并缓存，
+   * 比较时哈希值不同即不相等。冻结之后不再有任何写操作（缓存哈希值除外，与 String 相同），
+   * 安全发布之后可以在多个线程之间共享而不必复制
+   *
+   * @return 冻结后的元素，数组和对象返回自身，可以修改的基本数据类型返回一个不可修改的副本
+   */
+  public JsonItem freeze() {
+    return this;
+  }
+
+  /**
+   * 是否已冻结（或本身不可修改）
+   */
+  public boolean isFrozen() {
+    return true;
+  }
+
+  /**
+   * 交给调用方（取出或由调用方放入）时调用，见 {@link CopyOnWrite#markHandedOut(long[], int, int, JsonItem)}
+   */
+  void handOut() {
+  }
+
+  /**
+   * 调用方是否可能持有并修改该元素，只有数组和对象需要记录
+   */
+  boolean isHandedOut() {
+    return false;
+  }
+
   /**
    * 判断是否为 Json 基本数据类型
    */
@@ -16,53 +16,277 @@
  */
 package me.zbl.easyjson;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import me.zbl.easyjson.data.SymbolTable;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Json 中的对象类
  * Json 中的对象展现形式如：{"name":"Java","age":23,"version":9}
+ * <p>
+ * 键和值按插入顺序保存在两个数组中，键不多时逐个比较查找；键的数量超过
+ * {@link #LINEAR_SCAN_LIMIT} 后另外建立开放寻址的散列表，表中保存键在数组中的下标。
+ * 与 LinkedHashMap 相比不需要为每个键值对创建条目对象
+ * <p>
+ * {@link #itemClone()} 只共用数组，除交给过调用方的子元素外不复制，之后修改哪一部分才复制哪一部分，见 {@link CopyOnWrite}
+ * <p>
+ * {@link #freeze()} 之后不能再修改，哈希值只计算一次
  *
  * @author JamesZBL
  * @date 2018-01-31
  */
 public final class JsonObject extends JsonItem {
 
-  private Map<String, JsonItem> content = new LinkedHashMap<>();
+  /**
+   * 键的数量不超过该值时逐个比较查找
+   */
+  private static final int LINEAR_SCAN_LIMIT = 8;
+
+  private static final String[] EMPTY_KEYS = {};
+  private static final JsonItem[] EMPTY_VALUES = {};
+
+  private String[] keys;
+  private JsonItem[] values;
+  private int size;
+  /**
+   * 开放寻址（线性探测）的散列表，保存键的下标加一，0 表示空位
+   * 键的数量不超过 {@link #LINEAR_SCAN_LIMIT} 时为 null
+   */
+  private int[] index;
+  /**
+   * 写时复制的状态，见 {@link CopyOnWrite}
+   */
+  private long[] cow;
+  /**
+   * 冻结之后缓存的哈希值，0 表示还未计算
+   */
+  private int hash;
+  /**
+   * 是否交给过调用方，见 {@link CopyOnWrite#markHandedOut(long[], int, int, JsonItem)}
+   */
+  private boolean handedOut;
 
   public JsonObject() {
+    keys = EMPTY_KEYS;
+    values = EMPTY_VALUES;
   }
 
   /**
-   * 添加项
+   * 预先确定容量，放入 expectedSize 个键值对时不必扩容
+   */
+  JsonObject(int expectedSize) {
+    keys = expectedSize == 0 ? EMPTY_KEYS : new String[expectedSize];
+    values = expectedSize == 0 ? EMPTY_VALUES : new JsonItem[expectedSize];
+  }
+
+  /**
+   * 添加项，键已存在时替换原来的值，位置不变
+   * 新的键通过 {@link SymbolTable#getDefault()} 与其它对象共用
+   *
+   * @throws NullPointerException name 为 null
    */
   public void addItem(String name, JsonItem value) {
-    if (null != value) {
-      content.put(name, value);
-    } else {
-      content.put(name, JsonNull.getINSTANCE());
+    StatusCheck.checkIfNull(name);
+    if (null == value) {
+      value = JsonNull.getINSTANCE();
     }
+    put(name, value);
+    value.handOut();
   }
 
   /**
-   * 移除项
+   * 同 {@link #addItem(String, JsonItem)}，用于放入调用方不持有的值（如刚解析或克隆得到的值）
+   */
+  void put(String name, JsonItem value) {
+    beforeWrite();
+    int i = indexOf(name);
+    if (i >= 0) {
+      values[i] = value;
+      if (null != cow) {
+        cow = CopyOnWrite.markPrivate(cow, i);
+      }
+      return;
+    }
+    if (size == keys.length) {
+      int capacity = Math.max(4, size + (size >> 1));
+      keys = Arrays.copyOf(keys, capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+    keys[size] = SymbolTable.getDefault().intern(name);
+    values[size] = value;
+    if (null != cow) {
+      cow = CopyOnWrite.markPrivate(cow, size);
+    }
+    size++;
+    if (null != index) {
+      if (size * 2 > index.length) {
+        rebuildIndex();
+      } else {
+        insertIndex(size - 1);
+      }
+    } else if (size > LINEAR_SCAN_LIMIT) {
+      rebuildIndex();
+    }
+  }
+
+  /**
+   * 移除项，其后的项依次前移，保持原来的顺序
    */
   public void removeItem(String key) {
-    content.remove(key);
+    int i = indexOf(key);
+    if (i < 0) {
+      return;
+    }
+    beforeWrite();
+    if (null != cow) {
+      CopyOnWrite.remove(cow, i, size);
+    }
+    System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+    System.arraycopy(values, i + 1, values, i, size - i - 1);
+    size--;
+    keys[size] = null;
+    values[size] = null;
+    if (null != index) {
+      if (size > LINEAR_SCAN_LIMIT) {
+        rebuildIndex();
+      } else {
+        index = null;
+      }
+    }
   }
 
   /**
    * 根据键获取项
+   * 该对象由克隆得到（或被克隆过）时，取出的数组或对象是只属于该对象的副本，可以直接修改
    */
   public JsonItem getItem(String key) {
-    return content.get(key);
+    int i = indexOf(key);
+    if (i < 0) {
+      return null;
+    }
+    JsonItem value = values[i];
+    if (CopyOnWrite.needsCopy(cow, i, value)) {
+      beforeWrite();
+      value = value.itemClone();
+      values[i] = value;
+      cow = CopyOnWrite.markPrivate(cow, i);
+    }
+    value.handOut();
+    return value;
   }
 
   /**
    * 判断是否包含键
    */
   public boolean containsItem(String key) {
-    return content.containsKey(key);
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * 键值对的数量
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 按插入顺序排列的所有键，返回的是副本，不能修改
+   */
+  public Set<String> keySet() {
+    Set<String> set = new LinkedHashSet<>(size < 3 ? size + 1 : (int) (size / 0.75f + 1));
+    for (int i = 0; i < size; i++) {
+      set.add(keys[i]);
+    }
+    return Collections.unmodifiableSet(set);
+  }
+
+  /**
+   * 第 i 个键（按插入顺序）
+   */
+  String keyAt(int i) {
+    return keys[i];
+  }
+
+  /**
+   * 第 i 个值（按插入顺序），不复制共用的子元素，只用于读取（如写出）
+   */
+  JsonItem valueAt(int i) {
+    return values[i];
+  }
+
+  /**
+   * 修改数组之前调用，数组与其它对象共用时先复制
+   */
+  private void beforeWrite() {
+    CopyOnWrite.checkNotFrozen(cow);
+    if (cow == CopyOnWrite.SHARED) {
+      keys = keys.clone();
+      values = values.clone();
+      if (null != index) {
+        index = index.clone();
+      }
+      cow = CopyOnWrite.owned(keys.length);
+    }
+  }
+
+  private int indexOf(String key) {
+    if (null == index) {
+      for (int i = 0; i < size; i++) {
+        if (sameKey(keys[i], key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int mask = index.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      int e = index[slot] - 1;
+      if (e < 0) {
+        return -1;
+      }
+      if (sameKey(keys[e], key)) {
+        return e;
+      }
+    }
+  }
+
+  /**
+   * @param k 已有的键，不为 null
+   */
+  private static boolean sameKey(String k, String key) {
+    return k == key || k.equals(key);
+  }
+
+  /**
+   * 按当前的键数重建散列表，装载因子不超过 1/2
+   */
+  private void rebuildIndex() {
+    int capacity = Integer.highestOneBit(Math.max(size, LINEAR_SCAN_LIMIT) * 4 - 1);
+    index = new int[capacity];
+    for (int i = 0; i < size; i++) {
+      insertIndex(i);
+    }
+  }
+
+  private void insertIndex(int i) {
+    int mask = index.length - 1;
+    int slot = hash(keys[i]) & mask;
+    while (index[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    index[slot] = i + 1;
+  }
+
+  private static int hash(String key) {
+    if (null == key) {
+      return 0;
+    }
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
   }
 
   /**
@@ -104,31 +328,134 @@ public final class JsonObject extends JsonItem {
     if (null == obj) {
       return JsonNull.getINSTANCE();
     } else {
-      return new JsonBasic(obj);
+      return JsonBasic.valueOf(obj);
     }
   }
 
+  /**
+   * 只共用数组，不复制其余的子元素，两个对象之后各自的修改互不影响
+   * 交给过调用方的子数组和子对象仍属于该对象，新的对象中是它们的副本
+   * 冻结的对象克隆后得到的是可以修改的对象
+   */
   @Override
   public JsonItem itemClone() {
-    JsonObject newObj = new JsonObject();
-    for (Map.Entry<String, JsonItem> entry : content.entrySet()) {
-      newObj.addItem(entry.getKey(), entry.getValue().itemClone());
+    long[] handedOut = null;
+    if (cow != CopyOnWrite.FROZEN) {
+      for (int i = 0; i < size; i++) {
+        handedOut = CopyOnWrite.markHandedOut(handedOut, i, size, values[i]);
+      }
+    }
+    JsonObject newObj = new JsonObject(0);
+    newObj.size = size;
+    if (null == handedOut) {
+      newObj.keys = keys;
+      newObj.values = values;
+      newObj.index = index;
+      newObj.cow = CopyOnWrite.SHARED;
+      if (cow != CopyOnWrite.FROZEN) {
+        cow = CopyOnWrite.SHARED;
+      }
+      return newObj;
+    }
+    newObj.keys = keys.clone();
+    newObj.values = values.clone();
+    newObj.index = null == index ? null : index.clone();
+    for (int i = 0; i < size; i++) {
+      if (CopyOnWrite.isPrivate(handedOut, i)) {
+        newObj.values[i] = values[i].itemClone();
+      }
+    }
+    newObj.cow = handedOut.clone();
+    if (cow != CopyOnWrite.SHARED) {
+      // 其余的子元素从此与新的对象共用
+      cow = handedOut;
     }
     return newObj;
   }
 
+  /**
+   * 冻结该对象及其所有子元素
+   * 与克隆得到的对象共用的子数组和子对象先复制再冻结，另一个对象中的不受影响；
+   * 由调用方放入多个数组或对象中的同一个子元素则一同冻结
+   */
+  @Override
+  public JsonItem freeze() {
+    if (cow == CopyOnWrite.FROZEN) {
+      return this;
+    }
+    beforeWrite();
+    for (int i = 0; i < size; i++) {
+      JsonItem value = values[i];
+      values[i] = CopyOnWrite.needsCopy(cow, i, value) ? value.itemClone().freeze() : value.freeze();
+    }
+    cow = CopyOnWrite.FROZEN;
+    return this;
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return cow == CopyOnWrite.FROZEN;
+  }
+
+  @Override
+  void handOut() {
+    if (cow != CopyOnWrite.FROZEN) {
+      handedOut = true;
+    }
+  }
+
+  @Override
+  boolean isHandedOut() {
+    return handedOut && cow != CopyOnWrite.FROZEN;
+  }
+
+  /**
+   * 与 Map 相同，键值对相同即相等，与顺序无关
+   * 与键值对相同的 {@link LazyJsonObject} 也相等
+   */
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
       return true;
-    } else if (obj instanceof JsonObject && ((JsonObject) obj).content.equals(this.content)) {
-      return true;
     }
-    return false;
+    if (obj instanceof LazyJsonObject) {
+      return obj.equals(this);
+    }
+    if (!(obj instanceof JsonObject)) {
+      return false;
+    }
+    JsonObject origin = (JsonObject) obj;
+    if (size != origin.size) {
+      return false;
+    }
+    if (isFrozen() && origin.isFrozen() && hashCode() != origin.hashCode()) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      int j = origin.indexOf(keys[i]);
+      if (j < 0 || !values[i].equals(origin.values[j])) {
+        return false;
+      }
+    }
+    return true;
   }
 
+  /**
+   * 与 Map 相同，为各个键值对的哈希值之和，冻结之后只计算一次
+   */
   @Override
   public int hashCode() {
-    return this.content.hashCode();
+    int h = hash;
+    if (h != 0) {
+      return h;
+    }
+    for (int i = 0; i < size; i++) {
+      String k = keys[i];
+      h += k.hashCode() ^ values[i].hashCode();
+    }
+    if (cow == CopyOnWrite.FROZEN) {
+      hash = h;
+    }
+    return h;
   }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.data.StringNumber;
+import me.zbl.easyjson.exceptions.JsonIOException;
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.io.JsonReader;
+import me.zbl.easyjson.io.JsonStringReader;
+import me.zbl.easyjson.io.JsonUtf8Reader;
+import me.zbl.easyjson.io.lexical.JsonToken;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 将 Json 文本解析为 {@link JsonObject}、{@link JsonArray}、{@link JsonBasic} 构成的树
+ * <p>
+ * 只读取一遍输入。整数和有效数字不多的小数直接以 long、double 保存，
+ * 其余数值以 {@link StringNumber} 保存，调用取值方法时才转换，均不损失精度；
+ * UTF-8 字节输入中的字符串在调用 {@link JsonItem#getStringValue()} 时才解码。
+ * 数组和对象的元素先放入按层复用的暂存数组中，读完后再以确定的大小创建 {@link JsonArray} 的元素列表
+ * 和 {@link JsonObject} 的键值数组，之后不会扩容。
+ * <p>
+ * 每一层数组或对象递归一次，嵌套超过 maxDepth 层时抛出 {@link JsonUnknownFormatException}，
+ * 不会因输入过深而耗尽线程栈。暂存数组在多次解析之间复用，因此不是线程安全的
+ *
+ * @author JamesZBL
+ * @date 2018-02-15
+ */
+public final class JsonTreeParser {
+
+  /**
+   * 默认的最大嵌套层数
+   */
+  public static final int DEFAULT_MAX_DEPTH = 1000;
+
+  /**
+   * 数组和对象的最大嵌套层数，每一层递归一次，超过时抛出异常而不是耗尽线程栈
+   */
+  private final int maxDepth;
+
+  /**
+   * 每一层的数组元素或对象的值
+   */
+  private JsonItem[][] values = new JsonItem[8][];
+  /**
+   * 每一层的对象的键
+   */
+  private String[][] names = new String[8][];
+
+  /**
+   * 数组和对象最多嵌套 {@link #DEFAULT_MAX_DEPTH} 层
+   */
+  public JsonTreeParser() {
+    this(DEFAULT_MAX_DEPTH);
+  }
+
+  /**
+   * @param maxDepth 数组和对象的最大嵌套层数，至少为 1
+   */
+  public JsonTreeParser(int maxDepth) {
+    StatusCheck.checkIfLegal(maxDepth >= 1);
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * 解析完整的 Json 文本
+   */
+  public JsonItem parse(String json) {
+    StatusCheck.checkIfNull(json);
+    // 长度已知，较短的文本不必分配默认大小的缓冲区
+    int bufferSize = Math.max(16, Math.min(json.length(), 64 * 1024));
+    return parseDocument(new JsonStringReader(new StringReader(json), bufferSize));
+  }
+
+  /**
+   * 解析完整的 Json 文本，读完后不关闭 reader
+   */
+  public JsonItem parse(Reader reader) {
+    return parseDocument(new JsonStringReader(reader));
+  }
+
+  /**
+   * 解析以 UTF-8 编码的完整的 Json 文本
+   */
+  public JsonItem parse(byte[] utf8) {
+    return parse(ByteBuffer.wrap(utf8));
+  }
+
+  /**
+   * 解析缓冲区中 position 到 limit 之间以 UTF-8 编码的完整的 Json 文本
+   */
+  public JsonItem parse(ByteBuffer utf8) {
+    return parseDocument(new JsonUtf8Reader(utf8));
+  }
+
+  private JsonItem parseDocument(JsonReader reader) {
+    try {
+      JsonItem item = read(reader, 0);
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonUnknownFormatException("存在多个顶级元素");
+      }
+      return item;
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * 从读取器中读取下一个值
+   * reader 为 {@link JsonUtf8Reader} 时字符串以 UTF-8 字节保存，在第一次使用时才解码
+   */
+  public JsonItem readItem(JsonReader reader) throws IOException {
+    return read(reader, 0);
+  }
+
+  private JsonItem read(JsonReader reader, int depth) throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_ARRAY:
+        return readArray(reader, depth);
+      case BEGIN_OBJECT:
+        return readObject(reader, depth);
+      case STRING:
+        if (reader instanceof JsonUtf8Reader) {
+          return new JsonBasic(((JsonUtf8Reader) reader).nextUtf8String());
+        }
+        return new JsonBasic(reader.nextString());
+      case NUMBER:
+        return readNumber(reader);
+      case BOOLEAN:
+        return JsonBasic.valueOf(reader.nextBoolean());
+      case NULL:
+        reader.nextNull();
+        return JsonNull.getINSTANCE();
+      default:
+        throw new IllegalStateException("期望一个值，实际为 " + reader.peek());
+    }
+  }
+
+  private static JsonBasic readNumber(JsonReader reader) throws IOException {
+    switch (reader.peekNumberKind()) {
+      case LONG:
+        return JsonBasic.valueOf(reader.nextLong());
+      case DOUBLE:
+        return JsonBasic.valueOf(reader.nextDouble());
+      default:
+        return new JsonBasic(reader.nextNumber());
+    }
+  }
+
+  private JsonArray readArray(JsonReader reader, int depth) throws IOException {
+    checkDepth(depth);
+    reader.beginJsonArray();
+    JsonItem[] items = values(depth);
+    int size = 0;
+    while (reader.hasNext()) {
+      JsonItem item = read(reader, depth + 1);
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+        values[depth] = items;
+      }
+      items[size++] = item;
+    }
+    reader.endJsonArray();
+    JsonArray array = new JsonArray(items, size);
+    Arrays.fill(items, 0, size, null);
+    return array;
+  }
+
+  private JsonObject readObject(JsonReader reader, int depth) throws IOException {
+    checkDepth(depth);
+    reader.beginJsonObject();
+    JsonItem[] items = values(depth);
+    String[] keys = names(depth);
+    int size = 0;
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      JsonItem item = read(reader, depth + 1);
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+        values[depth] = items;
+      }
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        names[depth] = keys;
+      }
+      keys[size] = name;
+      items[size++] = item;
+    }
+    reader.endJsonObject();
+    JsonObject object = new JsonObject(size);
+    for (int i = 0; i < size; i++) {
+      object.put(keys[i], items[i]);
+    }
+    Arrays.fill(items, 0, size, null);
+    Arrays.fill(keys, 0, size, null);
+    return object;
+  }
+
+  /**
+   * @param depth 即将读取的数组或对象外层的数组和对象的数量
+   */
+  private void checkDepth(int depth) {
+    if (depth >= maxDepth) {
+      throw new JsonUnknownFormatException("数组和对象的嵌套超过了 " + maxDepth + " 层");
+    }
+  }
+
+  private JsonItem[] values(int depth) {
+    if (depth >= values.length) {
+      // 数组和对象各自只在用到时扩容，两者的层数可能不同
+      values = Arrays.copyOf(values, Math.max(depth + 1, values.length * 2));
+    }
+    JsonItem[] items = values[depth];
+    if (null == items) {
+      items = new JsonItem[16];
+      values[depth] = items;
+    }
+    return items;
+  }
+
+  private String[] names(int depth) {
+    if (depth >= names.length) {
+      // 数组和对象各自只在用到时扩容，两者的层数可能不同
+      names = Arrays.copyOf(names, Math.max(depth + 1, names.length * 2));
+    }
+    String[] keys = names[depth];
+    if (null == keys) {
+      keys = new String[16];
+      names[depth] = keys;
+    }
+    return keys;
+  }
+}
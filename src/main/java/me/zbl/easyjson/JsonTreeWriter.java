@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.ParallelArrayWriter;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+
+/**
+ * 将 {@link JsonItem} 树写出为 Json
+ * <p>
+ * 元素很多的数组交给 {@link ParallelArrayWriter} 分块并行写出，结果与按顺序写出完全相同。
+ * {@link LazyJsonObject} 中未取出的值原样复制输入中的字节。
+ * 写出时只读取，不会因写时复制而复制子元素；并行写出期间不能修改该树（冻结的树总是安全的）
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class JsonTreeWriter {
+
+  private final ParallelArrayWriter arrayWriter;
+
+  /**
+   * 按顺序写出
+   */
+  public JsonTreeWriter() {
+    this(ParallelArrayWriter.SEQUENTIAL);
+  }
+
+  /**
+   * @param arrayWriter 写出数组的方式
+   */
+  public JsonTreeWriter(ParallelArrayWriter arrayWriter) {
+    StatusCheck.checkIfNull(arrayWriter);
+    this.arrayWriter = arrayWriter;
+  }
+
+  /**
+   * 写出元素及其所有子元素，null 写出为 Json 中的 null
+   *
+   * @throws IOException
+   */
+  public void write(JsonItem item, JsonStringWriter w) throws IOException {
+    if (item instanceof JsonObject) {
+      JsonObject obj = (JsonObject) item;
+      w.newJsonObject();
+      for (int i = 0, size = obj.size(); i < size; i++) {
+        w.name(obj.keyAt(i));
+        write(obj.valueAt(i), w);
+      }
+      w.finishJsonObject();
+    } else if (item instanceof JsonArray) {
+      final JsonArray array = (JsonArray) item;
+      arrayWriter.writeArray(w, array.length(), new ParallelArrayWriter.ElementWriter() {
+        @Override
+        public void write(int i, JsonStringWriter cw) throws IOException {
+          JsonTreeWriter.this.write(array.itemAt(i), cw);
+        }
+      });
+    } else if (item instanceof LazyJsonObject) {
+      ((LazyJsonObject) item).write(this, w);
+    } else if (item instanceof JsonBasic) {
+      ((JsonBasic) item).write(w);
+    } else {
+      w.nullValue();
+    }
+  }
+}
@@ -40,6 +40,20 @@ public class JsonType<T> {
     this.hashCode = t.hashCode();
   }
 
+  /**
+   * 获取指定类的类型
+   */
+  public static <T> JsonType<T> get(Class<T> c) {
+    return new JsonType<T>(c);
+  }
+
+  /**
+   * 获取指定类型（可包含类型变量）的类型
+   */
+  public static JsonType<?> get(Type t) {
+    return new JsonType<Object>(t);
+  }
+
   public Class<? super T> getRaw() {
     return raw;
   }
@@ -48,6 +62,24 @@ public class JsonType<T> {
     return type;
   }
 
+  @Override
+  public final int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public final boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    return obj instanceof JsonType && hashCode == ((JsonType<?>) obj).hashCode && type.equals(((JsonType<?>) obj).type);
+  }
+
+  @Override
+  public String toString() {
+    return type.getTypeName();
+  }
+
   /**
    * 获取指定类型的直接父类的第一个类型参数
    */
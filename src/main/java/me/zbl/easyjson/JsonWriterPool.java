@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 转换成 String、byte[] 时复用的 JsonStringWriter 及其缓冲区
+ * <p>
+ * 按线程 id 分散到固定数量的槽位中，取出时将槽位置空，用完后放回。
+ * 槽位为空（例如同一线程嵌套转换，或多个线程落在同一槽位）时临时创建，用完后能放回则放回，
+ * 因此不依赖 ThreadLocal，大量虚拟线程也只会占用固定数量的对象。
+ * 写出的内容超过 {@link #MAX_RETAINED_SIZE} 时不再放回，避免长期占用过大的缓冲区
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+final class JsonWriterPool {
+
+  /**
+   * 放回池中的缓冲区能够保留的最大内容长度（字符或字节）
+   */
+  static final int MAX_RETAINED_SIZE = 16 * 1024;
+
+  private static final AtomicReferenceArray<JsonWriterPool> SLOTS;
+  private static final int MASK;
+
+  static {
+    int n = Integer.highestOneBit(Math.max(2, Runtime.getRuntime().availableProcessors()) * 4 - 1);
+    n = Math.min(n, 64);
+    SLOTS = new AtomicReferenceArray<>(n);
+    MASK = n - 1;
+  }
+
+  private final CharArrayWriter chars = new CharArrayWriter(256);
+  private final PooledCharWriter charWriter = new PooledCharWriter(chars);
+  private final JsonUtf8Writer byteWriter = new JsonUtf8Writer();
+
+  private JsonWriterPool() {
+  }
+
+  /**
+   * 取出当前线程所在槽位中的对象，槽位为空时新建
+   * 用完后需调用 {@link #release()}
+   */
+  static JsonWriterPool acquire() {
+    JsonWriterPool pool = SLOTS.getAndSet(slot(), null);
+    return null != pool ? pool : new JsonWriterPool();
+  }
+
+  /**
+   * 放回槽位，槽位已被占用或缓冲区过大时丢弃
+   */
+  void release() {
+    if (chars.size() > MAX_RETAINED_SIZE || byteWriter.size() > MAX_RETAINED_SIZE) {
+      return;
+    }
+    SLOTS.compareAndSet(slot(), null, this);
+  }
+
+  /**
+   * 清空之后的字符输出，各项设置为默认值
+   */
+  JsonStringWriter charWriter() {
+    chars.reset();
+    charWriter.reuse();
+    return charWriter;
+  }
+
+  /**
+   * {@link #charWriter()} 写出的内容
+   */
+  String charsToString() throws IOException {
+    charWriter.flush();
+    return chars.toString();
+  }
+
+  /**
+   * 清空之后的 UTF-8 字节输出，各项设置为默认值
+   */
+  JsonUtf8Writer byteWriter() {
+    byteWriter.reset();
+    return byteWriter;
+  }
+
+  /**
+   * 输出目标固定为同一个 CharArrayWriter，通过 {@link JsonStringWriter#reset()} 复用
+   */
+  private static final class PooledCharWriter extends JsonStringWriter {
+
+    PooledCharWriter(Writer w) {
+      super(w);
+    }
+
+    void reuse() {
+      reset();
+    }
+  }
+
+  @SuppressWarnings("deprecation")
+  private static int slot() {
+    long id = Thread.currentThread().getId();
+    return (int) (id ^ id >>> 32) & MASK;
+  }
+}
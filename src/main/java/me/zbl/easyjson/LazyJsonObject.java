@@ -0,0 +1,648 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonIOException;
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Reader;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+import me.zbl.easyjson.io.lexical.JsonToken;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 按需解析的 Json 对象，直接引用以 UTF-8 编码的输入
+ * <p>
+ * 创建时只扫描一遍顶级对象，记下每个键和值在输入中的位置，值本身只跟踪字符串和括号的嵌套，不解析。
+ * 调用 {@link #getItem(String)} 时才以 {@link JsonTreeParser} 将该值解析为
+ * {@link JsonObject}、{@link JsonArray}、{@link JsonBasic}，值的格式错误在取出或写出时才发现。
+ * <p>
+ * 通过 {@link JsonTreeWriter} 写出时，连续的未取出的键值对（以及取出的本身不可修改的基本数据类型和 null）
+ * 整段复制输入中的字节，取出过的数组和对象以及替换过的值重新写出，适合只读取少数几个键、其余原样转发的场景。
+ * 写出目标需要转义其中的字符时（htmlSafe、asciiOnly，以及总是转义的 U+2028、U+2029）该键值对重新写出；
+ * 整段复制的键值对在第一次复制之前检查一次格式，格式错误时抛出 {@link JsonUnknownFormatException}。
+ * <p>
+ * 重复的键按原样保留，按键查找时取最后一个，与 {@link JsonTreeParser} 的结果相同。
+ * 与键值对相同的 {@link JsonObject} 相等，哈希值也相同。
+ * 创建后输入的数组不能再修改；取出值时会修改内部的状态，因此不是线程安全的
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class LazyJsonObject extends JsonItem {
+
+  /**
+   * 每个键值对在 {@link #offsets} 中占的位置数
+   */
+  private static final int STRIDE = 4;
+  private static final int KEY_START = 0;
+  private static final int KEY_END = 1;
+  private static final int VALUE_START = 2;
+  private static final int VALUE_END = 3;
+
+  private final byte[] input;
+  /**
+   * 每个键值对的键的开头引号、键的结尾引号之后、值的开始、值的结束在输入中的位置，
+   * 键不在输入中时为 -1，值不在输入中（已被替换）或取出后可能被修改时值的开始为 -1
+   */
+  private int[] offsets;
+  /**
+   * 解码后的键，为 null 表示还未解码（输入中不含转义的键在用到时才解码）
+   */
+  private String[] names;
+  /**
+   * 取出或添加的值，为 null 表示还未取出
+   */
+  private JsonItem[] values;
+  /**
+   * 输入中的键值对是否已经检查过格式，见 {@link #checkMember(int)}
+   */
+  private boolean[] checked;
+  private int size;
+  private JsonTreeParser parser;
+
+  /**
+   * @param utf8 以 UTF-8 编码的完整的 Json 对象
+   */
+  public LazyJsonObject(byte[] utf8) {
+    this(checkedInput(utf8), 0, utf8.length);
+  }
+
+  /**
+   * @param utf8   以 UTF-8 编码的完整的 Json 对象
+   * @param offset 起始位置
+   * @param length 长度
+   */
+  public LazyJsonObject(byte[] utf8, int offset, int length) {
+    StatusCheck.checkIfNull(utf8);
+    StatusCheck.checkIfLegal(offset >= 0 && length >= 0 && offset + length <= utf8.length && offset + length >= 0);
+    this.input = utf8;
+    this.offsets = new int[STRIDE * 8];
+    this.names = new String[8];
+    this.values = new JsonItem[8];
+    this.checked = new boolean[8];
+    scan(offset, offset + length);
+  }
+
+  private LazyJsonObject(LazyJsonObject origin) {
+    this.input = origin.input;
+    this.offsets = origin.offsets.clone();
+    this.names = origin.names.clone();
+    this.values = origin.values.clone();
+    this.checked = origin.checked.clone();
+    this.size = origin.size;
+  }
+
+  private static byte[] checkedInput(byte[] utf8) {
+    StatusCheck.checkIfNull(utf8);
+    return utf8;
+  }
+
+  /**
+   * 扫描顶级对象，记下每个键值对的位置
+   */
+  private void scan(int from, int to) {
+    int p = from;
+    if (to - p >= 3 && (input[p] & 0xFF) == 0xEF && (input[p + 1] & 0xFF) == 0xBB && (input[p + 2] & 0xFF) == 0xBF) {
+      // 跳过 UTF-8 的字节顺序标记
+      p += 3;
+    }
+    p = skipWhitespace(p, to);
+    if (p == to || input[p] != '{') {
+      throw error("顶级元素不是对象", p, from);
+    }
+    p = skipWhitespace(p + 1, to);
+    if (p < to && input[p] == '}') {
+      p++;
+    } else {
+      while (true) {
+        if (p == to || input[p] != '"') {
+          throw error("键必须是字符串", p, from);
+        }
+        int keyStart = p;
+        p = skipString(p, to, from);
+        int keyEnd = p;
+        p = skipWhitespace(p, to);
+        if (p == to || input[p] != ':') {
+          throw error("键之后缺少冒号", p, from);
+        }
+        int valueStart = skipWhitespace(p + 1, to);
+        p = skipValue(valueStart, to, from);
+        append(keyStart, keyEnd, valueStart, p);
+        p = skipWhitespace(p, to);
+        if (p < to && input[p] == ',') {
+          p = skipWhitespace(p + 1, to);
+        } else if (p < to && input[p] == '}') {
+          p++;
+          break;
+        } else {
+          throw error("键值对之间缺少逗号", p, from);
+        }
+      }
+    }
+    if (skipWhitespace(p, to) != to) {
+      throw error("存在多个顶级元素", p, from);
+    }
+  }
+
+  private void append(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+    if (size == values.length) {
+      int capacity = size * 2;
+      offsets = Arrays.copyOf(offsets, capacity * STRIDE);
+      names = Arrays.copyOf(names, capacity);
+      values = Arrays.copyOf(values, capacity);
+      checked = Arrays.copyOf(checked, capacity);
+    }
+    int o = size * STRIDE;
+    offsets[o + KEY_START] = keyStart;
+    offsets[o + KEY_END] = keyEnd;
+    offsets[o + VALUE_START] = valueStart;
+    offsets[o + VALUE_END] = valueEnd;
+    if (keyStart >= 0 && hasEscape(keyStart + 1, keyEnd - 1)) {
+      // 含转义的键很少见，直接解码
+      names[size] = decodeEscapedName(keyStart, keyEnd);
+    }
+    size++;
+  }
+
+  private int skipWhitespace(int p, int to) {
+    while (p < to) {
+      byte b = input[p];
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      p++;
+    }
+    return p;
+  }
+
+  /**
+   * @param p 开头的引号的位置
+   *
+   * @return 结尾的引号之后的位置
+   */
+  private int skipString(int p, int to, int from) {
+    for (int i = p + 1; i < to; i++) {
+      byte b = input[i];
+      if (b == '"') {
+        return i + 1;
+      } else if (b == '\\') {
+        i++;
+      }
+    }
+    throw error("字符串没有结束", p, from);
+  }
+
+  /**
+   * 跳过一个值，只跟踪字符串和括号的嵌套，不检查其中的格式
+   *
+   * @return 值之后的位置
+   */
+  private int skipValue(int p, int to, int from) {
+    if (p == to) {
+      throw error("输入意外结束", p, from);
+    }
+    byte b = input[p];
+    if (b == '"') {
+      return skipString(p, to, from);
+    }
+    if (b == '{' || b == '[') {
+      int depth = 0;
+      for (int i = p; i < to; i++) {
+        b = input[i];
+        if (b == '"') {
+          i = skipString(i, to, from) - 1;
+        } else if (b == '{' || b == '[') {
+          depth++;
+        } else if ((b == '}' || b == ']') && --depth == 0) {
+          return i + 1;
+        }
+      }
+      throw error("值没有结束", p, from);
+    }
+    // 数值、true、false、null 到分隔符为止
+    int i = p;
+    while (i < to) {
+      b = input[i];
+      if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        break;
+      }
+      i++;
+    }
+    if (i == p) {
+      throw error("无法识别的字符 0x" + Integer.toHexString(b & 0xFF), p, from);
+    }
+    return i;
+  }
+
+  private static JsonUnknownFormatException error(String message, int p, int from) {
+    return new JsonUnknownFormatException(message + "，位于第 " + (p - from) + " 个字节");
+  }
+
+  private boolean hasEscape(int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (input[i] == '\\') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String decodeEscapedName(int keyStart, int keyEnd) {
+    try {
+      return new JsonUtf8Reader(ByteBuffer.wrap(input, keyStart, keyEnd - keyStart)).nextString();
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * 第 i 个键，输入中不含转义的键在第一次用到时解码
+   */
+  private String name(int i) {
+    String name = names[i];
+    if (null == name) {
+      int o = i * STRIDE;
+      int keyStart = offsets[o + KEY_START];
+      name = new String(input, keyStart + 1, offsets[o + KEY_END] - keyStart - 2, StandardCharsets.UTF_8);
+      names[i] = name;
+    }
+    return name;
+  }
+
+  /**
+   * 查找键，重复时取最后一个
+   * 未解码的键直接与 key 的 UTF-8 编码逐个字节比较
+   */
+  private int indexOf(String key) {
+    byte[] utf8 = null;
+    for (int i = size - 1; i >= 0; i--) {
+      String name = names[i];
+      if (null != name) {
+        if (name.equals(key)) {
+          return i;
+        }
+        continue;
+      }
+      if (null == utf8) {
+        utf8 = key.getBytes(StandardCharsets.UTF_8);
+      }
+      int o = i * STRIDE;
+      int keyStart = offsets[o + KEY_START] + 1;
+      int length = offsets[o + KEY_END] - 1 - keyStart;
+      if (length == utf8.length && rangeEquals(keyStart, utf8)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean rangeEquals(int from, byte[] utf8) {
+    for (int j = 0; j < utf8.length; j++) {
+      if (input[from + j] != utf8[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 根据键获取项，第一次获取时才解析
+   * 取出的数组或对象可以直接修改，之后写出时该值重新写出（即使之后冻结了）
+   *
+   * @throws JsonUnknownFormatException 值的格式错误
+   */
+  public JsonItem getItem(String key) {
+    StatusCheck.checkIfNull(key);
+    int i = indexOf(key);
+    if (i < 0) {
+      return null;
+    }
+    JsonItem value = values[i];
+    if (null == value) {
+      value = parse(i);
+      values[i] = value;
+      if (!value.isFrozen()) {
+        offsets[i * STRIDE + VALUE_START] = -1;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * 解析输入中第 i 个值，只用于未取出的值
+   */
+  private JsonItem parse(int i) {
+    if (null == parser) {
+      parser = new JsonTreeParser();
+    }
+    int o = i * STRIDE;
+    int valueStart = offsets[o + VALUE_START];
+    return parser.parse(ByteBuffer.wrap(input, valueStart, offsets[o + VALUE_END] - valueStart));
+  }
+
+  /**
+   * 添加项，键已存在时替换原来的值，位置不变
+   */
+  public void addItem(String key, JsonItem value) {
+    StatusCheck.checkIfNull(key);
+    if (null == value) {
+      value = JsonNull.getINSTANCE();
+    }
+    int i = indexOf(key);
+    if (i < 0) {
+      append(-1, -1, -1, -1);
+      i = size - 1;
+      names[i] = key;
+    } else {
+      // 原来的值不再写出
+      offsets[i * STRIDE + VALUE_START] = -1;
+    }
+    values[i] = value;
+  }
+
+  /**
+   * 添加属性
+   * 此处属性的值为 Json 基本数据类型
+   */
+  public void addProperty(String key, String value) {
+    addItem(key, newJsonItem(value));
+  }
+
+  /**
+   * 添加属性
+   * 此处属性的值为 Json 基本数据类型
+   */
+  public void addProperty(String key, Number value) {
+    addItem(key, newJsonItem(value));
+  }
+
+  /**
+   * 添加属性
+   * 此处属性的值为 Json 基本数据类型
+   */
+  public void addProperty(String key, Boolean value) {
+    addItem(key, newJsonItem(value));
+  }
+
+  /**
+   * 添加属性
+   * 此处属性的值为 Json 基本数据类型
+   */
+  public void addProperty(String key, Character value) {
+    addItem(key, newJsonItem(value));
+  }
+
+  private static JsonItem newJsonItem(Object obj) {
+    return null == obj ? JsonNull.getINSTANCE() : JsonBasic.valueOf(obj);
+  }
+
+  /**
+   * 移除项（包括所有重复的键），其后的项依次前移，保持原来的顺序
+   */
+  public void removeItem(String key) {
+    StatusCheck.checkIfNull(key);
+    int i;
+    while ((i = indexOf(key)) >= 0) {
+      System.arraycopy(offsets, (i + 1) * STRIDE, offsets, i * STRIDE, (size - i - 1) * STRIDE);
+      System.arraycopy(names, i + 1, names, i, size - i - 1);
+      System.arraycopy(values, i + 1, values, i, size - i - 1);
+      System.arraycopy(checked, i + 1, checked, i, size - i - 1);
+      size--;
+      names[size] = null;
+      values[size] = null;
+      checked[size] = false;
+    }
+  }
+
+  /**
+   * 判断是否包含键
+   */
+  public boolean containsItem(String key) {
+    StatusCheck.checkIfNull(key);
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * 键值对的数量（重复的键分别计数）
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 按顺序排列的所有键，返回的是副本，不能修改
+   */
+  public Set<String> keySet() {
+    Set<String> set = new LinkedHashSet<>(size < 3 ? size + 1 : (int) (size / 0.75f + 1));
+    for (int i = 0; i < size; i++) {
+      set.add(name(i));
+    }
+    return Collections.unmodifiableSet(set);
+  }
+
+  /**
+   * 解析所有的值，得到等价的 {@link JsonObject}，与该对象互不影响
+   */
+  public JsonObject toJsonObject() {
+    return toJsonObject(true);
+  }
+
+  /**
+   * @param copy 是否克隆已取出的值，为 false 时结果与该对象共用这些值，只能用于读取
+   */
+  private JsonObject toJsonObject(boolean copy) {
+    JsonObject obj = new JsonObject(size);
+    for (int i = 0; i < size; i++) {
+      JsonItem value = values[i];
+      if (null == value) {
+        value = parse(i);
+      } else if (copy) {
+        value = value.itemClone();
+      }
+      obj.put(name(i), value);
+    }
+    return obj;
+  }
+
+  /**
+   * 写出：连续的值仍在输入中的键值对整段复制输入中的字节，其余的重新写出
+   */
+  void write(JsonTreeWriter treeWriter, JsonStringWriter w) throws IOException {
+    w.newJsonObject();
+    int runStart = -1;
+    int runEnd = -1;
+    for (int i = 0; i < size; i++) {
+      int o = i * STRIDE;
+      if (offsets[o + VALUE_START] >= 0 && canCopy(i, w)) {
+        if (runStart < 0 || !adjacent(runEnd, offsets[o + KEY_START])) {
+          writeMembers(w, runStart, runEnd);
+          runStart = offsets[o + KEY_START];
+        }
+        runEnd = offsets[o + VALUE_END];
+      } else {
+        writeMembers(w, runStart, runEnd);
+        runStart = -1;
+        w.name(name(i));
+        JsonItem value = values[i];
+        treeWriter.write(null == value ? parse(i) : value, w);
+      }
+    }
+    writeMembers(w, runStart, runEnd);
+    w.finishJsonObject();
+  }
+
+  /**
+   * 第 i 个键值对能否整段复制：其中没有写出目标需要转义的字符，并且格式正确
+   */
+  private boolean canCopy(int i, JsonStringWriter w) {
+    int o = i * STRIDE;
+    int to = offsets[o + VALUE_END];
+    boolean htmlSafe = w.isHtmlSafe();
+    boolean asciiOnly = w.isAsciiOnly();
+    for (int p = offsets[o + KEY_START]; p < to; p++) {
+      byte b = input[p];
+      if (b < 0) {
+        // U+2028、U+2029 的 UTF-8 编码为 E2 80 A8、E2 80 A9
+        if (asciiOnly || b == (byte) 0xE2 && p + 2 < to && input[p + 1] == (byte) 0x80
+                && (input[p + 2] == (byte) 0xA8 || input[p + 2] == (byte) 0xA9)) {
+          return false;
+        }
+      } else if (htmlSafe && (b == '<' || b == '>' || b == '&' || b == '=' || b == '\'')) {
+        return false;
+      }
+    }
+    if (!checked[i]) {
+      checkMember(i);
+      checked[i] = true;
+    }
+    return true;
+  }
+
+  /**
+   * 以 {@link JsonUtf8Reader} 检查第 i 个键值对的键和值，创建时只找出了它们的边界
+   *
+   * @throws JsonUnknownFormatException 格式错误
+   */
+  private void checkMember(int i) {
+    int o = i * STRIDE;
+    checkValue(offsets[o + KEY_START], offsets[o + KEY_END]);
+    checkValue(offsets[o + VALUE_START], offsets[o + VALUE_END]);
+  }
+
+  private void checkValue(int from, int to) {
+    try {
+      JsonUtf8Reader reader = new JsonUtf8Reader(ByteBuffer.wrap(input, from, to - from));
+      reader.skipValue();
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw error("无法识别的值", from, 0);
+      }
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * 两个键值对在输入中是否相邻，即之间只有一个逗号和空白字符（中间的键值对被移除时不相邻）
+   */
+  private boolean adjacent(int end, int nextStart) {
+    for (int i = end; i < nextStart; i++) {
+      byte b = input[i];
+      if (b != ',' && b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void writeMembers(JsonStringWriter w, int from, int to) throws IOException {
+    if (from < 0) {
+      return;
+    }
+    if (w instanceof JsonUtf8Writer) {
+      ((JsonUtf8Writer) w).jsonMembers(input, from, to - from);
+    } else {
+      char[] chars = new String(input, from, to - from, StandardCharsets.UTF_8).toCharArray();
+      w.jsonMembers(chars, 0, chars.length);
+    }
+  }
+
+  /**
+   * 共用输入和冻结的值，其余已取出的值各自克隆，两个对象之后各自的修改互不影响
+   */
+  @Override
+  public JsonItem itemClone() {
+    LazyJsonObject newObj = new LazyJsonObject(this);
+    for (int i = 0; i < size; i++) {
+      if (null != values[i] && !values[i].isFrozen()) {
+        newObj.values[i] = values[i].itemClone();
+      }
+    }
+    return newObj;
+  }
+
+  /**
+   * 取出值会修改内部的状态，因此冻结时解析所有的值，返回冻结的 {@link JsonObject}
+   */
+  @Override
+  public JsonItem freeze() {
+    return toJsonObject().freeze();
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return false;
+  }
+
+  /**
+   * 与 {@link JsonObject} 相同，键值对相同即相等，与顺序无关；解析所有未取出的值后比较
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj instanceof LazyJsonObject) {
+      return toJsonObject(false).equals(((LazyJsonObject) obj).toJsonObject(false));
+    }
+    return obj instanceof JsonObject && toJsonObject(false).equals(obj);
+  }
+
+  /**
+   * 与键值对相同的 {@link JsonObject} 的哈希值相同
+   */
+  @Override
+  public int hashCode() {
+    return toJsonObject(false).hashCode();
+  }
+
+  /**
+   * 只能由调用方创建，放入数组或对象时调用方总是持有
+   */
+  @Override
+  boolean isHandedOut() {
+    return true;
+  }
+}
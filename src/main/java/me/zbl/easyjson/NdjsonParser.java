@@ -0,0 +1,335 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonException;
+import me.zbl.easyjson.exceptions.JsonIOException;
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * 并行解析以换行分隔的 Json（NDJSON，每行一个 Json 值）
+ * <p>
+ * 调用方线程按顺序读取输入，在换行处切分为大约 segmentSize 字节的段，
+ * 每一段交给 executor 解析为 {@link JsonItem} 列表，再在调用方线程中交给 consumer，
+ * 因此 consumer 不必是线程安全的。同时解析的段不超过 maxPendingSegments 个，
+ * 已有这么多段未交给 consumer 时，先等待其中一段完成再读取输入，占用的内存与输入的总大小无关。
+ * <p>
+ * executor 可以是任意的线程池，JDK 21 及以上也可以是
+ * {@code Executors.newVirtualThreadPerTaskExecutor()}。空行（只有空白字符的行）被忽略，
+ * 行尾的 \r 视为空白字符
+ * <p>
+ * 创建后不可变，可以在多个线程之间共用
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class NdjsonParser {
+
+  /**
+   * 默认每一段的字节数
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+  private final Executor executor;
+  private final int segmentSize;
+  private final int maxPendingSegments;
+
+  /**
+   * 使用默认的段大小，同时解析的段不超过处理器数量的两倍
+   */
+  public NdjsonParser(Executor executor) {
+    this(executor, DEFAULT_SEGMENT_SIZE, Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+  }
+
+  /**
+   * @param executor           执行解析任务
+   * @param segmentSize        每一段的字节数，至少为 16，超过该长度的行单独成段
+   * @param maxPendingSegments 已读取但还未交给 consumer 的段的最大数量，至少为 1
+   */
+  public NdjsonParser(Executor executor, int segmentSize, int maxPendingSegments) {
+    StatusCheck.checkIfNull(executor);
+    StatusCheck.checkIfLegal(segmentSize >= 16);
+    StatusCheck.checkIfLegal(maxPendingSegments >= 1);
+    this.executor = executor;
+    this.segmentSize = segmentSize;
+    this.maxPendingSegments = maxPendingSegments;
+  }
+
+  /**
+   * 按在输入中的顺序将每一条记录交给 consumer
+   *
+   * @return 记录的数量
+   */
+  public long forEachOrdered(Path file, Consumer<? super JsonItem> consumer) {
+    return parseFile(file, true, consumer);
+  }
+
+  /**
+   * 按在输入中的顺序将每一条记录交给 consumer，读完后不关闭 in
+   *
+   * @return 记录的数量
+   */
+  public long forEachOrdered(InputStream in, Consumer<? super JsonItem> consumer) {
+    return parse(in, true, consumer);
+  }
+
+  /**
+   * 按段解析完成的顺序将每一条记录交给 consumer，同一段中的记录保持原来的顺序
+   *
+   * @return 记录的数量
+   */
+  public long forEach(Path file, Consumer<? super JsonItem> consumer) {
+    return parseFile(file, false, consumer);
+  }
+
+  /**
+   * 按段解析完成的顺序将每一条记录交给 consumer，同一段中的记录保持原来的顺序，读完后不关闭 in
+   *
+   * @return 记录的数量
+   */
+  public long forEach(InputStream in, Consumer<? super JsonItem> consumer) {
+    return parse(in, false, consumer);
+  }
+
+  private long parseFile(Path file, boolean ordered, Consumer<? super JsonItem> consumer) {
+    StatusCheck.checkIfNull(file);
+    try (InputStream in = Files.newInputStream(file)) {
+      return parse(in, ordered, consumer);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private long parse(InputStream in, boolean ordered, Consumer<? super JsonItem> consumer) {
+    StatusCheck.checkIfNull(in);
+    StatusCheck.checkIfNull(consumer);
+    SegmentSplitter splitter = new SegmentSplitter(in, segmentSize);
+    CompletionService<List<JsonItem>> completion = ordered ? null : new ExecutorCompletionService<List<JsonItem>>(executor);
+    ArrayDeque<Future<List<JsonItem>>> pending = new ArrayDeque<>(maxPendingSegments);
+    long count = 0;
+    try {
+      Segment segment;
+      while (null != (segment = splitter.next())) {
+        if (pending.size() == maxPendingSegments) {
+          count += deliver(nextCompleted(pending, completion), consumer);
+        }
+        if (ordered) {
+          FutureTask<List<JsonItem>> task = new FutureTask<>(segment);
+          pending.add(task);
+          executor.execute(task);
+        } else {
+          pending.add(completion.submit(segment));
+        }
+      }
+      while (!pending.isEmpty()) {
+        count += deliver(nextCompleted(pending, completion), consumer);
+      }
+      return count;
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    } finally {
+      // 出错时取消剩余的段
+      for (Future<List<JsonItem>> f : pending) {
+        f.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * 顺序模式下取最早提交的段，否则取最先完成的段，等待其完成
+   */
+  private static List<JsonItem> nextCompleted(ArrayDeque<Future<List<JsonItem>>> pending,
+                                              CompletionService<List<JsonItem>> completion) {
+    try {
+      if (null == completion) {
+        return pending.poll().get();
+      }
+      Future<List<JsonItem>> done = completion.take();
+      pending.remove(done);
+      return done.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JsonIOException("等待解析结果时被中断", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new JsonException(cause);
+    }
+  }
+
+  private static int deliver(List<JsonItem> records, Consumer<? super JsonItem> consumer) {
+    for (JsonItem record : records) {
+      consumer.accept(record);
+    }
+    return records.size();
+  }
+
+  /**
+   * 一段完整的行，解析为记录列表
+   */
+  private static final class Segment implements Callable<List<JsonItem>> {
+
+    private final byte[] bytes;
+    private final int length;
+    /**
+     * 该段在输入中的偏移
+     */
+    private final long offset;
+
+    Segment(byte[] bytes, int length, long offset) {
+      this.bytes = bytes;
+      this.length = length;
+      this.offset = offset;
+    }
+
+    @Override
+    public List<JsonItem> call() {
+      JsonTreeParser parser = new JsonTreeParser();
+      List<JsonItem> records = new ArrayList<>();
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      int start = 0;
+      while (start < length) {
+        int end = start;
+        while (end < length && bytes[end] != '\n') {
+          end++;
+        }
+        int s = start;
+        while (s < end && isWhitespace(bytes[s])) {
+          s++;
+        }
+        if (s < end) {
+          // 先设置 limit 再设置 position，保证 position 不超过 limit
+          ((Buffer) buffer).limit(end);
+          ((Buffer) buffer).position(s);
+          try {
+            records.add(parser.parse(buffer));
+          } catch (RuntimeException e) {
+            throw new JsonUnknownFormatException("位于第 " + (offset + s) + " 个字节的记录格式错误", e);
+          }
+          ((Buffer) buffer).clear();
+        }
+        start = end + 1;
+      }
+      return records;
+    }
+
+    private static boolean isWhitespace(byte b) {
+      return b == ' ' || b == '\t' || b == '\r';
+    }
+  }
+
+  /**
+   * 从输入流中按顺序读出在换行处结束的段
+   */
+  private static final class SegmentSplitter {
+
+    private final InputStream in;
+    private final int segmentSize;
+    /**
+     * 上一段之后已经读出但不完整的行
+     */
+    private byte[] tail = new byte[0];
+    private int tailLength;
+    private long offset;
+    private boolean eof;
+
+    SegmentSplitter(InputStream in, int segmentSize) {
+      this.in = in;
+      this.segmentSize = segmentSize;
+    }
+
+    /**
+     * 读取下一段，输入已读完时返回 null
+     */
+    Segment next() throws IOException {
+      if (eof && tailLength == 0) {
+        return null;
+      }
+      byte[] buf = new byte[Math.max(segmentSize, tailLength * 2)];
+      System.arraycopy(tail, 0, buf, 0, tailLength);
+      int filled = tailLength;
+      int searched = 0;
+      while (true) {
+        while (!eof && filled < buf.length) {
+          int n = in.read(buf, filled, buf.length - filled);
+          if (n < 0) {
+            eof = true;
+          } else {
+            filled += n;
+          }
+        }
+        if (eof) {
+          tailLength = 0;
+          return segment(buf, filled);
+        }
+        int lastNewline = lastIndexOf(buf, '\n', searched, filled);
+        if (lastNewline >= 0) {
+          int length = lastNewline + 1;
+          tailLength = filled - length;
+          if (tail.length < tailLength) {
+            tail = new byte[Math.max(tailLength, tail.length * 2)];
+          }
+          System.arraycopy(buf, length, tail, 0, tailLength);
+          return segment(buf, length);
+        }
+        // 一行超过了段的长度，扩大后继续读
+        searched = filled;
+        buf = Arrays.copyOf(buf, buf.length * 2);
+      }
+    }
+
+    private Segment segment(byte[] buf, int length) {
+      Segment segment = new Segment(buf, length, offset);
+      offset += length;
+      return segment;
+    }
+
+    private static int lastIndexOf(byte[] bytes, char c, int from, int to) {
+      for (int i = to - 1; i >= from; i--) {
+        if (bytes[i] == c) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+}
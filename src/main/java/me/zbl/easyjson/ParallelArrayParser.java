@@ -0,0 +1,337 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonException;
+import me.zbl.easyjson.exceptions.JsonIOException;
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.io.JsonReader;
+import me.zbl.easyjson.io.JsonUtf8Reader;
+import me.zbl.easyjson.io.lexical.JsonToken;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 并行解析顶级元素为数组的大文档，结果按原来的顺序排列
+ * <p>
+ * 分两个阶段：调用方线程用 {@link ArrayElementScanner} 扫描一遍输入，只跟踪字符串和括号，
+ * 找出顶级数组各元素的边界，每凑够大约 batchSize 个字节的元素就作为一批交给 executor；
+ * 各批在 executor 中再找出其中每个元素的边界并解析。扫描与解析同时进行。
+ * <p>
+ * 输入为文件时按窗口映射，可以读取超过 2 GB 的文件（单个元素不能超过 2 GB）。
+ * 创建后不可变，可以在多个线程之间共用
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class ParallelArrayParser {
+
+  /**
+   * 默认每一批元素的字节数
+   */
+  public static final int DEFAULT_BATCH_SIZE = 1024 * 1024;
+
+  /**
+   * 扫描文件时每次映射的字节数
+   */
+  private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * 从元素中读出结果
+   * 会在多个线程中同时调用，每次调用的 JsonReader 各不相同
+   */
+  public interface ElementReader<T> {
+
+    /**
+     * 读取一个元素，reader 中只有该元素，读完后不能有剩余
+     */
+    T read(JsonReader reader) throws IOException;
+  }
+
+  private final Executor executor;
+  private final int batchSize;
+
+  /**
+   * 使用默认的批大小
+   */
+  public ParallelArrayParser(Executor executor) {
+    this(executor, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * @param executor  执行解析任务
+   * @param batchSize 每一批元素的字节数，至少为 1
+   */
+  public ParallelArrayParser(Executor executor, int batchSize) {
+    StatusCheck.checkIfNull(executor);
+    StatusCheck.checkIfLegal(batchSize >= 1);
+    this.executor = executor;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * 将缓冲区中 position 到 limit 之间以 UTF-8 编码的数组解析为元素列表
+   */
+  public List<JsonItem> parse(ByteBuffer utf8) {
+    return parse(utf8, null);
+  }
+
+  /**
+   * 将缓冲区中 position 到 limit 之间以 UTF-8 编码的数组的每个元素交给 elementReader 读取
+   */
+  public <T> List<T> parse(ByteBuffer utf8, ElementReader<T> elementReader) {
+    StatusCheck.checkIfNull(utf8);
+    return parse(new BufferSource(utf8), elementReader);
+  }
+
+  /**
+   * 将以 UTF-8 编码的数组文件解析为元素列表
+   */
+  public List<JsonItem> parse(Path file) {
+    return parse(file, null);
+  }
+
+  /**
+   * 将以 UTF-8 编码的数组文件的每个元素交给 elementReader 读取
+   */
+  public <T> List<T> parse(Path file, ElementReader<T> elementReader) {
+    StatusCheck.checkIfNull(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return parse(new ChannelSource(channel), elementReader);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private <T> List<T> parse(Source source, ElementReader<T> elementReader) {
+    Batcher<T> batcher = new Batcher<>(source, elementReader);
+    boolean done = false;
+    try {
+      ArrayElementScanner scanner = ArrayElementScanner.document(batcher);
+      long size = source.size();
+      for (long p = 0; p < size; p += WINDOW_SIZE) {
+        int length = (int) Math.min(WINDOW_SIZE, size - p);
+        scanner.scan(source.map(p, length), 0, length, p);
+      }
+      scanner.finish(size);
+      batcher.submit();
+      List<T> result = new ArrayList<>(batcher.total);
+      for (FutureTask<List<T>> task : batcher.batches) {
+        result.addAll(task.get());
+      }
+      done = true;
+      return result;
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JsonIOException("等待解析结果时被中断", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new JsonException(cause);
+    } finally {
+      if (!done) {
+        // 出错时取消剩余的批
+        for (FutureTask<List<T>> task : batcher.batches) {
+          task.cancel(true);
+        }
+      }
+    }
+  }
+
+  /**
+   * 将扫描到的元素凑成批，交给 executor 解析
+   */
+  private final class Batcher<T> implements ArrayElementScanner.Listener {
+
+    private final Source source;
+    private final ElementReader<T> elementReader;
+    private final List<FutureTask<List<T>>> batches = new ArrayList<>();
+    private long batchStart = -1;
+    private long batchEnd;
+    private int count;
+    private int total;
+
+    Batcher(Source source, ElementReader<T> elementReader) {
+      this.source = source;
+      this.elementReader = elementReader;
+    }
+
+    @Override
+    public void element(long start, long end) {
+      if (batchStart < 0) {
+        batchStart = start;
+      }
+      batchEnd = end;
+      count++;
+      if (batchEnd - batchStart >= batchSize) {
+        submit();
+      }
+    }
+
+    /**
+     * 提交已凑到的元素
+     */
+    void submit() {
+      if (count == 0) {
+        return;
+      }
+      FutureTask<List<T>> task = new FutureTask<>(new Batch<>(source, batchStart, batchEnd, count, elementReader));
+      batches.add(task);
+      executor.execute(task);
+      total += count;
+      batchStart = -1;
+      count = 0;
+    }
+  }
+
+  /**
+   * 一批连续的元素（以逗号分隔，不含方括号）
+   */
+  private static final class Batch<T> implements Callable<List<T>> {
+
+    private final Source source;
+    private final long start;
+    private final long end;
+    private final int count;
+    private final ElementReader<T> elementReader;
+
+    Batch(Source source, long start, long end, int count, ElementReader<T> elementReader) {
+      this.source = source;
+      this.start = start;
+      this.end = end;
+      this.count = count;
+      this.elementReader = elementReader;
+    }
+
+    @Override
+    public List<T> call() throws IOException {
+      if (end - start > Integer.MAX_VALUE) {
+        throw new JsonUnknownFormatException("位于第 " + start + " 个字节的元素超过 2 GB");
+      }
+      int length = (int) (end - start);
+      final ByteBuffer window = source.map(start, length);
+      final ByteBuffer element = window.duplicate();
+      final JsonTreeParser treeParser = null == elementReader ? new JsonTreeParser() : null;
+      final List<T> items = new ArrayList<>(count);
+      ArrayElementScanner scanner = ArrayElementScanner.elements(new ArrayElementScanner.Listener() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void element(long s, long e) {
+          ((Buffer) element).clear();
+          ((Buffer) element).position((int) (s - start));
+          ((Buffer) element).limit((int) (e - start));
+          try {
+            if (null == treeParser) {
+              items.add(read(element));
+            } else {
+              items.add((T) treeParser.parse(element));
+            }
+          } catch (IOException | RuntimeException ex) {
+            throw new JsonUnknownFormatException("位于第 " + s + " 个字节的元素格式错误", ex);
+          }
+        }
+      });
+      scanner.scan(window, 0, length, start);
+      scanner.finish(end);
+      return items;
+    }
+
+    private T read(ByteBuffer element) throws IOException {
+      JsonUtf8Reader reader = new JsonUtf8Reader(element);
+      T value = elementReader.read(reader);
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonUnknownFormatException("元素之后还有其它内容");
+      }
+      return value;
+    }
+  }
+
+  /**
+   * 按偏移读取的输入
+   */
+  private abstract static class Source {
+
+    abstract long size() throws IOException;
+
+    /**
+     * 获取 [start, start + length) 范围内的字节，返回的缓冲区中的位置 0 对应 start
+     */
+    abstract ByteBuffer map(long start, int length) throws IOException;
+  }
+
+  private static final class BufferSource extends Source {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+
+    BufferSource(ByteBuffer buffer) {
+      this.buffer = buffer.duplicate();
+      this.offset = buffer.position();
+    }
+
+    @Override
+    long size() {
+      return buffer.limit() - offset;
+    }
+
+    @Override
+    ByteBuffer map(long start, int length) {
+      ByteBuffer b = buffer.duplicate();
+      ((Buffer) b).limit(offset + (int) start + length);
+      ((Buffer) b).position(offset + (int) start);
+      return b.slice();
+    }
+  }
+
+  private static final class ChannelSource extends Source {
+
+    private final FileChannel channel;
+
+    ChannelSource(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    long size() throws IOException {
+      return channel.size();
+    }
+
+    @Override
+    ByteBuffer map(long start, int length) throws IOException {
+      return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.data;
+
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 对象的键的符号表，让内容相同的键共用同一个 String 对象
+ * <p>
+ * 容量固定，每个键只能放在按哈希值确定的两个位置之一，位置都被占用时替换原来的键，
+ * 因此不会无限增长；较长的键不放入表中。可以直接按字符或 UTF-8 字节的区间查找，
+ * 表中已有该键时不创建任何对象。
+ * <p>
+ * 多个线程可以同时使用，不加锁：String 不可变，读到的总是完整的对象，
+ * 并发放入时可能有一个被覆盖，只是少共用一次，不会返回错误的结果
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class SymbolTable {
+
+  /**
+   * 放入表中的键的最大长度
+   */
+  public static final int MAX_SYMBOL_LENGTH = 64;
+
+  private static final SymbolTable DEFAULT = new SymbolTable(4096);
+
+  private final String[] symbols;
+  private final int mask;
+
+  /**
+   * @param capacity 最多保存的键的个数，向上取整为 2 的幂
+   */
+  public SymbolTable(int capacity) {
+    StatusCheck.checkIfLegal(capacity >= 2 && capacity <= 1 << 30);
+    int size = Integer.highestOneBit(capacity - 1) << 1;
+    this.symbols = new String[size];
+    this.mask = size - 1;
+  }
+
+  /**
+   * 解析和构建 {@link me.zbl.easyjson.JsonObject} 时默认使用的符号表
+   */
+  public static SymbolTable getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * 获取与 s 内容相同的键，表中没有时放入 s
+   */
+  public String intern(String s) {
+    int length = s.length();
+    if (length > MAX_SYMBOL_LENGTH) {
+      return s;
+    }
+    int slot = slot(s.hashCode());
+    String symbol = symbols[slot];
+    if (s.equals(symbol)) {
+      return symbol;
+    }
+    int next = (slot + 1) & mask;
+    String other = symbols[next];
+    if (s.equals(other)) {
+      return other;
+    }
+    symbols[null == symbol || null != other ? slot : next] = s;
+    return s;
+  }
+
+  /**
+   * 获取内容与字符区间相同的键，表中已有时不创建 String
+   */
+  public String intern(char[] chars, int offset, int length) {
+    if (length > MAX_SYMBOL_LENGTH) {
+      return new String(chars, offset, length);
+    }
+    int h = 0;
+    for (int i = 0; i < length; i++) {
+      h = 31 * h + chars[offset + i];
+    }
+    int slot = slot(h);
+    String symbol = symbols[slot];
+    if (matches(symbol, chars, offset, length)) {
+      return symbol;
+    }
+    int next = (slot + 1) & mask;
+    String other = symbols[next];
+    if (matches(other, chars, offset, length)) {
+      return other;
+    }
+    String s = new String(chars, offset, length);
+    symbols[null == symbol || null != other ? slot : next] = s;
+    return s;
+  }
+
+  /**
+   * 获取内容与 UTF-8 字节区间（不含转义序列）解码后相同的键，
+   * 全部为 ASCII 字符且表中已有时不创建 String
+   */
+  public String intern(byte[] utf8, int offset, int length) {
+    if (length > MAX_SYMBOL_LENGTH) {
+      return new String(utf8, offset, length, StandardCharsets.UTF_8);
+    }
+    int h = 0;
+    for (int i = 0; i < length; i++) {
+      byte b = utf8[offset + i];
+      if (b < 0) {
+        // 非 ASCII 字符，先解码
+        return intern(new String(utf8, offset, length, StandardCharsets.UTF_8));
+      }
+      h = 31 * h + b;
+    }
+    int slot = slot(h);
+    String symbol = symbols[slot];
+    if (matches(symbol, utf8, offset, length)) {
+      return symbol;
+    }
+    int next = (slot + 1) & mask;
+    String other = symbols[next];
+    if (matches(other, utf8, offset, length)) {
+      return other;
+    }
+    String s = new String(utf8, offset, length, StandardCharsets.ISO_8859_1);
+    symbols[null == symbol || null != other ? slot : next] = s;
+    return s;
+  }
+
+  private int slot(int h) {
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  private static boolean matches(String symbol, char[] chars, int offset, int length) {
+    if (null == symbol || symbol.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (symbol.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean matches(String symbol, byte[] ascii, int offset, int length) {
+    if (null == symbol || symbol.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (symbol.charAt(i) != ascii[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
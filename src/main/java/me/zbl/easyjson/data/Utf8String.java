@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 以 UTF-8 字节保存的字符串，第一次使用时才解码
+ * <p>
+ * 字节为 Json 字符串两个引号之间的原始内容，可以包含转义序列，解码时一并处理。
+ * 相等性和哈希值与解码后的 {@link String} 相同
+ *
+ * @author JamesZBL
+ * @date 2018-02-14
+ */
+public final class Utf8String implements CharSequence {
+
+  private final byte[] bytes;
+  /**
+   * 是否包含转义序列
+   */
+  private final boolean escaped;
+  private String decoded;
+
+  /**
+   * @param bytes   UTF-8 字节，不再复制，调用方之后不能修改
+   * @param escaped 是否包含 Json 转义序列
+   */
+  public Utf8String(byte[] bytes, boolean escaped) {
+    this.bytes = bytes;
+    this.escaped = escaped;
+  }
+
+  /**
+   * UTF-8 字节的长度
+   */
+  public int byteLength() {
+    return bytes.length;
+  }
+
+  @Override
+  public String toString() {
+    String s = decoded;
+    if (null == s) {
+      s = decode(bytes, 0, bytes.length, escaped);
+      decoded = s;
+    }
+    return s;
+  }
+
+  @Override
+  public int length() {
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+
+  @Override
+  public int hashCode() {
+    return toString().hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    } else if (obj instanceof Utf8String) {
+      Utf8String origin = (Utf8String) obj;
+      if (!escaped && !origin.escaped) {
+        // 不含转义序列时字节与字符串一一对应，不必解码
+        return Arrays.equals(bytes, origin.bytes);
+      }
+      return toString().equals(origin.toString());
+    }
+    return false;
+  }
+
+  /**
+   * 解码 UTF-8 字节，并处理其中的 Json 转义序列
+   * 转义序列需已经过检查，非法的 UTF-8 字节解码为 U+FFFD
+   *
+   * @param escaped 是否包含转义序列，为 false 时直接解码
+   */
+  public static String decode(byte[] bytes, int offset, int length, boolean escaped) {
+    if (!escaped) {
+      return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+    StringBuilder builder = new StringBuilder(length);
+    int end = offset + length;
+    int start = offset;
+    int i = offset;
+    while (i < end) {
+      if (bytes[i] != '\\') {
+        i++;
+        continue;
+      }
+      if (i > start) {
+        builder.append(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+      }
+      byte c = bytes[i + 1];
+      i += 2;
+      switch (c) {
+        case 'b':
+          builder.append('\b');
+          break;
+        case 'f':
+          builder.append('\f');
+          break;
+        case 'n':
+          builder.append('\n');
+          break;
+        case 'r':
+          builder.append('\r');
+          break;
+        case 't':
+          builder.append('\t');
+          break;
+        case 'u':
+          int value = 0;
+          for (int j = 0; j < 4; j++) {
+            value = value << 4 | Character.digit(bytes[i++], 16);
+          }
+          builder.append((char) value);
+          break;
+        default:
+          // " \ /
+          builder.append((char) c);
+          break;
+      }
+      start = i;
+    }
+    if (end > start) {
+      builder.append(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+    }
+    return builder.toString();
+  }
+}
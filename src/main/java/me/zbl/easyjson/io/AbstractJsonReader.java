@@ -0,0 +1,586 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.data.StringNumber;
+import me.zbl.easyjson.data.SymbolTable;
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.io.lexical.JsonLexical;
+import me.zbl.easyjson.io.lexical.JsonNumberKind;
+import me.zbl.easyjson.io.lexical.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link JsonStringReader} 与 {@link JsonUtf8Reader} 共用的词法分析
+ * <p>
+ * 以 {@link JsonLexical} 栈记录当前所处的作用域，根据作用域读取下一个记号，检查结构符号、字面量和数值的格式。
+ * 子类只负责访问各自的缓冲区：查看指定位置的输入、跳过空白、读取和跳过字符串、取出数值
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+abstract class AbstractJsonReader implements JsonReader {
+
+  /**
+   * 下一个未读的字符（UTF-8 输入为字节）在缓冲区中的位置
+   */
+  int pos;
+  /**
+   * 缓冲区中有效内容的结束位置
+   */
+  int limit;
+  /**
+   * 缓冲区的开始位置在整个输入中的偏移，用于给出出错的位置
+   */
+  long bufferOffset;
+  /**
+   * 以栈的形式存储词法上下文
+   */
+  private JsonLexical[] contextStack = new JsonLexical[32];
+  private int contextStackSize = 0;
+  /**
+   * 已经读到但还未被消费的记号，为 null 表示还未读取
+   */
+  JsonToken peeked;
+  private boolean peekedBoolean;
+  /**
+   * 数值记号在缓冲区中从 {@link #pos} 开始的长度
+   */
+  int peekedNumberLength;
+  private boolean peekedNumberIntegral;
+  private JsonNumberKind peekedNumberKind;
+  /**
+   * 读键时使用的符号表，为 null 时不共用键
+   */
+  private SymbolTable symbolTable = SymbolTable.getDefault();
+
+  AbstractJsonReader() {
+    stackPush(JsonLexical.DOCUMENT_WITHOUT_ANY_ELEMENTS);
+  }
+
+  /**
+   * 获取 {@link #pos} 之后第 i 个字符（UTF-8 输入为字节，0 ~ 255），不消费，输入结束时返回 -1
+   */
+  abstract int charAt(int i) throws IOException;
+
+  /**
+   * 消费并返回下一个非空白字符（UTF-8 输入为字节），输入结束时返回 -1
+   */
+  abstract int nextNonWhitespace() throws IOException;
+
+  /**
+   * 跳过输入开头的字节顺序标记
+   */
+  abstract void skipByteOrderMark() throws IOException;
+
+  /**
+   * 读字符串的剩余部分（开头的引号已被消费）
+   *
+   * @param symbols 不为 null 时从中查找相同的字符串（读键时）
+   */
+  abstract String readString(SymbolTable symbols) throws IOException;
+
+  /**
+   * 跳过字符串的剩余部分（开头的引号已被消费），不创建任何对象
+   */
+  abstract void skipString() throws IOException;
+
+  /**
+   * 从 {@link #pos} 开始、长度为 {@link #peekedNumberLength} 的数值的原样字符串
+   */
+  abstract String numberString();
+
+  /**
+   * 直接从缓冲区中解析从 {@link #pos} 开始的整数，超出 long 的范围时抛出 {@link #numberOverflow()}
+   */
+  abstract long parseLong();
+
+  private void stackPush(JsonLexical lexical) {
+    if (contextStackSize == contextStack.length) {
+      contextStack = Arrays.copyOf(contextStack, contextStackSize * 2);
+    }
+    contextStack[contextStackSize++] = lexical;
+  }
+
+  private JsonLexical stackLast() {
+    return contextStack[contextStackSize - 1];
+  }
+
+  private void stackKick(JsonLexical lexical) {
+    contextStack[contextStackSize - 1] = lexical;
+  }
+
+  /**
+   * 设置读键时使用的符号表，默认为 {@link SymbolTable#getDefault()}，为 null 时每个键都创建新的字符串
+   */
+  public void setSymbolTable(SymbolTable symbolTable) {
+    this.symbolTable = symbolTable;
+  }
+
+  public SymbolTable getSymbolTable() {
+    return symbolTable;
+  }
+
+  /**
+   * 查看下一个记号，不消费
+   */
+  @Override
+  public JsonToken peek() throws IOException {
+    if (null == peeked) {
+      peeked = doPeek();
+    }
+    return peeked;
+  }
+
+  /**
+   * 根据当前的作用域读取下一个记号
+   * 结构符号（括号、逗号、冒号）、字符串开头的引号以及 true、false、null 在此处被消费，
+   * 数值只确定长度，由 next 方法消费
+   */
+  private JsonToken doPeek() throws IOException {
+    JsonLexical last = stackLast();
+    int c;
+    switch (last) {
+      case DOCUMENT_WITHOUT_ANY_ELEMENTS:
+        stackKick(JsonLexical.DOCUMENT_WITH_ELEMENTS);
+        skipByteOrderMark();
+        return readValue(nextNonWhitespace());
+      case DOCUMENT_WITH_ELEMENTS:
+        c = nextNonWhitespace();
+        if (c != -1) {
+          throw syntaxError("存在多个顶级元素");
+        }
+        stackKick(JsonLexical.DOCUMENT_ENDED);
+        return JsonToken.END_DOCUMENT;
+      case DOCUMENT_ENDED:
+        return JsonToken.END_DOCUMENT;
+      case ARRAY_WITHOUT_ELEMENT:
+        c = nextNonWhitespace();
+        if (c == ']') {
+          return JsonToken.END_ARRAY;
+        }
+        stackKick(JsonLexical.ARRAY_WITH_ELEMENTS);
+        return readValue(c);
+      case ARRAY_WITH_ELEMENTS:
+        c = nextNonWhitespace();
+        if (c == ']') {
+          return JsonToken.END_ARRAY;
+        } else if (c != ',') {
+          throw syntaxError("数组元素之间缺少逗号");
+        }
+        return readValue(nextNonWhitespace());
+      case OBJECT_WITHOUT_ATTRIBUTE:
+        c = nextNonWhitespace();
+        if (c == '}') {
+          return JsonToken.END_OBJECT;
+        }
+        return readName(c);
+      case OBJECT_WITH_ATTRIBUTES:
+        c = nextNonWhitespace();
+        if (c == '}') {
+          return JsonToken.END_OBJECT;
+        } else if (c != ',') {
+          throw syntaxError("键值对之间缺少逗号");
+        }
+        return readName(nextNonWhitespace());
+      case NAME_OF_PAIR:
+        if (nextNonWhitespace() != ':') {
+          throw syntaxError("键之后缺少冒号");
+        }
+        stackKick(JsonLexical.OBJECT_WITH_ATTRIBUTES);
+        return readValue(nextNonWhitespace());
+      default:
+        throw new IllegalStateException("词法状态不正确！");
+    }
+  }
+
+  private JsonToken readName(int c) {
+    if (c != '"') {
+      throw syntaxError("键必须是字符串");
+    }
+    stackKick(JsonLexical.NAME_OF_PAIR);
+    return JsonToken.NAME;
+  }
+
+  /**
+   * @param c 值的第一个字符，已被消费
+   */
+  private JsonToken readValue(int c) throws IOException {
+    switch (c) {
+      case '{':
+        return JsonToken.BEGIN_OBJECT;
+      case '[':
+        return JsonToken.BEGIN_ARRAY;
+      case '"':
+        return JsonToken.STRING;
+      case 't':
+        readLiteral("rue");
+        peekedBoolean = true;
+        return JsonToken.BOOLEAN;
+      case 'f':
+        readLiteral("alse");
+        peekedBoolean = false;
+        return JsonToken.BOOLEAN;
+      case 'n':
+        readLiteral("ull");
+        return JsonToken.NULL;
+      case -1:
+        throw syntaxError("输入意外结束");
+      default:
+        if (c == '-' || c >= '0' && c <= '9') {
+          pos--;
+          scanNumber();
+          return JsonToken.NUMBER;
+        }
+        // 可见的 ASCII 字符原样给出，其它的给出编码
+        throw syntaxError("无法识别的字符 " + (c > ' ' && c < 0x7F ? "'" + (char) c + "'" : "0x" + Integer.toHexString(c)));
+    }
+  }
+
+  /**
+   * 消费 true、false、null 除第一个字符之外的部分
+   */
+  private void readLiteral(String rest) throws IOException {
+    int length = rest.length();
+    for (int i = 0; i < length; i++) {
+      if (charAt(i) != rest.charAt(i)) {
+        throw syntaxError("无法识别的值");
+      }
+    }
+    pos += length;
+    if (!isDelimiter(charAt(0))) {
+      throw syntaxError("无法识别的值");
+    }
+  }
+
+  /**
+   * 确定从 {@link #pos} 开始的数值的长度，并检查格式
+   */
+  private void scanNumber() throws IOException {
+    int i = 0;
+    int c = charAt(i);
+    int sign = 0;
+    if (c == '-') {
+      sign = 1;
+      c = charAt(++i);
+    }
+    if (c == '0') {
+      c = charAt(++i);
+    } else if (c >= '1' && c <= '9') {
+      do {
+        c = charAt(++i);
+      } while (c >= '0' && c <= '9');
+    } else {
+      throw syntaxError("数值格式错误");
+    }
+    boolean integral = true;
+    if (c == '.') {
+      integral = false;
+      c = charAt(++i);
+      if (c < '0' || c > '9') {
+        throw syntaxError("数值格式错误");
+      }
+      do {
+        c = charAt(++i);
+      } while (c >= '0' && c <= '9');
+    }
+    int digits = i - sign - (integral ? 0 : 1);
+    int exponentDigits = 0;
+    if (c == 'e' || c == 'E') {
+      integral = false;
+      c = charAt(++i);
+      if (c == '+' || c == '-') {
+        c = charAt(++i);
+      }
+      if (c < '0' || c > '9') {
+        throw syntaxError("数值格式错误");
+      }
+      do {
+        c = charAt(++i);
+        exponentDigits++;
+      } while (c >= '0' && c <= '9');
+    }
+    if (!isDelimiter(c)) {
+      throw syntaxError("数值格式错误");
+    }
+    peekedNumberLength = i;
+    peekedNumberIntegral = integral;
+    if (integral) {
+      peekedNumberKind = digits <= 18 ? JsonNumberKind.LONG : JsonNumberKind.DECIMAL;
+    } else {
+      peekedNumberKind = digits <= 15 && exponentDigits <= 2 ? JsonNumberKind.DOUBLE : JsonNumberKind.DECIMAL;
+    }
+  }
+
+  /**
+   * 值之后只能是空白、逗号、右括号或输入的结束
+   */
+  private static boolean isDelimiter(int c) {
+    switch (c) {
+      case -1:
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\r':
+      case ',':
+      case ']':
+      case '}':
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  void expect(JsonToken expected) throws IOException {
+    JsonToken token = peek();
+    if (token != expected) {
+      throw new IllegalStateException("期望 " + expected + "，实际为 " + token + "（位置 " + (bufferOffset + pos) + "）");
+    }
+    peeked = null;
+  }
+
+  /**
+   * 当前数组或对象中是否还有元素
+   */
+  @Override
+  public boolean hasNext() throws IOException {
+    JsonToken token = peek();
+    return token != JsonToken.END_ARRAY && token != JsonToken.END_OBJECT && token != JsonToken.END_DOCUMENT;
+  }
+
+  /**
+   * 开始读数组
+   */
+  @Override
+  public void beginJsonArray() throws IOException {
+    expect(JsonToken.BEGIN_ARRAY);
+    stackPush(JsonLexical.ARRAY_WITHOUT_ELEMENT);
+  }
+
+  /**
+   * 结束读数组
+   */
+  @Override
+  public void endJsonArray() throws IOException {
+    expect(JsonToken.END_ARRAY);
+    contextStackSize--;
+  }
+
+  /**
+   * 开始读对象
+   */
+  @Override
+  public void beginJsonObject() throws IOException {
+    expect(JsonToken.BEGIN_OBJECT);
+    stackPush(JsonLexical.OBJECT_WITHOUT_ATTRIBUTE);
+  }
+
+  /**
+   * 结束读对象
+   */
+  @Override
+  public void endJsonObject() throws IOException {
+    expect(JsonToken.END_OBJECT);
+    contextStackSize--;
+  }
+
+  /**
+   * 读键
+   */
+  @Override
+  public String nextName() throws IOException {
+    expect(JsonToken.NAME);
+    return readString(symbolTable);
+  }
+
+  /**
+   * 读字符串，数值以原样的字符串返回
+   */
+  @Override
+  public String nextString() throws IOException {
+    if (peek() == JsonToken.NUMBER) {
+      String s = numberString();
+      consumeNumber();
+      return s;
+    }
+    expect(JsonToken.STRING);
+    return readString(null);
+  }
+
+  @Override
+  public boolean nextBoolean() throws IOException {
+    expect(JsonToken.BOOLEAN);
+    return peekedBoolean;
+  }
+
+  @Override
+  public void nextNull() throws IOException {
+    expect(JsonToken.NULL);
+  }
+
+  /**
+   * 读数值，以原样的字符串保存，不损失精度
+   */
+  @Override
+  public StringNumber nextNumber() throws IOException {
+    expectNumber();
+    String s = numberString();
+    consumeNumber();
+    return new StringNumber(s);
+  }
+
+  /**
+   * 读 long 型的数值，不创建任何对象
+   *
+   * @throws NumberFormatException 数值不是整数或超出 long 的范围
+   */
+  @Override
+  public long nextLong() throws IOException {
+    long value = peekLong();
+    consumeNumber();
+    return value;
+  }
+
+  /**
+   * 将数值解析为 long 型，不消费
+   */
+  private long peekLong() throws IOException {
+    expectNumber();
+    long value;
+    if (peekedNumberIntegral) {
+      value = parseLong();
+    } else {
+      String s = numberString();
+      double d = Double.parseDouble(s);
+      value = (long) d;
+      if (value != d || d >= 0x1p63) {
+        throw new NumberFormatException("不是 long 型的数值：" + s);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * 读 int 型的数值
+   *
+   * @throws NumberFormatException 数值不是整数或超出 int 的范围
+   */
+  @Override
+  public int nextInt() throws IOException {
+    long value = peekLong();
+    if (value != (int) value) {
+      throw new NumberFormatException("不是 int 型的数值：" + value + "（位置 " + (bufferOffset + pos) + "）");
+    }
+    consumeNumber();
+    return (int) value;
+  }
+
+  @Override
+  public double nextDouble() throws IOException {
+    expectNumber();
+    double value = Double.parseDouble(numberString());
+    consumeNumber();
+    return value;
+  }
+
+  @Override
+  public JsonNumberKind peekNumberKind() throws IOException {
+    expectNumber();
+    return peekedNumberKind;
+  }
+
+  private void expectNumber() throws IOException {
+    JsonToken token = peek();
+    if (token != JsonToken.NUMBER) {
+      throw new IllegalStateException("期望 NUMBER，实际为 " + token + "（位置 " + (bufferOffset + pos) + "）");
+    }
+  }
+
+  private void consumeNumber() {
+    pos += peekedNumberLength;
+    peeked = null;
+  }
+
+  NumberFormatException numberOverflow() {
+    return new NumberFormatException("超出 long 的范围：" + numberString());
+  }
+
+  /**
+   * 跳过下一个值（包括其中嵌套的所有值），不创建任何对象
+   * 在键的位置调用时只跳过该键
+   */
+  @Override
+  public void skipValue() throws IOException {
+    int depth = 0;
+    do {
+      JsonToken token = peek();
+      switch (token) {
+        case BEGIN_ARRAY:
+          beginJsonArray();
+          depth++;
+          break;
+        case BEGIN_OBJECT:
+          beginJsonObject();
+          depth++;
+          break;
+        case END_ARRAY:
+          if (depth == 0) {
+            throw new IllegalStateException("没有可以跳过的值！");
+          }
+          endJsonArray();
+          depth--;
+          break;
+        case END_OBJECT:
+          if (depth == 0) {
+            throw new IllegalStateException("没有可以跳过的值！");
+          }
+          endJsonObject();
+          depth--;
+          break;
+        case NAME:
+        case STRING:
+          peeked = null;
+          skipString();
+          break;
+        case NUMBER:
+          consumeNumber();
+          break;
+        case END_DOCUMENT:
+          throw new IllegalStateException("没有可以跳过的值！");
+        default:
+          peeked = null;
+          break;
+      }
+    } while (depth > 0);
+  }
+
+  JsonUnknownFormatException syntaxError(String message) {
+    return new JsonUnknownFormatException(message + "（位置 " + (bufferOffset + pos) + "）");
+  }
+
+  /**
+   * 结束读取，此后只能读到 {@link JsonToken#END_DOCUMENT}，子类在此基础上关闭各自的输入
+   */
+  @Override
+  public void close() throws IOException {
+    peeked = null;
+    contextStackSize = 1;
+    stackKick(JsonLexical.DOCUMENT_ENDED);
+  }
+}
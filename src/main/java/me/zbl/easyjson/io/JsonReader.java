@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.data.StringNumber;
+import me.zbl.easyjson.io.lexical.JsonNumberKind;
+import me.zbl.easyjson.io.lexical.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 以拉取的方式逐个读取 Json 记号
+ * <p>
+ * 字符输入见 {@link JsonStringReader}，UTF-8 字节输入见 {@link JsonUtf8Reader}
+ *
+ * @author JamesZBL
+ * @date 2018-02-14
+ */
+public interface JsonReader extends Closeable {
+
+  /**
+   * 查看下一个记号，不消费
+   */
+  JsonToken peek() throws IOException;
+
+  /**
+   * 当前数组或对象中是否还有元素
+   */
+  boolean hasNext() throws IOException;
+
+  void beginJsonArray() throws IOException;
+
+  void endJsonArray() throws IOException;
+
+  void beginJsonObject() throws IOException;
+
+  void endJsonObject() throws IOException;
+
+  String nextName() throws IOException;
+
+  /**
+   * 读字符串，数值以原样的字符串返回
+   */
+  String nextString() throws IOException;
+
+  boolean nextBoolean() throws IOException;
+
+  void nextNull() throws IOException;
+
+  /**
+   * 读数值，以原样的字符串保存，不损失精度
+   */
+  StringNumber nextNumber() throws IOException;
+
+  /**
+   * 查看下一个数值能否不损失精度地以 long 或 double 保存，不消费
+   */
+  JsonNumberKind peekNumberKind() throws IOException;
+
+  long nextLong() throws IOException;
+
+  int nextInt() throws IOException;
+
+  double nextDouble() throws IOException;
+
+  /**
+   * 跳过下一个值（包括其中嵌套的所有值），在键的位置调用时只跳过该键
+   *
+   * @throws IllegalStateException 数组或对象已经没有元素，或文档已经结束
+   */
+  void skipValue() throws IOException;
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.data.SymbolTable;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * 以拉取的方式逐个读取 Json 记号
+ * <p>
+ * 词法分析见 {@link AbstractJsonReader}，与 {@link JsonStringWriter} 一样只记录当前所处的作用域，
+ * 不构建任何中间的树结构，输入通过一个较大的字符缓冲区读取，因此占用的内存与输入的长度无关。
+ * 只接受严格的 Json 格式，格式错误时抛出 {@link me.zbl.easyjson.exceptions.JsonUnknownFormatException}，
+ * 读取的记号与调用的方法不符时抛出 {@link IllegalStateException}
+ *
+ * @author JamesZBL
+ * @date 2018-02-13
+ */
+public class JsonStringReader extends AbstractJsonReader {
+
+  static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final Reader in;
+  private char[] buffer;
+  /**
+   * 读取含转义字符或跨越缓冲区的字符串时复用
+   */
+  private final StringBuilder stringBuilder = new StringBuilder();
+
+  public JsonStringReader(Reader in) {
+    this(in, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @param in         输入
+   * @param bufferSize 缓冲区的大小（字符），至少为 16
+   */
+  public JsonStringReader(Reader in, int bufferSize) {
+    StatusCheck.checkIfNull(in);
+    StatusCheck.checkIfLegal(bufferSize >= 16);
+    this.in = in;
+    this.buffer = new char[bufferSize];
+  }
+
+  @Override
+  void skipByteOrderMark() throws IOException {
+    if (charAt(0) == '\uFEFF') {
+      pos++;
+    }
+  }
+
+  /**
+   * 获取 {@link #pos} 之后第 i 个字符（不消费），输入结束时返回 -1
+   */
+  @Override
+  int charAt(int i) throws IOException {
+    if (pos + i >= limit && !fill(i + 1)) {
+      return -1;
+    }
+    return buffer[pos + i];
+  }
+
+  /**
+   * 消费并返回下一个非空白字符，输入结束时返回 -1
+   */
+  @Override
+  int nextNonWhitespace() throws IOException {
+    while (true) {
+      if (pos == limit && !fill(1)) {
+        return -1;
+      }
+      char c = buffer[pos++];
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        return c;
+      }
+    }
+  }
+
+  /**
+   * 保证缓冲区中从 {@link #pos} 开始至少有 minimum 个字符
+   * 已消费的字符会被丢弃，缓冲区不够大时扩容
+   *
+   * @return 输入结束前无法读到足够的字符时返回 false
+   */
+  private boolean fill(int minimum) throws IOException {
+    if (pos > 0) {
+      bufferOffset += pos;
+      limit -= pos;
+      System.arraycopy(buffer, pos, buffer, 0, limit);
+      pos = 0;
+    }
+    if (buffer.length < minimum) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, minimum));
+    }
+    while (limit < minimum) {
+      int n = in.read(buffer, limit, buffer.length - limit);
+      if (n == -1) {
+        return false;
+      }
+      limit += n;
+    }
+    return true;
+  }
+
+  @Override
+  String numberString() {
+    return new String(buffer, pos, peekedNumberLength);
+  }
+
+  /**
+   * 直接从缓冲区中解析整数，在负数范围内累加以便容纳 Long.MIN_VALUE
+   */
+  @Override
+  long parseLong() {
+    int p = pos;
+    int end = pos + peekedNumberLength;
+    boolean negative = buffer[p] == '-';
+    if (negative) {
+      p++;
+    }
+    long value = 0;
+    for (; p < end; p++) {
+      int digit = buffer[p] - '0';
+      if (value < Long.MIN_VALUE / 10) {
+        throw numberOverflow();
+      }
+      long next = value * 10 - digit;
+      if (next > value) {
+        throw numberOverflow();
+      }
+      value = next;
+    }
+    if (!negative) {
+      if (value == Long.MIN_VALUE) {
+        throw numberOverflow();
+      }
+      value = -value;
+    }
+    return value;
+  }
+
+  /**
+   * 读字符串的剩余部分（开头的引号已被消费）
+   * 不含转义字符且不跨越缓冲区的字符串直接由缓冲区创建
+   *
+   * @param symbols 不为 null 时从中查找相同的字符串（读键时）
+   */
+  @Override
+  String readString(SymbolTable symbols) throws IOException {
+    StringBuilder builder = null;
+    int p = pos;
+    int l = limit;
+    int start = p;
+    while (true) {
+      while (p < l) {
+        char c = buffer[p++];
+        if (c == '"') {
+          pos = p;
+          if (null == builder) {
+            return null == symbols ? new String(buffer, start, p - start - 1) : symbols.intern(buffer, start, p - start - 1);
+          }
+          builder.append(buffer, start, p - start - 1);
+          return null == symbols ? builder.toString() : symbols.intern(builder.toString());
+        } else if (c == '\\') {
+          if (null == builder) {
+            builder = stringBuilder;
+            builder.setLength(0);
+          }
+          builder.append(buffer, start, p - start - 1);
+          pos = p;
+          builder.append(readEscape());
+          p = pos;
+          l = limit;
+          start = p;
+        } else if (c < 0x20) {
+          pos = p - 1;
+          throw syntaxError("字符串中存在未转义的控制字符");
+        }
+      }
+      if (null == builder) {
+        builder = stringBuilder;
+        builder.setLength(0);
+      }
+      builder.append(buffer, start, p - start);
+      pos = p;
+      if (!fill(1)) {
+        throw syntaxError("字符串没有结束");
+      }
+      p = pos;
+      l = limit;
+      start = p;
+    }
+  }
+
+  /**
+   * 跳过字符串的剩余部分（开头的引号已被消费），不创建任何对象
+   */
+  @Override
+  void skipString() throws IOException {
+    while (true) {
+      int p = pos;
+      int l = limit;
+      while (p < l) {
+        char c = buffer[p++];
+        if (c == '"') {
+          pos = p;
+          return;
+        } else if (c == '\\') {
+          pos = p;
+          readEscape();
+          p = pos;
+          l = limit;
+        } else if (c < 0x20) {
+          pos = p - 1;
+          throw syntaxError("字符串中存在未转义的控制字符");
+        }
+      }
+      pos = p;
+      if (!fill(1)) {
+        throw syntaxError("字符串没有结束");
+      }
+    }
+  }
+
+  /**
+   * 读取反斜杠之后的转义序列
+   */
+  private char readEscape() throws IOException {
+    if (pos == limit && !fill(1)) {
+      throw syntaxError("字符串没有结束");
+    }
+    char c = buffer[pos++];
+    switch (c) {
+      case '"':
+      case '\\':
+      case '/':
+        return c;
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+        if (limit - pos < 4 && !fill(4)) {
+          throw syntaxError("字符串没有结束");
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+          char h = buffer[pos++];
+          int digit = Character.digit(h, 16);
+          if (digit < 0) {
+            throw syntaxError("\\u 之后应为 4 位十六进制数");
+          }
+          value = value << 4 | digit;
+        }
+        return (char) value;
+      default:
+        throw syntaxError("无法识别的转义字符 '" + c + "'");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    super.close();
+    in.close();
+  }
+}
@@ -18,52 +18,274 @@ package me.zbl.easyjson.io;
 
 import me.zbl.easyjson.exceptions.JsonIOException;
 import me.zbl.easyjson.validation.StatusCheck;
-import me.zbl.easyjson.io.lexical.JsonLexical;
 
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 /**
  * 实现 Json 字符流的输入/输出
+ * <p>
+ * 写出的内容先放入内部的缓冲区，缓冲区写满、调用 {@link #flush()} 或 {@link #close()} 时才写到字符流，
+ * 因此写完后必须调用二者之一。字符流本身不带缓冲（如 FileWriter、套接字）时也只需很少的写操作
  *
  * @author JamesZBL
  * @date 2018-02-04
  */
 public class JsonStringWriter implements Closeable, Flushable {
 
+  /**
+   * 默认的缓冲区大小（字符）
+   */
+  static final int DEFAULT_BUFFER_SIZE = 1024;
+
   private Writer mWriter;
+  /**
+   * 尚未写到字符流的内容，只由以 {@link Writer} 为输出目标的构造方法创建
+   */
+  private char[] buffer;
+  private int position;
+  /**
+   * 已经写到字符流的字符数
+   */
+  private long flushedCount;
   /**
    * 数组元素或对象属性之间的分隔符，默认为逗号
    */
-  private String delimiterArrayOrAtrribute = ",";
+  private char delimiterArrayOrAtrribute = ',';
   /**
    * 键值对之间的分隔符，默认为冒号
    */
-  private String delimiterNameValuePair = ":";
-  private String signArrayStart = "[";
-  private String signArrayEnd = "]";
-  private String signObjectStart = "{";
-  private String signObjectEnd = "}";
+  private char delimiterNameValuePair = ':';
+  private char signArrayStart = '[';
+  private char signArrayEnd = ']';
+  private char signObjectStart = '{';
+  private char signObjectEnd = '}';
   /**
    * 键值对中的“键”
    */
   private String itemName;
   /**
-   * 以栈的形式存储词法上下文
+   * 预先编码好的“键”，与 {@link #itemName} 最多只有一个不为 null
+   */
+  private PreEncodedName encodedName;
+  /**
+   * 外层作用域的编码，以栈的形式存储，每层占 4 位，每个 long 保存 16 层
    */
-  private JsonLexical[] contextStack = new JsonLexical[64];
+  private long[] scopes = new long[4];
   /**
-   * 初始栈顶位置
+   * 当前作用域的编码
    */
-  private int contextStackSize = 0;
+  private int scope;
+  /**
+   * 作用域的层数（包括最外层的文档），关闭后为 0
+   */
+  private int depth;
+  /**
+   * 是否跳过写顺序的检查，见 {@link #setTrusted(boolean)}
+   */
+  private boolean trusted;
+  /**
+   * 是否转义 HTML 中的特殊字符（&lt; &gt; &amp; = '），使输出可以直接嵌入 HTML
+   */
+  private boolean htmlSafe;
+  /**
+   * 是否将所有非 ASCII 字符转义为 \\uXXXX
+   */
+  private boolean asciiOnly;
+  /**
+   * 写出 NaN、Infinity 时的处理方式
+   */
+  private NonFiniteNumberPolicy nonFiniteNumberPolicy = NonFiniteNumberPolicy.REJECT;
+  /**
+   * 格式化数值时使用的缓冲区
+   */
+  private final char[] numberBuffer = new char[NumberChars.MAX_CHARS];
+
+  /**
+   * ASCII 字符的转义表，为 null 表示不需要转义
+   * 控制字符、双引号、反斜杠需要转义
+   */
+  private static final String[] REPLACEMENT_CHARS = new String[128];
+  /**
+   * 在 {@link #REPLACEMENT_CHARS} 的基础上增加 HTML 中的特殊字符
+   */
+  private static final String[] HTML_SAFE_REPLACEMENT_CHARS;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /*
+   * 作用域的编码，与 JsonLexical 中的同名项对应
+   * “空”与“非空”只差最低位，(scope | 1) 即可同时判断两者
+   */
+  private static final int DOCUMENT_WITHOUT_ANY_ELEMENTS = 0;
+  private static final int DOCUMENT_WITH_ELEMENTS = 1;
+  private static final int ARRAY_WITHOUT_ELEMENT = 2;
+  private static final int ARRAY_WITH_ELEMENTS = 3;
+  private static final int OBJECT_WITHOUT_ATTRIBUTE = 4;
+  private static final int OBJECT_WITH_ATTRIBUTES = 5;
+  private static final int NAME_OF_PAIR = 6;
+  private static final int DOCUMENT_ENDED = 7;
+  /**
+   * 预先编码好的键已连同冒号一起写出
+   */
+  private static final int ENCODED_NAME_OF_PAIR = 8;
+
+  static {
+    for (int i = 0; i < 0x20; i++) {
+      REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+    }
+    REPLACEMENT_CHARS['"'] = "\\\"";
+    REPLACEMENT_CHARS['\\'] = "\\\\";
+    REPLACEMENT_CHARS['\t'] = "\\t";
+    REPLACEMENT_CHARS['\b'] = "\\b";
+    REPLACEMENT_CHARS['\n'] = "\\n";
+    REPLACEMENT_CHARS['\r'] = "\\r";
+    REPLACEMENT_CHARS['\f'] = "\\f";
+    HTML_SAFE_REPLACEMENT_CHARS = REPLACEMENT_CHARS.clone();
+    HTML_SAFE_REPLACEMENT_CHARS['<'] = "\\u003c";
+    HTML_SAFE_REPLACEMENT_CHARS['>'] = "\\u003e";
+    HTML_SAFE_REPLACEMENT_CHARS['&'] = "\\u0026";
+    HTML_SAFE_REPLACEMENT_CHARS['='] = "\\u003d";
+    HTML_SAFE_REPLACEMENT_CHARS['\''] = "\\u0027";
+  }
 
   public JsonStringWriter(Writer w) {
+    this(w, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @param w          字符流
+   * @param bufferSize 缓冲区的大小（字符），至少为 16
+   */
+  public JsonStringWriter(Writer w, int bufferSize) {
     StatusCheck.checkIfNull(w);
+    StatusCheck.checkIfLegal(bufferSize >= 16);
     this.mWriter = w;
+    this.buffer = new char[bufferSize];
     // 置当前状态为初始化状态
-    stackPush(JsonLexical.DOCUMENT_WITHOUT_ANY_ELEMENTS);
+    stackPush(DOCUMENT_WITHOUT_ANY_ELEMENTS);
+  }
+
+  /**
+   * 供不以 {@link Writer} 为输出目标的子类使用，子类需重写所有的 writeRaw 方法以及 {@link #closeSink()}
+   */
+  protected JsonStringWriter() {
+    stackPush(DOCUMENT_WITHOUT_ANY_ELEMENTS);
+  }
+
+  /**
+   * 丢弃缓冲区中尚未写出的内容，并恢复到刚创建时的状态（包括各项设置），以便重复使用同一个对象
+   * 输出目标不变，已分配的栈和缓冲区保留。使用自己的缓冲区的子类需重写本方法
+   */
+  protected void reset() {
+    position = 0;
+    flushedCount = 0;
+    resetState();
+  }
+
+  /**
+   * 清空词法上下文栈、尚未写出的键以及各项设置，已分配的栈和缓冲区保留
+   */
+  void resetState() {
+    itemName = null;
+    encodedName = null;
+    depth = 0;
+    stackPush(DOCUMENT_WITHOUT_ANY_ELEMENTS);
+    trusted = false;
+    htmlSafe = false;
+    asciiOnly = false;
+    nonFiniteNumberPolicy = NonFiniteNumberPolicy.REJECT;
+  }
+
+  /**
+   * 原样输出一个字符
+   * 所有的结构符号（括号、逗号、冒号、引号）都通过本方法输出
+   */
+  protected void writeRaw(char c) throws IOException {
+    if (position == buffer.length) {
+      flushBuffer();
+    }
+    buffer[position++] = c;
+  }
+
+  /**
+   * 原样输出字符串中的一段（不做转义）
+   * 超过缓冲区大小的内容不经过缓冲区，直接写到字符流
+   */
+  protected void writeRaw(String s, int offset, int length) throws IOException {
+    if (length > buffer.length - position) {
+      flushBuffer();
+      if (length > buffer.length) {
+        mWriter.write(s, offset, length);
+        flushedCount += length;
+        return;
+      }
+    }
+    s.getChars(offset, offset + length, buffer, position);
+    position += length;
+  }
+
+  /**
+   * 原样输出字符数组中的一段（不做转义）
+   * 超过缓冲区大小的内容不经过缓冲区，直接写到字符流
+   */
+  protected void writeRaw(char[] chars, int offset, int length) throws IOException {
+    if (length > buffer.length - position) {
+      flushBuffer();
+      if (length > buffer.length) {
+        mWriter.write(chars, offset, length);
+        flushedCount += length;
+        return;
+      }
+    }
+    System.arraycopy(chars, offset, buffer, position, length);
+    position += length;
+  }
+
+  /**
+   * 将缓冲区中的内容写到字符流，但不刷新字符流
+   */
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      mWriter.write(buffer, 0, position);
+      flushedCount += position;
+      position = 0;
+    }
+  }
+
+  /**
+   * 已写出的字符总数，包括尚在缓冲区中的
+   * {@link JsonUtf8Writer} 为字节数
+   */
+  public long getWrittenCount() {
+    return flushedCount + position;
+  }
+
+  /**
+   * 已经写到输出目标的字符数，即 {@link #getWrittenCount()} 中不在缓冲区中的部分
+   * {@link JsonUtf8Writer} 为字节数
+   */
+  public long getFlushedCount() {
+    return flushedCount;
+  }
+
+  /**
+   * 原样输出预先编码好的键（已包含冒号）
+   * 默认整段输出其字符，{@link JsonUtf8Writer} 直接复制其 UTF-8 字节
+   */
+  void writeRaw(PreEncodedName name) throws IOException {
+    char[] chars = name.chars(htmlSafe, asciiOnly);
+    writeRaw(chars, 0, chars.length);
+  }
+
+  /**
+   * 关闭输出目标
+   */
+  protected void closeSink() throws IOException {
+    flushBuffer();
+    mWriter.close();
   }
 
 
@@ -71,73 +293,72 @@ public class JsonStringWriter implements Closeable, Flushable {
    * 对词法上下文栈进行压栈操作
    * 用于开辟新的作用域（一个新的数组或新的对象）
    *
-   * @param lexical 词法（入栈元素）
+   * @param code 新的作用域的编码
    */
-  private void stackPush(JsonLexical lexical) {
-    if (contextStackSize == contextStack.length) {
-      // 如果发现栈满，则创建一个2倍容量的栈，将原有元素拷贝到新栈中，并将原栈的引用指向新栈
-      JsonLexical[] n = new JsonLexical[contextStack.length * 2];
-      System.arraycopy(contextStack, 0, n, 0, contextStackSize);
-      contextStack = n;
+  private void stackPush(int code) {
+    int saved = depth - 1;
+    if (saved >= 0) {
+      // 将当前作用域保存到栈中
+      int i = saved >>> 4;
+      if (i == scopes.length) {
+        scopes = Arrays.copyOf(scopes, i * 2);
+      }
+      int shift = (saved & 15) << 2;
+      scopes[i] = scopes[i] & ~(0xFL << shift) | (long) scope << shift;
     }
-    contextStack[contextStackSize++] = lexical;
+    depth++;
+    scope = code;
   }
 
   /**
-   * 获取栈顶元素
+   * 结束当前作用域，恢复外层的作用域
    */
-  private JsonLexical stackLast() {
-    if (contextStackSize == 0) {
-      throw new IllegalStateException("读写已经完成，无法再获取词法元素");
-    }
-    return contextStack[contextStackSize - 1];
+  private void stackPop() {
+    depth--;
+    int saved = depth - 1;
+    scope = saved < 0 ? DOCUMENT_ENDED : (int) (scopes[saved >>> 4] >>> ((saved & 15) << 2)) & 0xF;
   }
 
   /**
-   * 踢出栈顶元素，并将新元素压栈
-   *
-   * @param lexical 词法（新的栈顶元素）
+   * 当前作用域下不能进行该操作
    */
-  private void stackKick(JsonLexical lexical) {
-    contextStack[contextStackSize - 1] = lexical;
+  private IllegalStateException illegalOrder() {
+    if (scope == DOCUMENT_ENDED) {
+      return new IllegalStateException("读写已经完成，无法再获取词法元素");
+    }
+    return new IllegalStateException("写顺序不正确！");
   }
 
   /**
    * 开辟新的作用域（新的对象或新的数组）
    *
-   * @param lexical 词法（表示一个作用域的开始）
-   * @param sign    <pre>作用域开始位置的符号：数组为 " [ "，对象为 " { "</pre>
+   * @param code 新的作用域的编码
+   * @param sign <pre>作用域开始位置的符号：数组为 ' [ '，对象为 ' { '</pre>
    *
    * @throws IOException
    */
-  private JsonStringWriter newScope(JsonLexical lexical, String sign) throws IOException {
+  private JsonStringWriter newScope(int code, char sign) throws IOException {
     beforeWritingValue();
-    stackPush(lexical);
-    mWriter.write(sign);
+    stackPush(code);
+    writeRaw(sign);
     return this;
   }
 
   /**
    * 结束作用域
    *
-   * @param lexical 词法（表示一个作用域的开始）
-   * @param sign    <pre>作用域开始位置的符号：数组为 " [ "，对象为 " { "</pre>
+   * @param nonEmpty 作用域非空时的编码，为空时的编码只差最低位
+   * @param sign     <pre>作用域结束位置的符号：数组为 ' ] '，对象为 ' } '</pre>
    *
    * @throws IOException
    */
-  private JsonStringWriter finishScope(String sign, JsonLexical... lexical) throws IOException {
-    JsonLexical last = stackLast();
-    int confirm = 0;
-    for (JsonLexical expected : lexical) {
-      if (last.equals(expected)) {
-        confirm++;
-      }
+  private JsonStringWriter finishScope(int nonEmpty, char sign) throws IOException {
+    // 已经设置了键却没有写值时同样是顺序错误
+    if (!trusted && ((scope | 1) != nonEmpty || null != itemName || null != encodedName)) {
+      throw illegalOrder();
     }
-    if (confirm == 0) {
-      throw new IllegalStateException("写顺序不正确！");
-    }
-    contextStackSize--;
-    mWriter.write(sign);
+    stackPop();
+    writeRaw(sign);
     return this;
   }
 
@@ -145,42 +366,53 @@ public class JsonStringWriter implements Closeable, Flushable {
    * 写键值对的“键”名之前的处理
    */
   private void beforeWritingName() throws IOException {
-    JsonLexical last = stackLast();
-    if (last == JsonLexical.OBJECT_WITH_ATTRIBUTES) {
+    if (scope == OBJECT_WITH_ATTRIBUTES) {
       // 对象不为空，表明在此之前写过至少一个键值对
-      mWriter.write(delimiterArrayOrAtrribute);
+      writeRaw(delimiterArrayOrAtrribute);
+    } else if (!trusted && scope != OBJECT_WITHOUT_ATTRIBUTE) {
+      throw illegalOrder();
     }
-    stackKick(JsonLexical.NAME_OF_PAIR);
+    scope = NAME_OF_PAIR;
   }
 
   /**
    * 写键值对的“值”之前的处理
    */
   private void beforeWritingValue() throws IOException {
-    JsonLexical last = stackLast();
-    switch (last) {
+    switch (scope) {
       case DOCUMENT_WITHOUT_ANY_ELEMENTS:
         // 顶级元素
-        stackKick(JsonLexical.DOCUMENT_WITH_ELEMENTS);
+        scope = DOCUMENT_WITH_ELEMENTS;
         break;
-      case DOCUMENT_WITH_ELEMENTS:
-        // 只允许存在一个顶级元素，表示多个元素应使用数组
-        throw new IllegalArgumentException("存在多个顶级元素！");
       case ARRAY_WITHOUT_ELEMENT:
         // 数组中的第一个元素
-        stackKick(JsonLexical.ARRAY_WITH_ELEMENTS);
+        scope = ARRAY_WITH_ELEMENTS;
         break;
       case ARRAY_WITH_ELEMENTS:
         // 数组中已经有至少一个元素
-        mWriter.write(delimiterArrayOrAtrribute);
+        writeRaw(delimiterArrayOrAtrribute);
         break;
       case NAME_OF_PAIR:
         // 刚写完“键”，现在写“值”
-        mWriter.write(delimiterNameValuePair);
+        writeRaw(delimiterNameValuePair);
         // 将状态置为“非空对象”
-        stackKick(JsonLexical.OBJECT_WITH_ATTRIBUTES);
+        scope = OBJECT_WITH_ATTRIBUTES;
+        break;
+      case ENCODED_NAME_OF_PAIR:
+        // 冒号已随键写出
+        scope = OBJECT_WITH_ATTRIBUTES;
+        break;
+      case DOCUMENT_WITH_ELEMENTS:
+        // 只允许存在一个顶级元素，表示多个元素应使用数组
+        if (!trusted) {
+          throw new IllegalArgumentException("存在多个顶级元素！");
+        }
         break;
       default:
+        // 对象中的值之前没有键，或已经关闭
+        if (!trusted) {
+          throw illegalOrder();
+        }
     }
   }
 
@@ -189,9 +421,61 @@ public class JsonStringWriter implements Closeable, Flushable {
       beforeWritingName();
       writeString(itemName);
       this.itemName = null;
+    } else if (null != encodedName) {
+      beforeWritingName();
+      writeRaw(encodedName);
+      scope = ENCODED_NAME_OF_PAIR;
+      this.encodedName = null;
     }
   }
 
+  /**
+   * 设置是否跳过写顺序的检查（如数组中写键、对象中的值没有键、括号不匹配），默认为 false
+   * 仍然会正确地写出逗号和冒号，只适用于输出在结构上总是正确的调用方（如内置的和生成的适配器），
+   * 顺序错误时不再抛出异常，而是写出不合法的 Json
+   */
+  public void setTrusted(boolean trusted) {
+    this.trusted = trusted;
+  }
+
+  public boolean isTrusted() {
+    return trusted;
+  }
+
+  /**
+   * 设置是否转义 HTML 中的特殊字符（&lt; &gt; &amp; = '）
+   */
+  public void setHtmlSafe(boolean htmlSafe) {
+    this.htmlSafe = htmlSafe;
+  }
+
+  public boolean isHtmlSafe() {
+    return htmlSafe;
+  }
+
+  /**
+   * 设置是否将所有非 ASCII 字符转义为 \\uXXXX
+   */
+  public void setAsciiOnly(boolean asciiOnly) {
+    this.asciiOnly = asciiOnly;
+  }
+
+  public boolean isAsciiOnly() {
+    return asciiOnly;
+  }
+
+  /**
+   * 设置写出 NaN、Infinity 时的处理方式，默认为 {@link NonFiniteNumberPolicy#REJECT}
+   */
+  public void setNonFiniteNumberPolicy(NonFiniteNumberPolicy policy) {
+    StatusCheck.checkIfNull(policy);
+    this.nonFiniteNumberPolicy = policy;
+  }
+
+  public NonFiniteNumberPolicy getNonFiniteNumberPolicy() {
+    return nonFiniteNumberPolicy;
+  }
+
   /**
    * 写键
    *
@@ -199,6 +483,19 @@ public class JsonStringWriter implements Closeable, Flushable {
    */
   public JsonStringWriter name(String name) {
     this.itemName = name;
+    this.encodedName = null;
+    return this;
+  }
+
+  /**
+   * 写预先编码好的键，写出时整段复制，结果与 {@link #name(String)} 相同
+   *
+   * @param name 键
+   */
+  public JsonStringWriter name(PreEncodedName name) {
+    StatusCheck.checkIfNull(name);
+    this.encodedName = name;
+    this.itemName = null;
     return this;
   }
 
@@ -228,16 +525,110 @@ public class JsonStringWriter implements Closeable, Flushable {
    * @throws IOException
    */
   public JsonStringWriter value(Number value) throws IOException {
+    if (value instanceof Double || value instanceof Float) {
+      checkFinite(value.doubleValue());
+    }
     writeName();
     beforeWritingValue();
     if (null == value) {
       writeNull();
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      writeLong(value.longValue());
+    } else if (value instanceof Double) {
+      writeDouble(value.doubleValue());
+    } else if (value instanceof Float) {
+      writeFloat(value.floatValue());
     } else {
-      mWriter.append(value.toString());
+      writeRaw(value.toString());
     }
     return this;
   }
 
+  /**
+   * 写值
+   *
+   * @param value 整型值
+   *
+   * @throws IOException
+   */
+  public JsonStringWriter value(int value) throws IOException {
+    return value((long) value);
+  }
+
+  /**
+   * 写值
+   *
+   * @param value 长整型值
+   *
+   * @throws IOException
+   */
+  public JsonStringWriter value(long value) throws IOException {
+    writeName();
+    beforeWritingValue();
+    writeLong(value);
+    return this;
+  }
+
+  /**
+   * 写值，输出能够精确还原的最短十进制表示
+   *
+   * @param value 双精度浮点值
+   *
+   * @throws IOException
+   * @throws IllegalArgumentException 值为 NaN 或无穷大且处理方式为 {@link NonFiniteNumberPolicy#REJECT}
+   */
+  public JsonStringWriter value(double value) throws IOException {
+    checkFinite(value);
+    writeName();
+    beforeWritingValue();
+    writeDouble(value);
+    return this;
+  }
+
+  /**
+   * 写值
+   *
+   * @param value 单精度浮点值
+   *
+   * @throws IOException
+   * @throws IllegalArgumentException 值为 NaN 或无穷大且处理方式为 {@link NonFiniteNumberPolicy#REJECT}
+   */
+  public JsonStringWriter value(float value) throws IOException {
+    checkFinite(value);
+    writeName();
+    beforeWritingValue();
+    writeFloat(value);
+    return this;
+  }
+
+  /**
+   * 写值
+   *
+   * @param value 布尔型值
+   *
+   * @throws IOException
+   */
+  public JsonStringWriter value(boolean value) throws IOException {
+    writeName();
+    beforeWritingValue();
+    writeRaw(value ? "true" : "false");
+    return this;
+  }
+
+  /**
+   * 写值
+   *
+   * @param value 字符型值
+   *
+   * @throws IOException
+   */
+  public JsonStringWriter value(char value) throws IOException {
+    writeName();
+    beforeWritingValue();
+    writeString(String.valueOf(value));
+    return this;
+  }
+
   /**
    * 写值
    *
@@ -251,7 +642,7 @@ public class JsonStringWriter implements Closeable, Flushable {
     if (null == value) {
       writeNull();
     } else {
-      mWriter.write(value ? "true" : "false");
+      writeRaw(value ? "true" : "false");
     }
     return this;
   }
@@ -274,6 +665,75 @@ public class JsonStringWriter implements Closeable, Flushable {
     return this;
   }
 
+  /**
+   * 原样写出已经编码好的 Json 值，不做检查和转义
+   * 也可以是以逗号分隔的多个数组元素，用于拼接分别写出的几段数组元素
+   * 调用方需保证内容是合法的 Json，且与当前的转义设置一致
+   *
+   * @param chars  编码好的内容
+   * @param offset 起始位置
+   * @param length 长度
+   *
+   * @throws IOException
+   */
+  public JsonStringWriter jsonValue(char[] chars, int offset, int length) throws IOException {
+    StatusCheck.checkIfNull(chars);
+    beginValue();
+    writeRaw(chars, offset, length);
+    return this;
+  }
+
+  /**
+   * 在对象中原样写出已经编码好的若干个键值对（"name":value，以逗号分隔，不含两侧的花括号），不做检查和转义
+   * 用于转发未修改的部分，调用方需保证内容是合法的 Json，且与当前的转义设置一致；长度为 0 时什么也不写
+   *
+   * @param chars  编码好的内容
+   * @param offset 起始位置
+   * @param length 长度
+   *
+   * @throws IOException
+   */
+  public JsonStringWriter jsonMembers(char[] chars, int offset, int length) throws IOException {
+    StatusCheck.checkIfNull(chars);
+    if (length == 0) {
+      return this;
+    }
+    beginMembers();
+    writeRaw(chars, offset, length);
+    return this;
+  }
+
+  /**
+   * 写出键值对之前的分隔符，之后对象不为空
+   */
+  void beginMembers() throws IOException {
+    if (!trusted && (null != itemName || null != encodedName)) {
+      throw illegalOrder();
+    }
+    beforeWritingName();
+    scope = OBJECT_WITH_ATTRIBUTES;
+  }
+
+  /**
+   * 写出键（如果有）以及值之前的分隔符
+   */
+  void beginValue() throws IOException {
+    writeName();
+    beforeWritingValue();
+  }
+
+  /**
+   * 写 null 值
+   *
+   * @throws IOException
+   */
+  public JsonStringWriter nullValue() throws IOException {
+    writeName();
+    beforeWritingValue();
+    writeNull();
+    return this;
+  }
+
   /**
    * 开始写数组
    *
@@ -281,7 +741,7 @@ public class JsonStringWriter implements Closeable, Flushable {
    */
   public JsonStringWriter newJsonArray() throws IOException {
     writeName();
-    newScope(JsonLexical.ARRAY_WITHOUT_ELEMENT, signArrayStart);
+    newScope(ARRAY_WITHOUT_ELEMENT, signArrayStart);
     return this;
   }
 
@@ -291,7 +751,7 @@ public class JsonStringWriter implements Closeable, Flushable {
    * @throws IOException
    */
   public JsonStringWriter finishJsonArray() throws IOException {
-    finishScope(signArrayEnd, JsonLexical.ARRAY_WITHOUT_ELEMENT, JsonLexical.ARRAY_WITH_ELEMENTS);
+    finishScope(ARRAY_WITH_ELEMENTS, signArrayEnd);
     return this;
   }
 
@@ -302,7 +762,7 @@ public class JsonStringWriter implements Closeable, Flushable {
    */
   public JsonStringWriter newJsonObject() throws IOException {
     writeName();
-    newScope(JsonLexical.OBJECT_WITHOUT_ATTRIBUTE, signObjectStart);
+    newScope(OBJECT_WITHOUT_ATTRIBUTE, signObjectStart);
     return this;
   }
 
@@ -312,45 +772,155 @@ public class JsonStringWriter implements Closeable, Flushable {
    * @throws IOException
    */
   public JsonStringWriter finishJsonObject() throws IOException {
-    finishScope(signObjectEnd, JsonLexical.OBJECT_WITHOUT_ATTRIBUTE, JsonLexical.OBJECT_WITH_ATTRIBUTES);
+    finishScope(OBJECT_WITH_ATTRIBUTES, signObjectEnd);
     return this;
   }
 
   /**
    * 写字符串
-   * 形式为："name"（带有双引号）
+   * 形式为："name"（带有双引号），按 Json 的规则进行转义
    *
    * @param s 字符串
    *
    * @throws IOException
    */
   private void writeString(String s) throws IOException {
-    mWriter.write("\"");
-    mWriter.write(s);
-    mWriter.write("\"");
+    String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
+    writeRaw('"');
+    // 不需要转义的连续字符整段输出
+    int last = 0;
+    int length = s.length();
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      String replacement;
+      if (c < 128) {
+        replacement = replacements[c];
+        if (null == replacement) {
+          continue;
+        }
+      } else if (asciiOnly || c == '\u2028' || c == '\u2029') {
+        // U+2028、U+2029 在 JavaScript 中是换行符，总是转义
+        replacement = null;
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+          i++;
+          continue;
+        }
+        // 不成对的代理字符无法以 UTF-8 编码，两种输出目标都转义为 \\uXXXX，读回后与原来相同
+        replacement = null;
+      } else {
+        continue;
+      }
+      if (last < i) {
+        writeRaw(s, last, i - last);
+      }
+      if (null != replacement) {
+        writeRaw(replacement);
+      } else {
+        writeUnicodeEscape(c);
+      }
+      last = i + 1;
+    }
+    if (last < length) {
+      writeRaw(s, last, length - last);
+    }
+    writeRaw('"');
+  }
+
+  /**
+   * 输出形如 \\uXXXX 的转义字符
+   */
+  private void writeUnicodeEscape(char c) throws IOException {
+    writeRaw('\\');
+    writeRaw('u');
+    writeRaw(HEX_DIGITS[c >> 12 & 0xF]);
+    writeRaw(HEX_DIGITS[c >> 8 & 0xF]);
+    writeRaw(HEX_DIGITS[c >> 4 & 0xF]);
+    writeRaw(HEX_DIGITS[c & 0xF]);
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeRaw(numberBuffer, 0, NumberChars.writeLong(value, numberBuffer, 0));
+  }
+
+  private void writeDouble(double value) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      writeNonFinite(Double.toString(value));
+    } else {
+      writeRaw(numberBuffer, 0, NumberChars.writeDouble(value, numberBuffer, 0));
+    }
+  }
+
+  /**
+   * float 仍使用 {@link Float#toString(float)}，以免转为 double 后输出多余的位数
+   */
+  private void writeFloat(float value) throws IOException {
+    if (Float.isNaN(value) || Float.isInfinite(value)) {
+      writeNonFinite(Float.toString(value));
+    } else {
+      writeRaw(Float.toString(value));
+    }
+  }
+
+  /**
+   * 在写出任何内容之前检查数值，使被拒绝的值不会留下写了一半的键值对
+   */
+  private void checkFinite(double value) {
+    if ((Double.isNaN(value) || Double.isInfinite(value)) && nonFiniteNumberPolicy == NonFiniteNumberPolicy.REJECT) {
+      throw new IllegalArgumentException("Json 中不能表示该数值：" + value);
+    }
+  }
+
+  /**
+   * 按处理方式写出 NaN、Infinity，{@link NonFiniteNumberPolicy#REJECT} 已在 {@link #checkFinite} 中处理
+   */
+  private void writeNonFinite(String literal) throws IOException {
+    switch (nonFiniteNumberPolicy) {
+      case STRING:
+        writeString(literal);
+        break;
+      case LITERAL:
+        writeRaw(literal);
+        break;
+      default:
+        writeNull();
+        break;
+    }
   }
 
   private void writeNull() throws IOException {
-    mWriter.write("null");
+    writeRaw("null");
   }
 
-  private void emptyStack() {
-    contextStackSize = 0;
+  private void writeRaw(String s) throws IOException {
+    writeRaw(s, 0, s.length());
   }
 
+  /**
+   * 将缓冲区中的内容写到输出目标，并关闭输出目标
+   *
+   * @throws JsonIOException 还有未结束的数组或对象
+   */
   @Override
   public void close() throws IOException {
-    mWriter.close();
-    boolean multiLeft = contextStackSize > 1;
-    boolean notEmpty = contextStackSize == 1 && contextStack[0] != JsonLexical.DOCUMENT_WITHOUT_ANY_ELEMENTS;
-    if (multiLeft || notEmpty) {
+    closeSink();
+    // 顶级元素已写完，或者什么都没写，都是完整的
+    boolean incomplete = depth > 1;
+    depth = 0;
+    scope = DOCUMENT_ENDED;
+    if (!trusted && incomplete) {
       throw new JsonIOException("转换过程意外被中止！");
     }
-    emptyStack();
   }
 
+  /**
+   * 将缓冲区中的内容写到输出目标，并刷新输出目标
+   */
   @Override
   public void flush() throws IOException {
-
+    if (null != mWriter) {
+      flushBuffer();
+      mWriter.flush();
+    }
   }
 }
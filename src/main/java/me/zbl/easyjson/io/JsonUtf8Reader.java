@@ -0,0 +1,332 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.data.SymbolTable;
+import me.zbl.easyjson.data.Utf8String;
+import me.zbl.easyjson.io.lexical.JsonToken;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 直接在 UTF-8 字节上读取 Json 记号
+ * <p>
+ * 不先解码为字符，输入可以是任意的 {@link ByteBuffer}（包括 {@link FileChannel#map} 得到的映射缓冲区），
+ * 也可以是 {@link FileChannel}：此时按窗口映射文件，读到窗口末尾时从当前记号的位置重新映射，
+ * 因此可以读取超过 2 GB 的文件。
+ * <p>
+ * 读取字符串时只检查转义序列，字符串的值通过 {@link #nextUtf8String()} 以原始字节的形式返回，
+ * 在第一次使用时才解码；以 JsonTreeParser 从该读取器构建的树中的字符串也是如此。
+ * 词法分析与 {@link JsonStringReader} 共用，见 {@link AbstractJsonReader}
+ *
+ * @author JamesZBL
+ * @date 2018-02-14
+ */
+public class JsonUtf8Reader extends AbstractJsonReader {
+
+  static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  /**
+   * 当前的输入窗口，以绝对位置访问
+   */
+  private ByteBuffer buffer;
+  /**
+   * 按窗口映射的文件，为 null 表示输入只有一个缓冲区
+   */
+  private final FileChannel channel;
+  private final long channelSize;
+  private final int windowSize;
+  /**
+   * 最近一次扫描的字符串是否包含转义序列
+   */
+  private boolean scannedEscaped;
+  /**
+   * 解码字符串和数值时复用
+   */
+  private byte[] scratch = new byte[64];
+
+  /**
+   * 读取缓冲区中 position 到 limit 之间的字节，不改变缓冲区本身的位置
+   */
+  public JsonUtf8Reader(ByteBuffer buffer) {
+    StatusCheck.checkIfNull(buffer);
+    this.buffer = buffer.duplicate();
+    this.pos = buffer.position();
+    this.limit = buffer.limit();
+    this.channel = null;
+    this.channelSize = 0;
+    this.windowSize = 0;
+    this.bufferOffset = -pos;
+  }
+
+  /**
+   * 从通道当前的位置开始按窗口映射读取
+   */
+  public JsonUtf8Reader(FileChannel channel) throws IOException {
+    this(channel, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * @param channel    文件通道
+   * @param windowSize 每次映射的字节数，单个记号超过该长度时临时扩大
+   */
+  public JsonUtf8Reader(FileChannel channel, int windowSize) throws IOException {
+    StatusCheck.checkIfNull(channel);
+    StatusCheck.checkIfLegal(windowSize >= 16);
+    this.channel = channel;
+    this.channelSize = channel.size();
+    this.windowSize = windowSize;
+    this.bufferOffset = channel.position();
+    this.buffer = ByteBuffer.allocate(0);
+  }
+
+  /**
+   * 跳过 UTF-8 的字节顺序标记 EF BB BF
+   */
+  @Override
+  void skipByteOrderMark() throws IOException {
+    if (charAt(0) == 0xEF && charAt(1) == 0xBB && charAt(2) == 0xBF) {
+      pos += 3;
+    }
+  }
+
+  /**
+   * 获取 {@link #pos} 之后第 i 个字节（不消费，0 ~ 255），输入结束时返回 -1
+   */
+  @Override
+  int charAt(int i) throws IOException {
+    if (pos + i >= limit && !ensure(i + 1)) {
+      return -1;
+    }
+    return buffer.get(pos + i) & 0xFF;
+  }
+
+  /**
+   * 消费并返回下一个非空白字节，输入结束时返回 -1
+   */
+  @Override
+  int nextNonWhitespace() throws IOException {
+    while (true) {
+      if (pos == limit && !ensure(1)) {
+        return -1;
+      }
+      int c = buffer.get(pos++);
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        return c & 0xFF;
+      }
+    }
+  }
+
+  /**
+   * 保证窗口中从 {@link #pos} 开始至少有 minimum 个字节
+   * 只有按窗口映射文件时才能做到：从 {@link #pos} 对应的文件位置重新映射
+   *
+   * @return 输入结束前无法读到足够的字节时返回 false
+   */
+  private boolean ensure(int minimum) throws IOException {
+    if (limit - pos >= minimum) {
+      return true;
+    }
+    if (null == channel) {
+      return false;
+    }
+    long start = bufferOffset + pos;
+    long remaining = channelSize - start;
+    if (remaining < minimum) {
+      return false;
+    }
+    // 记号比窗口还长时成倍扩大窗口，避免逐字节地重新映射
+    long wanted = Math.max(Math.max(windowSize, minimum), 2L * (limit - pos));
+    int size = (int) Math.min(Math.min(remaining, wanted), Integer.MAX_VALUE);
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    bufferOffset = start;
+    pos = 0;
+    limit = size;
+    return true;
+  }
+
+  /**
+   * 读字符串，只复制原始字节，在第一次使用时才解码
+   */
+  public Utf8String nextUtf8String() throws IOException {
+    expect(JsonToken.STRING);
+    int length = scanString();
+    byte[] bytes = new byte[length];
+    copy(bytes, length);
+    pos += length + 1;
+    return new Utf8String(bytes, scannedEscaped);
+  }
+
+  @Override
+  String numberString() {
+    int length = peekedNumberLength;
+    byte[] b = scratch(length);
+    copy(b, length);
+    return new String(b, 0, length, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * 直接从窗口中解析整数，在负数范围内累加以便容纳 Long.MIN_VALUE
+   */
+  @Override
+  long parseLong() {
+    int p = pos;
+    int end = pos + peekedNumberLength;
+    boolean negative = buffer.get(p) == '-';
+    if (negative) {
+      p++;
+    }
+    long value = 0;
+    for (; p < end; p++) {
+      int digit = buffer.get(p) - '0';
+      if (value < Long.MIN_VALUE / 10) {
+        throw numberOverflow();
+      }
+      long next = value * 10 - digit;
+      if (next > value) {
+        throw numberOverflow();
+      }
+      value = next;
+    }
+    if (!negative) {
+      if (value == Long.MIN_VALUE) {
+        throw numberOverflow();
+      }
+      value = -value;
+    }
+    return value;
+  }
+
+  /**
+   * 读字符串的剩余部分（开头的引号已被消费）并解码
+   *
+   * @param symbols 不为 null 时从中查找相同的字符串（读键时）
+   */
+  @Override
+  String readString(SymbolTable symbols) throws IOException {
+    int length = scanString();
+    byte[] b = scratch(length);
+    copy(b, length);
+    pos += length + 1;
+    if (null == symbols) {
+      return Utf8String.decode(b, 0, length, scannedEscaped);
+    }
+    return scannedEscaped ? symbols.intern(Utf8String.decode(b, 0, length, true)) : symbols.intern(b, 0, length);
+  }
+
+  /**
+   * 确定从 {@link #pos} 开始到结束引号之前的字节数，并检查控制字符和转义序列，不消费
+   */
+  private int scanString() throws IOException {
+    boolean escaped = false;
+    int i = 0;
+    while (true) {
+      int c = charAt(i);
+      if (c == '"') {
+        scannedEscaped = escaped;
+        return i;
+      } else if (c == '\\') {
+        escaped = true;
+        i = scanEscape(i + 1);
+      } else if (c == -1) {
+        throw syntaxError("字符串没有结束");
+      } else if (c < 0x20) {
+        pos += i;
+        throw syntaxError("字符串中存在未转义的控制字符");
+      } else {
+        i++;
+      }
+    }
+  }
+
+  /**
+   * 检查反斜杠之后的转义序列
+   *
+   * @param i 转义字符相对于 {@link #pos} 的位置
+   *
+   * @return 转义序列之后的位置
+   */
+  private int scanEscape(int i) throws IOException {
+    int c = charAt(i);
+    switch (c) {
+      case '"':
+      case '\\':
+      case '/':
+      case 'b':
+      case 'f':
+      case 'n':
+      case 'r':
+      case 't':
+        return i + 1;
+      case 'u':
+        for (int j = 1; j <= 4; j++) {
+          int h = charAt(i + j);
+          if (h == -1 || Character.digit(h, 16) < 0) {
+            throw syntaxError("\\u 之后应为 4 位十六进制数");
+          }
+        }
+        return i + 5;
+      case -1:
+        throw syntaxError("字符串没有结束");
+      default:
+        throw syntaxError("无法识别的转义字符 0x" + Integer.toHexString(c));
+    }
+  }
+
+  /**
+   * 跳过字符串的剩余部分（开头的引号已被消费），不复制任何字节
+   */
+  @Override
+  void skipString() throws IOException {
+    // 扫描时可能重新映射窗口，需要先扫描再读取 pos
+    int length = scanString();
+    pos += length + 1;
+  }
+
+  private byte[] scratch(int length) {
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(scratch.length * 2, length)];
+    }
+    return scratch;
+  }
+
+  /**
+   * 将窗口中从 {@link #pos} 开始的 length 个字节复制到 dst 的开头
+   */
+  private void copy(byte[] dst, int length) {
+    // 其他地方都以绝对位置访问窗口，这里可以直接移动窗口的位置
+    // 通过 Buffer 调用，避免在 Java 8 上找不到 Java 9 新增的协变方法
+    ((Buffer) buffer).position(pos);
+    buffer.get(dst, 0, length);
+  }
+
+  /**
+   * 关闭读取器，输入为文件通道时一并关闭
+   */
+  @Override
+  public void close() throws IOException {
+    super.close();
+    if (null != channel) {
+      channel.close();
+    }
+  }
+}
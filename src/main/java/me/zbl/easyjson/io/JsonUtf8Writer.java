@@ -0,0 +1,322 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 直接以 UTF-8 编码输出字节的 JsonStringWriter
+ * <p>
+ * 不经过 {@link java.io.Writer}，字符在写入时直接编码到内部的字节缓冲区中，结构符号均为单字节写入，
+ * ASCII 字符串走快速路径。输出目标为 {@link OutputStream} 时，缓冲区写满或调用 {@link #flush()} 时
+ * 才写到输出流；不指定输出流时，缓冲区按需扩容，通过 {@link #toByteArray()} 获取结果
+ *
+ * @author JamesZBL
+ * @date 2018-02-11
+ */
+public class JsonUtf8Writer extends JsonStringWriter {
+
+  static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /**
+   * 输出流，为 null 时表示只写到缓冲区
+   */
+  private OutputStream out;
+  private byte[] buffer;
+  private int position;
+  /**
+   * 已经写到输出流的字节数
+   */
+  private long flushedCount;
+
+  /**
+   * 写到内存中，通过 {@link #toByteArray()} 获取结果
+   */
+  public JsonUtf8Writer() {
+    this.out = null;
+    this.buffer = new byte[256];
+  }
+
+  public JsonUtf8Writer(OutputStream out) {
+    this(out, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @param out        输出流
+   * @param bufferSize 缓冲区的大小（字节），至少为 16
+   */
+  public JsonUtf8Writer(OutputStream out, int bufferSize) {
+    StatusCheck.checkIfNull(out);
+    StatusCheck.checkIfLegal(bufferSize >= 16);
+    this.out = out;
+    this.buffer = new byte[bufferSize];
+  }
+
+  /**
+   * 改为写到另一个字节流，并恢复到刚创建时的状态（包括各项设置）
+   * 缓冲区中尚未写到原来的字节流的内容被丢弃，原来的字节流不会被关闭
+   *
+   * @param out 输出流
+   */
+  public void reset(OutputStream out) {
+    StatusCheck.checkIfNull(out);
+    this.out = out;
+    this.position = 0;
+    this.flushedCount = 0;
+    resetState();
+  }
+
+  /**
+   * 改为只写到缓冲区，并恢复到刚创建时的状态（包括各项设置），缓冲区保留
+   */
+  @Override
+  public void reset() {
+    this.out = null;
+    this.position = 0;
+    this.flushedCount = 0;
+    resetState();
+  }
+
+  @Override
+  protected void writeRaw(char c) throws IOException {
+    if (c < 0x80) {
+      if (position == buffer.length) {
+        makeRoom(1);
+      }
+      buffer[position++] = (byte) c;
+    } else {
+      writeRaw(String.valueOf(c), 0, 1);
+    }
+  }
+
+  @Override
+  protected void writeRaw(String s, int offset, int length) throws IOException {
+    int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      // 每个字符最多编码为 3 个字节（代理对为 2 个字符 4 个字节）
+      int chunk = Math.min(end - i, Math.max(1, buffer.length / 3 - 1));
+      if (buffer.length - position < chunk * 3 + 1) {
+        makeRoom(chunk * 3 + 1);
+      }
+      i = encode(s, i, i + chunk, end);
+    }
+  }
+
+  @Override
+  protected void writeRaw(char[] chars, int offset, int length) throws IOException {
+    int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      // 有输出流时按缓冲区大小分段写出，不为较长的内容扩容
+      int chunkEnd = i + Math.min(end - i, buffer.length);
+      if (buffer.length - position < chunkEnd - i) {
+        makeRoom(chunkEnd - i);
+      }
+      byte[] b = buffer;
+      int p = position;
+      for (; i < chunkEnd; i++) {
+        char c = chars[i];
+        if (c >= 0x80) {
+          // 数值之外的内容很少经过这里，非 ASCII 部分交给字符串的编码路径
+          position = p;
+          writeRaw(new String(chars, i, end - i), 0, end - i);
+          return;
+        }
+        b[p++] = (byte) c;
+      }
+      position = p;
+    }
+  }
+
+  @Override
+  void writeRaw(PreEncodedName name) throws IOException {
+    byte[] bytes = name.utf8(isHtmlSafe(), isAsciiOnly());
+    writeRaw(bytes, 0, bytes.length);
+  }
+
+  /**
+   * 原样输出字节，有输出流时超过缓冲区大小的内容直接写到输出流
+   */
+  private void writeRaw(byte[] bytes, int offset, int length) throws IOException {
+    if (buffer.length - position < length) {
+      if (null != out && length > buffer.length) {
+        flushBuffer();
+        out.write(bytes, offset, length);
+        flushedCount += length;
+        return;
+      }
+      makeRoom(length);
+    }
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+  }
+
+  /**
+   * 原样写出已经以 UTF-8 编码好的 Json 值，不做检查和转义，见 {@link #jsonValue(char[], int, int)}
+   *
+   * @param utf8   编码好的内容
+   * @param offset 起始位置
+   * @param length 长度
+   *
+   * @throws IOException
+   */
+  public JsonUtf8Writer jsonValue(byte[] utf8, int offset, int length) throws IOException {
+    StatusCheck.checkIfNull(utf8);
+    beginValue();
+    writeRaw(utf8, offset, length);
+    return this;
+  }
+
+  /**
+   * 原样写出已经以 UTF-8 编码好的若干个键值对，不做检查和转义，见 {@link #jsonMembers(char[], int, int)}
+   *
+   * @param utf8   编码好的内容
+   * @param offset 起始位置
+   * @param length 长度
+   *
+   * @throws IOException
+   */
+  public JsonUtf8Writer jsonMembers(byte[] utf8, int offset, int length) throws IOException {
+    StatusCheck.checkIfNull(utf8);
+    if (length == 0) {
+      return this;
+    }
+    beginMembers();
+    writeRaw(utf8, offset, length);
+    return this;
+  }
+
+  /**
+   * 缓冲区中的内容，供不复制地读取 {@link #toByteArray()} 的结果，之后的写操作会修改其内容
+   */
+  byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * 将 [start, chunkEnd) 范围内的字符编码到缓冲区，调用前需保证缓冲区足够
+   *
+   * @param end 字符串中可读的结束位置，用于读取跨越 chunkEnd 的代理对
+   *
+   * @return 下一个未编码的字符的位置
+   */
+  private int encode(String s, int start, int chunkEnd, int end) {
+    byte[] b = buffer;
+    int p = position;
+    int i = start;
+    // ASCII 快速路径
+    while (i < chunkEnd) {
+      char c = s.charAt(i);
+      if (c >= 0x80) {
+        break;
+      }
+      b[p++] = (byte) c;
+      i++;
+    }
+    while (i < chunkEnd) {
+      char c = s.charAt(i++);
+      if (c < 0x80) {
+        b[p++] = (byte) c;
+      } else if (c < 0x800) {
+        b[p++] = (byte) (0xC0 | c >> 6);
+        b[p++] = (byte) (0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(s.charAt(i))) {
+        int cp = Character.toCodePoint(c, s.charAt(i++));
+        b[p++] = (byte) (0xF0 | cp >> 18);
+        b[p++] = (byte) (0x80 | cp >> 12 & 0x3F);
+        b[p++] = (byte) (0x80 | cp >> 6 & 0x3F);
+        b[p++] = (byte) (0x80 | cp & 0x3F);
+      } else if (Character.isSurrogate(c)) {
+        // 不成对的代理字符无法编码，字符串中的已由 writeString 转义，只有原样写出的内容会到这里
+        b[p++] = '?';
+      } else {
+        b[p++] = (byte) (0xE0 | c >> 12);
+        b[p++] = (byte) (0x80 | c >> 6 & 0x3F);
+        b[p++] = (byte) (0x80 | c & 0x3F);
+      }
+    }
+    position = p;
+    return i;
+  }
+
+  /**
+   * 保证缓冲区中至少还有 n 个字节的空间
+   * 有输出流时先将缓冲区写到输出流，否则扩容
+   */
+  private void makeRoom(int n) throws IOException {
+    if (null != out) {
+      flushBuffer();
+    }
+    if (buffer.length - position < n) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + n));
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      out.write(buffer, 0, position);
+      flushedCount += position;
+      position = 0;
+    }
+  }
+
+  /**
+   * 获取已写出的字节（仅限不指定输出流时）
+   */
+  public byte[] toByteArray() {
+    StatusCheck.checkIfLegal(null == out);
+    return Arrays.copyOf(buffer, position);
+  }
+
+  /**
+   * 缓冲区中尚未写到输出流的字节数（不指定输出流时即已写出的总字节数）
+   */
+  public int size() {
+    return position;
+  }
+
+  @Override
+  public long getWrittenCount() {
+    return flushedCount + position;
+  }
+
+  @Override
+  public long getFlushedCount() {
+    return flushedCount;
+  }
+
+  @Override
+  protected void closeSink() throws IOException {
+    if (null != out) {
+      flushBuffer();
+      out.close();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (null != out) {
+      flushBuffer();
+      out.flush();
+    }
+  }
+}
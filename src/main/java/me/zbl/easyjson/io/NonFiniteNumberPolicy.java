@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+/**
+ * 写出 NaN、Infinity、-Infinity 时的处理方式
+ * <p>
+ * Json 中没有与之对应的数值，默认拒绝写出
+ *
+ * @author JamesZBL
+ * @date 2018-02-12
+ */
+public enum NonFiniteNumberPolicy {
+
+  /**
+   * 抛出 {@link IllegalArgumentException}
+   */
+  REJECT,
+  /**
+   * 写为字符串 "NaN"、"Infinity"、"-Infinity"
+   */
+  STRING,
+  /**
+   * 原样写为 NaN、Infinity、-Infinity（不是合法的 Json，但 JavaScript 可以解析）
+   */
+  LITERAL,
+  /**
+   * 写为 null
+   */
+  NULL
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import java.math.BigInteger;
+
+/**
+ * 将数值直接格式化到字符数组中，不创建任何对象
+ * <p>
+ * 整数使用两位数字一组的查表法；双精度浮点数使用 Schubfach 算法（R. Giulietti,
+ * "The Schubfach way to render doubles"），得到能够精确还原的最短十进制表示，
+ * 输出格式与 {@link Double#toString(double)} 相同（如 1.0、0.001、1.0E7、4.9E-324）
+ *
+ * @author JamesZBL
+ * @date 2018-02-12
+ */
+final class NumberChars {
+
+  /**
+   * 格式化 long 或 double 所需的最大字符数
+   */
+  static final int MAX_CHARS = 32;
+
+  private static final char[] DIGIT_PAIRS = new char[200];
+
+  static {
+    for (int i = 0; i < 100; i++) {
+      DIGIT_PAIRS[i << 1] = (char) ('0' + i / 10);
+      DIGIT_PAIRS[(i << 1) + 1] = (char) ('0' + i % 10);
+    }
+  }
+
+  private static final char[] LONG_MIN_VALUE = "-9223372036854775808".toCharArray();
+
+  /*
+   * Schubfach 算法所需的常量，名称与论文保持一致
+   */
+  private static final int P = 53;
+  private static final int Q_MIN = -1074;
+  private static final long C_MIN = 1L << P - 1;
+  private static final long T_MASK = (1L << P - 1) - 1;
+  private static final int C_TINY = 3;
+  private static final int K_MIN = -324;
+  private static final int K_MAX = 292;
+  private static final long MASK_63 = (1L << 63) - 1;
+
+  /**
+   * g = g1 * 2^63 + g0 = floor(10^-k / 2^r) + 1，其中 r 使得 2^125 <= g < 2^126
+   */
+  private static final long[] G = new long[(K_MAX - K_MIN + 1) << 1];
+
+  static {
+    BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+    for (int k = K_MIN; k <= K_MAX; k++) {
+      int r = flog2pow10(-k) - 125;
+      BigInteger g;
+      if (k <= 0) {
+        BigInteger p = BigInteger.TEN.pow(-k);
+        g = r >= 0 ? p.shiftRight(r) : p.shiftLeft(-r);
+      } else {
+        g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(k));
+      }
+      g = g.add(BigInteger.ONE);
+      int i = (k - K_MIN) << 1;
+      G[i] = g.shiftRight(63).longValue();
+      G[i + 1] = g.and(mask).longValue();
+    }
+  }
+
+  private NumberChars() {
+  }
+
+  /**
+   * 格式化 long
+   *
+   * @return 写入的字符数
+   */
+  static int writeLong(long v, char[] buf, int offset) {
+    if (v == Long.MIN_VALUE) {
+      System.arraycopy(LONG_MIN_VALUE, 0, buf, offset, LONG_MIN_VALUE.length);
+      return LONG_MIN_VALUE.length;
+    }
+    int start = offset;
+    if (v < 0) {
+      buf[offset++] = '-';
+      v = -v;
+    }
+    int length = digitCount(v);
+    writeDigits(v, buf, offset + length);
+    return offset + length - start;
+  }
+
+  /**
+   * 从 end 处向前写出非负整数的各位数字
+   */
+  private static void writeDigits(long v, char[] buf, int end) {
+    int p = end;
+    while (v > Integer.MAX_VALUE) {
+      long q = v / 100;
+      int r = (int) (v - q * 100) << 1;
+      v = q;
+      buf[--p] = DIGIT_PAIRS[r + 1];
+      buf[--p] = DIGIT_PAIRS[r];
+    }
+    int i = (int) v;
+    while (i >= 100) {
+      int q = i / 100;
+      int r = (i - q * 100) << 1;
+      i = q;
+      buf[--p] = DIGIT_PAIRS[r + 1];
+      buf[--p] = DIGIT_PAIRS[r];
+    }
+    if (i >= 10) {
+      buf[--p] = DIGIT_PAIRS[(i << 1) + 1];
+      buf[--p] = DIGIT_PAIRS[i << 1];
+    } else {
+      buf[--p] = (char) ('0' + i);
+    }
+  }
+
+  /**
+   * 非负整数的十进制位数
+   */
+  private static int digitCount(long v) {
+    int n = 1;
+    long limit = 10;
+    while (n < 19 && v >= limit) {
+      n++;
+      limit *= 10;
+    }
+    return n;
+  }
+
+  /**
+   * 格式化有限的 double
+   *
+   * @return 写入的字符数
+   */
+  static int writeDouble(double v, char[] buf, int offset) {
+    long bits = Double.doubleToRawLongBits(v);
+    long t = bits & T_MASK;
+    int bq = (int) (bits >>> P - 1) & 0x7FF;
+    int start = offset;
+    if (bits < 0) {
+      buf[offset++] = '-';
+    }
+    if (bq != 0) {
+      // 正规数
+      int mq = -Q_MIN + 1 - bq;
+      long c = C_MIN | t;
+      if (0 < mq & mq < P) {
+        // 整数快速路径
+        long f = c >> mq;
+        if (f << mq == c) {
+          return offset - start + toChars(f, 0, buf, offset);
+        }
+      }
+      return offset - start + toDecimal(-mq, c, 0, buf, offset);
+    }
+    if (t != 0) {
+      // 非正规数
+      return offset - start + (t < C_TINY ? toDecimal(Q_MIN, 10 * t, -1, buf, offset) : toDecimal(Q_MIN, t, 0, buf, offset));
+    }
+    buf[offset++] = '0';
+    buf[offset++] = '.';
+    buf[offset++] = '0';
+    return offset - start;
+  }
+
+  /**
+   * 计算 v = c * 2^q 的最短十进制表示 f * 10^k 并格式化
+   */
+  private static int toDecimal(int q, long c, int dk, char[] buf, int offset) {
+    int out = (int) c & 0x1;
+    long cb = c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != C_MIN | q == Q_MIN) {
+      cbl = cb - 2;
+      k = flog10pow2(q);
+    } else {
+      cbl = cb - 1;
+      k = flog10threeQuartersPow2(q);
+    }
+    int h = q + flog2pow10(-k) + 2;
+    int i = (k - K_MIN) << 1;
+    long g1 = G[i];
+    long g0 = G[i + 1];
+    long vb = rop(g1, g0, cb << h);
+    long vbl = rop(g1, g0, cbl << h);
+    long vbr = rop(g1, g0, cbr << h);
+    long s = vb >> 2;
+    if (s >= 100) {
+      // 先尝试少一位有效数字的候选值
+      long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+      long tp10 = sp10 + 10;
+      boolean upin = vbl + out <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + out <= vbr;
+      if (upin != wpin) {
+        return toChars(upin ? sp10 : tp10, k, buf, offset);
+      }
+    }
+    long t = s + 1;
+    boolean uin = vbl + out <= s << 2;
+    boolean win = (t << 2) + out <= vbr;
+    if (uin != win) {
+      return toChars(uin ? s : t, k + dk, buf, offset);
+    }
+    // 两个候选值都在舍入区间内，取较近的一个，距离相等时取偶数
+    long cmp = vb - (s + t << 1);
+    return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, offset);
+  }
+
+  /**
+   * 将 f * 10^e 按 {@link Double#toString(double)} 的格式输出
+   */
+  private static int toChars(long f, int e, char[] buf, int offset) {
+    // 先把有效数字写到末尾的暂存区，再按格式排列
+    int length = digitCount(f);
+    int digits = buf.length - length;
+    writeDigits(f, buf, buf.length);
+    // 去掉末尾的 0
+    int n = length;
+    while (n > 1 && buf[digits + n - 1] == '0') {
+      n--;
+    }
+    // v = 0.d1d2...dn * 10^exp
+    int exp = e + length;
+    int p = offset;
+    if (0 < exp && exp <= 7) {
+      for (int i = 0; i < exp; i++) {
+        buf[p++] = i < n ? buf[digits + i] : '0';
+      }
+      buf[p++] = '.';
+      if (n > exp) {
+        for (int i = exp; i < n; i++) {
+          buf[p++] = buf[digits + i];
+        }
+      } else {
+        buf[p++] = '0';
+      }
+    } else if (-3 < exp && exp <= 0) {
+      buf[p++] = '0';
+      buf[p++] = '.';
+      for (int i = exp; i < 0; i++) {
+        buf[p++] = '0';
+      }
+      for (int i = 0; i < n; i++) {
+        buf[p++] = buf[digits + i];
+      }
+    } else {
+      buf[p++] = buf[digits];
+      buf[p++] = '.';
+      if (n > 1) {
+        for (int i = 1; i < n; i++) {
+          buf[p++] = buf[digits + i];
+        }
+      } else {
+        buf[p++] = '0';
+      }
+      buf[p++] = 'E';
+      int x = exp - 1;
+      if (x < 0) {
+        buf[p++] = '-';
+        x = -x;
+      }
+      if (x >= 100) {
+        buf[p++] = (char) ('0' + x / 100);
+        x %= 100;
+        buf[p++] = DIGIT_PAIRS[x << 1];
+        buf[p++] = DIGIT_PAIRS[(x << 1) + 1];
+      } else if (x >= 10) {
+        buf[p++] = DIGIT_PAIRS[x << 1];
+        buf[p++] = DIGIT_PAIRS[(x << 1) + 1];
+      } else {
+        buf[p++] = (char) ('0' + x);
+      }
+    }
+    return p - offset;
+  }
+
+  private static long rop(long g1, long g0, long cp) {
+    long x1 = multiplyHigh(g0, cp);
+    long y0 = g1 * cp;
+    long y1 = multiplyHigh(g1, cp);
+    long z = (y0 >>> 1) + x1;
+    long vbp = y1 + (z >>> 63);
+    return vbp | (z & MASK_63) + MASK_63 >>> 63;
+  }
+
+  /**
+   * 两个 long 相乘所得的 128 位结果的高 64 位
+   */
+  private static long multiplyHigh(long x, long y) {
+    long x1 = x >> 32;
+    long x2 = x & 0xFFFFFFFFL;
+    long y1 = y >> 32;
+    long y2 = y & 0xFFFFFFFFL;
+    long z2 = x2 * y2;
+    long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xFFFFFFFFL;
+    long z0 = t >> 32;
+    z1 += x2 * y1;
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  /**
+   * floor(log10(2^e))
+   */
+  private static int flog10pow2(int e) {
+    return (int) (e * 661_971_961_083L >> 41);
+  }
+
+  /**
+   * floor(log10(3/4 * 2^e))
+   */
+  private static int flog10threeQuartersPow2(int e) {
+    return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+  }
+
+  /**
+   * floor(log2(10^e))
+   */
+  private static int flog2pow10(int e) {
+    return (int) (e * 913_124_641_741L >> 38);
+  }
+}
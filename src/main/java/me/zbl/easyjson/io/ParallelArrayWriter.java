@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 分块并行写出元素很多的数组
+ * <p>
+ * 元素数量达到阈值时，按 chunkSize 个元素一块，在 {@link ForkJoinPool} 中将每一块写到各自的缓冲区，
+ * 再按顺序拼接到目标 JsonStringWriter 中，块与块之间的逗号由目标照常写出。
+ * 同时进行的块不超过并行度的两倍，先完成的块等待前面的块写出，占用的内存与数组的总大小无关。
+ * 块的缓冲区使用与目标相同的转义设置，目标为 {@link JsonUtf8Writer} 时直接以 UTF-8 写出
+ * <p>
+ * 元素数量低于阈值、线程池的并行度为 1，或者已经在 ForkJoinPool 的任务中（如块中的元素本身又是大数组）时按顺序写出。
+ * 创建后不可变，可以在多个线程之间共用
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class ParallelArrayWriter {
+
+  /**
+   * 默认的阈值，元素数量不少于该值时才并行写出
+   */
+  public static final int DEFAULT_THRESHOLD = 4096;
+  /**
+   * 默认的每一块的元素数量
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+  /**
+   * 总是按顺序写出
+   */
+  public static final ParallelArrayWriter SEQUENTIAL = new ParallelArrayWriter();
+
+  /**
+   * 写出数组中的一个元素
+   * 并行写出时会在多个线程中同时调用，每次调用的下标和 JsonStringWriter 各不相同
+   */
+  public interface ElementWriter {
+
+    /**
+     * 写出第 i 个元素
+     *
+     * @param i 元素的下标
+     * @param w 写出该元素所用的 JsonStringWriter
+     */
+    void write(int i, JsonStringWriter w) throws IOException;
+  }
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+  private final int chunkSize;
+
+  private ParallelArrayWriter() {
+    this.pool = null;
+    this.threshold = Integer.MAX_VALUE;
+    this.chunkSize = DEFAULT_CHUNK_SIZE;
+  }
+
+  /**
+   * 使用默认的阈值和块大小
+   */
+  public ParallelArrayWriter(ForkJoinPool pool) {
+    this(pool, DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param pool      执行写出任务的线程池
+   * @param threshold 元素数量不少于该值时才并行写出，至少为 2
+   * @param chunkSize 每一块的元素数量，至少为 1
+   */
+  public ParallelArrayWriter(ForkJoinPool pool, int threshold, int chunkSize) {
+    StatusCheck.checkIfNull(pool);
+    StatusCheck.checkIfLegal(threshold >= 2);
+    StatusCheck.checkIfLegal(chunkSize >= 1);
+    this.pool = pool;
+    this.threshold = threshold;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * 该长度的数组是否会并行写出（已经在 ForkJoinPool 的任务中时仍按顺序写出）
+   * 线程池的并行度为 1 时并行写出没有收益，总是按顺序写出
+   */
+  public boolean isParallel(int size) {
+    return size >= threshold && null != pool && pool.getParallelism() > 1;
+  }
+
+  /**
+   * 写出数组（包括两侧的方括号）
+   *
+   * @param w        目标
+   * @param size     元素数量
+   * @param elements 写出每个元素
+   */
+  public void writeArray(JsonStringWriter w, int size, ElementWriter elements) throws IOException {
+    StatusCheck.checkIfNull(w);
+    StatusCheck.checkIfNull(elements);
+    if (!isParallel(size) || ForkJoinTask.inForkJoinPool()) {
+      w.newJsonArray();
+      for (int i = 0; i < size; i++) {
+        elements.write(i, w);
+      }
+      w.finishJsonArray();
+      return;
+    }
+    w.newJsonArray();
+    int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+    ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>(maxInFlight);
+    try {
+      for (int from = 0; from < size; from += chunkSize) {
+        if (inFlight.size() == maxInFlight) {
+          join(inFlight.poll()).appendTo(w);
+        }
+        inFlight.add(pool.submit(new Chunk(w, elements, from, Math.min(size, from + chunkSize))));
+      }
+      while (!inFlight.isEmpty()) {
+        join(inFlight.poll()).appendTo(w);
+      }
+    } finally {
+      // 出错时取消剩余的块
+      for (ForkJoinTask<Chunk> t : inFlight) {
+        t.cancel(false);
+      }
+    }
+    w.finishJsonArray();
+  }
+
+  private static Chunk join(ForkJoinTask<Chunk> task) throws IOException {
+    try {
+      return task.join();
+    } catch (RuntimeException e) {
+      // join 抛出的是在当前线程中重新创建的异常，原来的异常为其 cause
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException && cause.getClass() == e.getClass()) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * 写到内存中的一块元素，以数组的形式写出，拼接时去掉两侧的方括号
+   */
+  private static final class Chunk implements Callable<Chunk> {
+
+    private final ElementWriter elements;
+    private final int from;
+    private final int to;
+    private final JsonStringWriter writer;
+    private final ChunkBuffer chars;
+
+    Chunk(JsonStringWriter target, ElementWriter elements, int from, int to) {
+      this.elements = elements;
+      this.from = from;
+      this.to = to;
+      if (target instanceof JsonUtf8Writer) {
+        this.chars = null;
+        this.writer = new JsonUtf8Writer();
+      } else {
+        this.chars = new ChunkBuffer();
+        this.writer = new JsonStringWriter(chars);
+      }
+      writer.setHtmlSafe(target.isHtmlSafe());
+      writer.setAsciiOnly(target.isAsciiOnly());
+      writer.setNonFiniteNumberPolicy(target.getNonFiniteNumberPolicy());
+      writer.setTrusted(target.isTrusted());
+    }
+
+    @Override
+    public Chunk call() throws IOException {
+      writer.newJsonArray();
+      for (int i = from; i < to; i++) {
+        elements.write(i, writer);
+      }
+      writer.finishJsonArray();
+      writer.flush();
+      return this;
+    }
+
+    void appendTo(JsonStringWriter target) throws IOException {
+      if (null == chars) {
+        JsonUtf8Writer bytes = (JsonUtf8Writer) writer;
+        ((JsonUtf8Writer) target).jsonValue(bytes.buffer(), 1, bytes.size() - 2);
+      } else {
+        target.jsonValue(chars.buffer(), 1, chars.size() - 2);
+      }
+    }
+  }
+
+  /**
+   * 可以不复制地读取内容的 CharArrayWriter
+   */
+  private static final class ChunkBuffer extends CharArrayWriter {
+
+    ChunkBuffer() {
+      super(4096);
+    }
+
+    char[] buffer() {
+      return buf;
+    }
+  }
+}
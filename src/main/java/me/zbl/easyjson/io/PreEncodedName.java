@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.exceptions.JsonIOException;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+/**
+ * 预先编码好的键
+ * <p>
+ * 保存已转义、带双引号和冒号的 "name": 的字符和 UTF-8 字节，
+ * 通过 {@link JsonStringWriter#name(PreEncodedName)} 写出时只需整段复制，不再逐个字符检查转义。
+ * 按 {@link JsonStringWriter#setHtmlSafe(boolean)}、{@link JsonStringWriter#setAsciiOnly(boolean)}
+ * 的四种组合各编码一次，结果相同的组合共用同一个数组，写出的内容与 {@link JsonStringWriter#name(String)} 完全一致
+ * <p>
+ * 创建后不可变，可以在多个线程之间共用，适合作为常量保存
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public final class PreEncodedName {
+
+  private final String name;
+  /**
+   * 下标的第 0 位表示 htmlSafe，第 1 位表示 asciiOnly
+   */
+  private final char[][] chars = new char[4][];
+  private final byte[][] utf8 = new byte[4][];
+
+  private PreEncodedName(String name) {
+    this.name = name;
+    for (int variant = 0; variant < 4; variant++) {
+      boolean htmlSafe = (variant & 1) != 0;
+      boolean asciiOnly = (variant & 2) != 0;
+      char[] c = encodeChars(name, htmlSafe, asciiOnly);
+      byte[] b = encodeUtf8(name, htmlSafe, asciiOnly);
+      // 与之前的某种组合结果相同时共用其数组
+      for (int i = 0; i < variant; i++) {
+        if (Arrays.equals(chars[i], c)) {
+          c = chars[i];
+        }
+        if (Arrays.equals(utf8[i], b)) {
+          b = utf8[i];
+        }
+      }
+      chars[variant] = c;
+      utf8[variant] = b;
+    }
+  }
+
+  /**
+   * 编码键
+   *
+   * @param name 键，不能为 null
+   */
+  public static PreEncodedName of(String name) {
+    StatusCheck.checkIfNull(name);
+    return new PreEncodedName(name);
+  }
+
+  /**
+   * 未编码的键
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * 按转义方式取出编码后的字符，返回的数组不能修改
+   */
+  char[] chars(boolean htmlSafe, boolean asciiOnly) {
+    return chars[variant(htmlSafe, asciiOnly)];
+  }
+
+  /**
+   * 按转义方式取出编码后的 UTF-8 字节，返回的数组不能修改
+   */
+  byte[] utf8(boolean htmlSafe, boolean asciiOnly) {
+    return utf8[variant(htmlSafe, asciiOnly)];
+  }
+
+  private static int variant(boolean htmlSafe, boolean asciiOnly) {
+    return (htmlSafe ? 1 : 0) | (asciiOnly ? 2 : 0);
+  }
+
+  /**
+   * 由 {@link JsonStringWriter} 本身完成转义，保证与逐个字符写出的结果一致
+   */
+  private static char[] encodeChars(String name, boolean htmlSafe, boolean asciiOnly) {
+    StringWriter out = new StringWriter(name.length() + 3);
+    try {
+      JsonStringWriter w = new JsonStringWriter(out);
+      w.setHtmlSafe(htmlSafe);
+      w.setAsciiOnly(asciiOnly);
+      w.value(name);
+      w.writeRaw(':');
+      w.flush();
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return out.toString().toCharArray();
+  }
+
+  private static byte[] encodeUtf8(String name, boolean htmlSafe, boolean asciiOnly) {
+    JsonUtf8Writer w = new JsonUtf8Writer();
+    try {
+      w.setHtmlSafe(htmlSafe);
+      w.setAsciiOnly(asciiOnly);
+      w.value(name);
+      w.writeRaw(':');
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return w.toByteArray();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || obj instanceof PreEncodedName && name.equals(((PreEncodedName) obj).name);
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
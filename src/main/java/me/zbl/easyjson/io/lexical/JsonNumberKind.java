@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io.lexical;
+
+/**
+ * 数值记号能够不损失精度地以哪种类型保存
+ *
+ * @author JamesZBL
+ * @date 2018-02-16
+ */
+public enum JsonNumberKind {
+
+  /**
+   * 不超过 18 位数字的整数，可以用 {@code long} 表示
+   */
+  LONG,
+  /**
+   * 不超过 15 位有效数字、指数不超过两位的小数，转换为 {@code double} 后数值不变
+   */
+  DOUBLE,
+  /**
+   * 其余的数值，只能以原样的文本保存
+   */
+  DECIMAL
+}
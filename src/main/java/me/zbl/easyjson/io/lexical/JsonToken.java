@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io.lexical;
+
+/**
+ * 读取 Json 时的下一个记号
+ *
+ * @author JamesZBL
+ * @date 2018-02-13
+ */
+public enum JsonToken {
+
+  /**
+   * 数组的开始 ' [ '
+   */
+  BEGIN_ARRAY,
+  /**
+   * 数组的结束 ' ] '
+   */
+  END_ARRAY,
+  /**
+   * 对象的开始 ' { '
+   */
+  BEGIN_OBJECT,
+  /**
+   * 对象的结束 ' } '
+   */
+  END_OBJECT,
+  /**
+   * 键值对中的 "键"
+   */
+  NAME,
+  /**
+   * 字符串
+   */
+  STRING,
+  /**
+   * 数值
+   */
+  NUMBER,
+  /**
+   * true 或 false
+   */
+  BOOLEAN,
+  /**
+   * null
+   */
+  NULL,
+  /**
+   * 已读完
+   */
+  END_DOCUMENT
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.type;
+
+import me.zbl.easyjson.AbstractJsonTypeAdapter;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 运行时生成的类型适配器的父类
+ * <p>
+ * 子类由 {@link TypeAdapterGenerator} 在运行时生成，只需实现 {@link #writeFields}，
+ * 其中每个域对应一段直线代码，读取域的方法句柄保存在子类的 static final 域中
+ *
+ * @author JamesZBL
+ * @date 2018-02-08
+ */
+public abstract class AbstractGeneratedTypeAdapter extends AbstractJsonTypeAdapter<Object> {
+
+  /**
+   * 等待生成的类在初始化时取走的数据，键为生成的类的二进制名称
+   */
+  private static final ConcurrentMap<String, Object[]> CLASS_DATA = new ConcurrentHashMap<>();
+
+  @Override
+  public final void convertToJson(Object o, JsonStringWriter w) throws IOException {
+    if (null == o) {
+      w.nullValue();
+      return;
+    }
+    w.newJsonObject();
+    writeFields(o, w);
+    w.finishJsonObject();
+  }
+
+  /**
+   * 按顺序写出对象的所有域（不包括对象两侧的花括号）
+   *
+   * @param o 被转换的对象，不为 null
+   * @param w JsonStringWriter
+   */
+  protected abstract void writeFields(Object o, JsonStringWriter w) throws IOException;
+
+  /**
+   * 登记生成的类在初始化时需要的数据
+   */
+  static void putClassData(String className, Object[] data) {
+    CLASS_DATA.put(className, data);
+  }
+
+  /**
+   * 移除登记的数据（若仍存在）
+   */
+  static void removeClassData(String className) {
+    CLASS_DATA.remove(className);
+  }
+
+  /**
+   * 取走生成的类在初始化时需要的数据，仅供生成的类在类初始化时调用
+   * <p>
+   * 生成的类可能由单独的类加载器定义，无法访问包内的方法，因此本方法是公开的。
+   * 调用方需传入自身的 {@code MethodHandles.lookup()}，带有私有访问权限的 Lookup 只有类本身能够得到，
+   * 因此每个生成的类只能取走为它登记的数据
+   *
+   * @param caller 生成的类自身的 Lookup
+   */
+  public static Object[] takeClassData(MethodHandles.Lookup caller) {
+    StatusCheck.checkIfNull(caller);
+    Class<?> c = caller.lookupClass();
+    if ((caller.lookupModes() & MethodHandles.Lookup.PRIVATE) == 0 || c.getSuperclass() != AbstractGeneratedTypeAdapter.class) {
+      throw new IllegalStateException("只有生成的类本身可以取走其数据：" + c.getName());
+    }
+    // 隐藏类的名称在定义时的名称之后还有 "/" 和一个后缀
+    String name = c.getName();
+    int hidden = name.indexOf('/');
+    if (hidden >= 0) {
+      name = name.substring(0, hidden);
+    }
+    Object[] data = CLASS_DATA.remove(name);
+    if (null == data) {
+      throw new IllegalStateException("找不到生成的类所需的数据：" + name);
+    }
+    return data;
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.type;
+
+import me.zbl.easyjson.validation.StatusCheck;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 极简的 class 文件构建器
+ * <p>
+ * 只支持生成适配器所需的指令：不含分支和异常表的直线代码，因此不需要生成 StackMapTable，
+ * 生成的类版本为 52（Java 8）
+ *
+ * @author JamesZBL
+ * @date 2018-02-08
+ */
+final class ClassFileBuilder {
+
+  static final int ACC_PUBLIC = 0x0001;
+  static final int ACC_PRIVATE = 0x0002;
+  static final int ACC_PROTECTED = 0x0004;
+  static final int ACC_STATIC = 0x0008;
+  static final int ACC_FINAL = 0x0010;
+  static final int ACC_SUPER = 0x0020;
+
+  static final int ALOAD_0 = 0x2a;
+  static final int ALOAD_1 = 0x2b;
+  static final int ALOAD_2 = 0x2c;
+  static final int AALOAD = 0x32;
+  static final int POP = 0x57;
+  static final int DUP = 0x59;
+  static final int RETURN = 0xb1;
+  static final int GETSTATIC = 0xb2;
+  static final int PUTSTATIC = 0xb3;
+  static final int INVOKEVIRTUAL = 0xb6;
+  static final int INVOKESPECIAL = 0xb7;
+  static final int INVOKESTATIC = 0xb8;
+  static final int CHECKCAST = 0xc0;
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+  private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+  private final DataOutputStream pool = new DataOutputStream(poolBytes);
+  private final Map<String, Integer> poolIndex = new HashMap<>();
+  private int poolSize = 1;
+
+  private final ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+  private final DataOutputStream members = new DataOutputStream(memberBytes);
+  private final List<byte[]> fields = new ArrayList<>();
+  private final List<byte[]> methods = new ArrayList<>();
+
+  private final int thisClass;
+  private final int superClass;
+  private final int access;
+
+  /**
+   * @param name      类的内部名称，如 me/zbl/easyjson/type/Foo
+   * @param superName 父类的内部名称
+   */
+  ClassFileBuilder(int access, String name, String superName) {
+    this.access = access;
+    this.thisClass = classRef(name);
+    this.superClass = classRef(superName);
+  }
+
+  /**
+   * 添加域
+   */
+  void field(int access, String name, String descriptor) {
+    try {
+      members.writeShort(access);
+      members.writeShort(utf8(name));
+      members.writeShort(utf8(descriptor));
+      members.writeShort(0);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    fields.add(drain());
+  }
+
+  /**
+   * 添加方法
+   */
+  void method(int access, String name, String descriptor, Code code) {
+    try {
+      byte[] instructions = code.bytes.toByteArray();
+      members.writeShort(access);
+      members.writeShort(utf8(name));
+      members.writeShort(utf8(descriptor));
+      members.writeShort(1);
+      members.writeShort(utf8("Code"));
+      members.writeInt(12 + instructions.length);
+      members.writeShort(code.maxStack);
+      members.writeShort(code.maxLocals);
+      members.writeInt(instructions.length);
+      members.write(instructions);
+      // 异常表和属性均为空
+      members.writeShort(0);
+      members.writeShort(0);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    methods.add(drain());
+  }
+
+  /**
+   * 生成 class 文件的字节
+   */
+  byte[] toByteArray() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(52);
+      out.writeShort(poolSize);
+      out.write(poolBytes.toByteArray());
+      out.writeShort(access);
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      out.writeShort(0);
+      out.writeShort(fields.size());
+      for (byte[] f : fields) {
+        out.write(f);
+      }
+      out.writeShort(methods.size());
+      for (byte[] m : methods) {
+        out.write(m);
+      }
+      out.writeShort(0);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private byte[] drain() {
+    byte[] b = memberBytes.toByteArray();
+    memberBytes.reset();
+    return b;
+  }
+
+  int utf8(String s) {
+    Integer i = poolIndex.get("U" + s);
+    if (null != i) {
+      return i;
+    }
+    try {
+      pool.writeByte(CONSTANT_UTF8);
+      pool.writeUTF(s);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return register("U" + s);
+  }
+
+  int classRef(String internalName) {
+    Integer i = poolIndex.get("C" + internalName);
+    if (null != i) {
+      return i;
+    }
+    int name = utf8(internalName);
+    writeEntry(CONSTANT_CLASS, name);
+    return register("C" + internalName);
+  }
+
+  int string(String s) {
+    Integer i = poolIndex.get("S" + s);
+    if (null != i) {
+      return i;
+    }
+    int value = utf8(s);
+    writeEntry(CONSTANT_STRING, value);
+    return register("S" + s);
+  }
+
+  int fieldRef(String owner, String name, String descriptor) {
+    return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+  }
+
+  int methodRef(String owner, String name, String descriptor) {
+    return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+  }
+
+  private int memberRef(int tag, String owner, String name, String descriptor) {
+    String key = "M" + tag + owner + "." + name + descriptor;
+    Integer i = poolIndex.get(key);
+    if (null != i) {
+      return i;
+    }
+    int c = classRef(owner);
+    int nameAndType = nameAndType(name, descriptor);
+    writeEntry(tag, c, nameAndType);
+    return register(key);
+  }
+
+  private int nameAndType(String name, String descriptor) {
+    String key = "N" + name + descriptor;
+    Integer i = poolIndex.get(key);
+    if (null != i) {
+      return i;
+    }
+    int n = utf8(name);
+    int d = utf8(descriptor);
+    writeEntry(CONSTANT_NAME_AND_TYPE, n, d);
+    return register(key);
+  }
+
+  private void writeEntry(int tag, int... indexes) {
+    try {
+      pool.writeByte(tag);
+      for (int index : indexes) {
+        pool.writeShort(index);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private int register(String key) {
+    if (poolSize == 0xFFFF) {
+      throw new IllegalStateException("常量池已满！");
+    }
+    int i = poolSize++;
+    poolIndex.put(key, i);
+    return i;
+  }
+
+  /**
+   * 方法体
+   */
+  static final class Code {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final int maxStack;
+    private final int maxLocals;
+
+    Code(int maxStack, int maxLocals) {
+      this.maxStack = maxStack;
+      this.maxLocals = maxLocals;
+    }
+
+    /**
+     * 无操作数的指令
+     */
+    Code op(int opcode) {
+      bytes.write(opcode);
+      return this;
+    }
+
+    /**
+     * 以常量池索引为操作数的指令
+     */
+    Code op(int opcode, int poolIndex) {
+      bytes.write(opcode);
+      bytes.write(poolIndex >>> 8);
+      bytes.write(poolIndex);
+      return this;
+    }
+
+    /**
+     * 将常量池中的常量压栈（ldc_w）
+     */
+    Code ldc(int poolIndex) {
+      return op(0x13, poolIndex);
+    }
+
+    /**
+     * 将整数压栈（sipush）
+     */
+    Code push(int value) {
+      StatusCheck.checkIfLegal(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE);
+      return op(0x11, value & 0xFFFF);
+    }
+  }
+}
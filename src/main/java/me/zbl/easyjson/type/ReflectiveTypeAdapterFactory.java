@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.type;
+
+import me.zbl.easyjson.AbstractJsonTypeAdapter;
+import me.zbl.easyjson.BindingPlan;
+import me.zbl.easyjson.EasyJson;
+import me.zbl.easyjson.JsonType;
+import me.zbl.easyjson.JsonTypeAdapterFactory;
+import me.zbl.easyjson.io.JsonStringWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+
+/**
+ * 基于反射的类型适配器工厂
+ * <p>
+ * 适用于普通的 Java 对象，对象的每个需要序列化的域都作为 Json 对象的一个属性，
+ * 域的解析结果以 {@link BindingPlan} 的形式缓存在 {@link EasyJson} 中，每个类只解析一次
+ * <p>
+ * 开启生成模式后，为每个类在运行时生成专用的适配器类（见 {@link TypeAdapterGenerator}），
+ * 无法生成时仍使用按绑定计划遍历域的适配器
+ *
+ * @author JamesZBL
+ * @date 2018-02-07
+ */
+public final class ReflectiveTypeAdapterFactory implements JsonTypeAdapterFactory {
+
+  /**
+   * 是否在运行时生成专用的适配器类
+   */
+  private final boolean generateAdapters;
+
+  public ReflectiveTypeAdapterFactory() {
+    this(false);
+  }
+
+  /**
+   * @param generateAdapters 是否在运行时生成专用的适配器类
+   */
+  public ReflectiveTypeAdapterFactory(boolean generateAdapters) {
+    this.generateAdapters = generateAdapters;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> AbstractJsonTypeAdapter<T> createAdapter(EasyJson context, JsonType<?> type) {
+    Class<?> raw = type.getRaw();
+    if (!isPlainClass(raw)) {
+      return null;
+    }
+    BindingPlan plan = context.getBindingPlan(raw);
+    if (!generateAdapters) {
+      return (AbstractJsonTypeAdapter<T>) new Adapter(plan);
+    }
+    // 适配器由 EasyJson 缓存，每个类只会生成一次
+    AbstractJsonTypeAdapter<Object> adapter = TypeAdapterGenerator.generate(plan);
+    if (null == adapter) {
+      adapter = new Adapter(plan);
+    }
+    return (AbstractJsonTypeAdapter<T>) adapter;
+  }
+
+  /**
+   * 判断是否为可以通过反射读取域的普通类
+   * 基本数据类型、数组、接口、抽象类、枚举以及 JDK 自身的类不在此列
+   */
+  static boolean isPlainClass(Class<?> raw) {
+    if (raw.isPrimitive() || raw.isArray() || raw.isInterface() || raw.isEnum()) {
+      return false;
+    }
+    if (Modifier.isAbstract(raw.getModifiers())) {
+      return false;
+    }
+    String name = raw.getName();
+    return !name.startsWith("java.") && !name.startsWith("javax.");
+  }
+
+  /**
+   * 按绑定计划写出对象的适配器
+   */
+  private static final class Adapter extends AbstractJsonTypeAdapter<Object> {
+
+    private final BindingPlan plan;
+
+    Adapter(BindingPlan plan) {
+      this.plan = plan;
+    }
+
+    @Override
+    public void convertToJson(Object o, JsonStringWriter w) throws IOException {
+      if (null == o) {
+        w.nullValue();
+        return;
+      }
+      w.newJsonObject();
+      plan.write(o, w);
+      w.finishJsonObject();
+    }
+  }
+}
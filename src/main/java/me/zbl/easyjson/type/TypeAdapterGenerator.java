@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.type;
+
+import me.zbl.easyjson.BindingPlan;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static me.zbl.easyjson.type.ClassFileBuilder.*;
+
+/**
+ * 类型适配器生成器
+ * <p>
+ * 根据 {@link BindingPlan} 为每个类生成一个专用的 {@link AbstractGeneratedTypeAdapter} 子类，
+ * 每个域都是一段直线代码：写名称、通过 static final 方法句柄读取域、写值。
+ * 方法句柄是常量，JIT 可以将读取内联，写值的调用点也都是单态的。
+ * <p>
+ * 运行环境支持 {@code Lookup.defineHiddenClass}（Java 15 及以上）时以隐藏类的形式定义，
+ * 否则由一个单独的类加载器定义，两种方式下生成的类都可以随适配器一起被回收
+ *
+ * @author JamesZBL
+ * @date 2018-02-08
+ */
+final class TypeAdapterGenerator {
+
+  /**
+   * 超过该数量的域时不生成，避免方法体超过 class 文件的长度限制
+   */
+  private static final int MAX_FIELDS = 1024;
+
+  private static final String PACKAGE = "me/zbl/easyjson/type/";
+  private static final String SUPER = PACKAGE + "AbstractGeneratedTypeAdapter";
+  private static final String WRITER = "me/zbl/easyjson/io/JsonStringWriter";
+  private static final String WRITER_DESC = "L" + WRITER + ";";
+  private static final String PLAN = "me/zbl/easyjson/BindingPlan";
+  private static final String METHOD_HANDLE = "java/lang/invoke/MethodHandle";
+  private static final String METHOD_HANDLES = "java/lang/invoke/MethodHandles";
+  private static final String LOOKUP_DESC = "Ljava/lang/invoke/MethodHandles$Lookup;";
+  private static final String NAME = "me/zbl/easyjson/io/PreEncodedName";
+  private static final String NAME_DESC = "L" + NAME + ";";
+
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  private static final Method DEFINE_HIDDEN_CLASS;
+  private static final Object NO_CLASS_OPTIONS;
+
+  static {
+    Method define = null;
+    Object options = null;
+    try {
+      Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+      options = Array.newInstance(option, 0);
+      define = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, options.getClass());
+    } catch (ReflectiveOperationException e) {
+      // 运行环境不支持隐藏类
+    }
+    DEFINE_HIDDEN_CLASS = define;
+    NO_CLASS_OPTIONS = options;
+  }
+
+  private TypeAdapterGenerator() {
+  }
+
+  /**
+   * 生成适配器
+   *
+   * @return 生成的适配器，无法生成时返回 null
+   */
+  static AbstractGeneratedTypeAdapter generate(BindingPlan plan) {
+    if (plan.size() > MAX_FIELDS) {
+      return null;
+    }
+    String name = PACKAGE + "GeneratedAdapter$" + plan.getRaw().getSimpleName() + "$" + COUNTER.incrementAndGet();
+    byte[] bytes = buildClass(name, plan);
+    Object[] data = new Object[plan.size() + 1];
+    for (int i = 0; i < plan.size(); i++) {
+      if (plan.getReadType(i).isPrimitive()) {
+        data[i] = plan.getGetter(i);
+      }
+    }
+    data[plan.size()] = plan;
+    String binaryName = name.replace('/', '.');
+    AbstractGeneratedTypeAdapter.putClassData(binaryName, data);
+    try {
+      return (AbstractGeneratedTypeAdapter) define(bytes).getConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    } finally {
+      // 类初始化时已取走，这里只清理定义失败时遗留的数据
+      AbstractGeneratedTypeAdapter.removeClassData(binaryName);
+    }
+  }
+
+  private static Class<?> define(byte[] bytes) throws ReflectiveOperationException {
+    if (null != DEFINE_HIDDEN_CLASS) {
+      MethodHandles.Lookup lookup = (MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(), bytes, true, NO_CLASS_OPTIONS);
+      return lookup.lookupClass();
+    }
+    return new GeneratedClassLoader(TypeAdapterGenerator.class.getClassLoader()).define(bytes);
+  }
+
+  /**
+   * 生成 class 文件
+   */
+  private static byte[] buildClass(String name, BindingPlan plan) {
+    ClassFileBuilder b = new ClassFileBuilder(ACC_PUBLIC | ACC_FINAL | ACC_SUPER, name, SUPER);
+    int n = plan.size();
+    for (int i = 0; i < n; i++) {
+      if (plan.getReadType(i).isPrimitive()) {
+        b.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "g" + i, "L" + METHOD_HANDLE + ";");
+        b.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "n" + i, NAME_DESC);
+      }
+    }
+    b.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "plan", "L" + PLAN + ";");
+
+    // 构造方法
+    ClassFileBuilder.Code init = new ClassFileBuilder.Code(1, 1)
+            .op(ALOAD_0)
+            .op(INVOKESPECIAL, b.methodRef(SUPER, "<init>", "()V"))
+            .op(RETURN);
+    b.method(ACC_PUBLIC, "<init>", "()V", init);
+
+    // 类初始化：从登记的数据中取出方法句柄和绑定计划
+    ClassFileBuilder.Code clinit = new ClassFileBuilder.Code(3, 0)
+            .op(INVOKESTATIC, b.methodRef(METHOD_HANDLES, "lookup", "()" + LOOKUP_DESC))
+            .op(INVOKESTATIC, b.methodRef(SUPER, "takeClassData", "(" + LOOKUP_DESC + ")[Ljava/lang/Object;"));
+    for (int i = 0; i < n; i++) {
+      if (plan.getReadType(i).isPrimitive()) {
+        clinit.op(DUP)
+                .push(i)
+                .op(AALOAD)
+                .op(CHECKCAST, b.classRef(METHOD_HANDLE))
+                .op(PUTSTATIC, b.fieldRef(name, "g" + i, "L" + METHOD_HANDLE + ";"));
+      }
+    }
+    clinit.push(n)
+            .op(AALOAD)
+            .op(CHECKCAST, b.classRef(PLAN))
+            .op(PUTSTATIC, b.fieldRef(name, "plan", "L" + PLAN + ";"));
+    // 预先编码好的域名称
+    for (int i = 0; i < n; i++) {
+      if (plan.getReadType(i).isPrimitive()) {
+        clinit.op(GETSTATIC, b.fieldRef(name, "plan", "L" + PLAN + ";"))
+                .push(i)
+                .op(INVOKEVIRTUAL, b.methodRef(PLAN, "getEncodedName", "(I)" + NAME_DESC))
+                .op(PUTSTATIC, b.fieldRef(name, "n" + i, NAME_DESC));
+      }
+    }
+    clinit.op(RETURN);
+    b.method(ACC_STATIC, "<clinit>", "()V", clinit);
+
+    // 写出所有的域
+    ClassFileBuilder.Code write = new ClassFileBuilder.Code(4, 3);
+    for (int i = 0; i < n; i++) {
+      Class<?> t = plan.getReadType(i);
+      if (t.isPrimitive()) {
+        String p = descriptorOf(t);
+        write.op(ALOAD_2)
+                .op(GETSTATIC, b.fieldRef(name, "n" + i, NAME_DESC))
+                .op(INVOKEVIRTUAL, b.methodRef(WRITER, "name", "(" + NAME_DESC + ")" + WRITER_DESC))
+                .op(GETSTATIC, b.fieldRef(name, "g" + i, "L" + METHOD_HANDLE + ";"))
+                .op(ALOAD_1)
+                .op(INVOKEVIRTUAL, b.methodRef(METHOD_HANDLE, "invokeExact", "(Ljava/lang/Object;)" + p))
+                .op(INVOKEVIRTUAL, b.methodRef(WRITER, "value", "(" + p + ")" + WRITER_DESC))
+                .op(POP);
+      } else {
+        write.op(GETSTATIC, b.fieldRef(name, "plan", "L" + PLAN + ";"))
+                .push(i)
+                .op(ALOAD_1)
+                .op(ALOAD_2)
+                .op(INVOKEVIRTUAL, b.methodRef(PLAN, "writeField", "(ILjava/lang/Object;" + WRITER_DESC + ")V"));
+      }
+    }
+    write.op(RETURN);
+    b.method(ACC_PROTECTED, "writeFields", "(Ljava/lang/Object;" + WRITER_DESC + ")V", write);
+    return b.toByteArray();
+  }
+
+  private static String descriptorOf(Class<?> primitive) {
+    if (primitive == int.class) {
+      return "I";
+    } else if (primitive == long.class) {
+      return "J";
+    } else if (primitive == double.class) {
+      return "D";
+    } else if (primitive == float.class) {
+      return "F";
+    } else if (primitive == boolean.class) {
+      return "Z";
+    } else if (primitive == char.class) {
+      return "C";
+    }
+    throw new IllegalArgumentException("无法识别的类型！");
+  }
+
+  /**
+   * 运行环境不支持隐藏类时，用于定义生成的类的类加载器，每个生成的类使用一个
+   */
+  private static final class GeneratedClassLoader extends ClassLoader {
+
+    GeneratedClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(byte[] bytes) {
+      return defineClass(null, bytes, 0, bytes.length);
+    }
+  }
+}
@@ -18,11 +18,20 @@ package me.zbl.easyjson.type;
 
 import me.zbl.easyjson.AbstractJsonTypeAdapter;
 import me.zbl.easyjson.EasyJson;
+import me.zbl.easyjson.JsonItem;
+import me.zbl.easyjson.JsonTreeWriter;
 import me.zbl.easyjson.JsonType;
 import me.zbl.easyjson.JsonTypeAdapterFactory;
 import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.ParallelArrayWriter;
 
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * 常见类型的适配器仓库
@@ -72,6 +81,146 @@ public final class TypeAdapterRepository {
     }
   };
 
+  /**
+   * 枚举，以常量的名称表示
+   */
+  public static final AbstractJsonTypeAdapter<Enum<?>> ENUM = new AbstractJsonTypeAdapter<Enum<?>>() {
+    @Override
+    public void convertToJson(Enum<?> o, JsonStringWriter w) throws IOException {
+      w.value(null == o ? null : o.name());
+    }
+  };
+
+  public static final JsonTypeAdapterFactory BOOLEAN_FACTORY = buildFactory(boolean.class, Boolean.class, BOOLEAN);
+
+  public static final JsonTypeAdapterFactory CHARACTER_FACTORY = buildFactory(char.class, Character.class, CHARACTER);
+
+  public static final JsonTypeAdapterFactory NUMBER_FACTORY = buildHierarchyFactory(Number.class, NUMBER);
+
+  public static final JsonTypeAdapterFactory STRING_FACTORY = buildFactory(String.class, STRING);
+
+  @SuppressWarnings("unchecked")
+  public static final JsonTypeAdapterFactory ENUM_FACTORY = buildHierarchyFactory((Class<Enum<?>>) (Class<?>) Enum.class, ENUM);
+
+  /**
+   * 数组（包括基本数据类型的数组），每个元素按其运行时类型转换
+   */
+  public static final JsonTypeAdapterFactory ARRAY_FACTORY = new JsonTypeAdapterFactory() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> AbstractJsonTypeAdapter<T> createAdapter(final EasyJson context, JsonType<?> type) {
+      if (!type.getRaw().isArray()) {
+        return null;
+      }
+      return (AbstractJsonTypeAdapter<T>) new AbstractJsonTypeAdapter<Object>() {
+        @Override
+        public void convertToJson(Object o, JsonStringWriter w) throws IOException {
+          if (null == o) {
+            w.nullValue();
+            return;
+          }
+          final Object array = o;
+          context.getArrayWriter().writeArray(w, Array.getLength(o), new ParallelArrayWriter.ElementWriter() {
+            @Override
+            public void write(int i, JsonStringWriter cw) throws IOException {
+              context.toJson(Array.get(array, i), cw);
+            }
+          });
+        }
+      };
+    }
+  };
+
+  /**
+   * 集合，每个元素按其运行时类型转换
+   */
+  public static final JsonTypeAdapterFactory COLLECTION_FACTORY = new JsonTypeAdapterFactory() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> AbstractJsonTypeAdapter<T> createAdapter(final EasyJson context, JsonType<?> type) {
+      if (!Collection.class.isAssignableFrom(type.getRaw())) {
+        return null;
+      }
+      return (AbstractJsonTypeAdapter<T>) new AbstractJsonTypeAdapter<Collection<?>>() {
+        @Override
+        public void convertToJson(Collection<?> o, JsonStringWriter w) throws IOException {
+          if (null == o) {
+            w.nullValue();
+            return;
+          }
+          ParallelArrayWriter arrayWriter = context.getArrayWriter();
+          if (!arrayWriter.isParallel(o.size())) {
+            w.newJsonArray();
+            for (Object e : o) {
+              context.toJson(e, w);
+            }
+            w.finishJsonArray();
+            return;
+          }
+          // 并行写出时需按下标取元素
+          final List<?> list = o instanceof List && o instanceof RandomAccess ? (List<?>) o : Arrays.asList(o.toArray());
+          arrayWriter.writeArray(w, list.size(), new ParallelArrayWriter.ElementWriter() {
+            @Override
+            public void write(int i, JsonStringWriter cw) throws IOException {
+              context.toJson(list.get(i), cw);
+            }
+          });
+        }
+      };
+    }
+  };
+
+  /**
+   * Map，转换成 Json 对象，键以 {@link String#valueOf(Object)} 表示，值按其运行时类型转换
+   */
+  public static final JsonTypeAdapterFactory MAP_FACTORY = new JsonTypeAdapterFactory() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> AbstractJsonTypeAdapter<T> createAdapter(final EasyJson context, JsonType<?> type) {
+      if (!Map.class.isAssignableFrom(type.getRaw())) {
+        return null;
+      }
+      return (AbstractJsonTypeAdapter<T>) new AbstractJsonTypeAdapter<Map<?, ?>>() {
+        @Override
+        public void convertToJson(Map<?, ?> o, JsonStringWriter w) throws IOException {
+          if (null == o) {
+            w.nullValue();
+            return;
+          }
+          w.newJsonObject();
+          for (Map.Entry<?, ?> e : o.entrySet()) {
+            w.name(String.valueOf(e.getKey()));
+            context.toJson(e.getValue(), w);
+          }
+          w.finishJsonObject();
+        }
+      };
+    }
+  };
+
+  /**
+   * {@link JsonItem} 及其子类型，元素很多的 {@link me.zbl.easyjson.JsonArray} 按 {@link EasyJson#getArrayWriter()} 写出
+   */
+  public static final JsonTypeAdapterFactory JSON_ITEM_FACTORY = new JsonTypeAdapterFactory() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> AbstractJsonTypeAdapter<T> createAdapter(EasyJson context, JsonType<?> type) {
+      if (!JsonItem.class.isAssignableFrom(type.getRaw())) {
+        return null;
+      }
+      final JsonTreeWriter treeWriter = new JsonTreeWriter(context.getArrayWriter());
+      return (AbstractJsonTypeAdapter<T>) new AbstractJsonTypeAdapter<JsonItem>() {
+        @Override
+        public void convertToJson(JsonItem o, JsonStringWriter w) throws IOException {
+          treeWriter.write(o, w);
+        }
+      };
+    }
+  };
+
+  private TypeAdapterRepository() {
+  }
+
   /**
    * 构建一个生产类型适配器的工厂
    *
@@ -80,7 +229,7 @@ public final class TypeAdapterRepository {
    * @param <T1>    适配器适配的类型
    */
   @SuppressWarnings("unchecked")
-  private <T1> JsonTypeAdapterFactory buildFactory(final Class<T1> type, final AbstractJsonTypeAdapter<T1> adapter) {
+  private static <T1> JsonTypeAdapterFactory buildFactory(final Class<T1> type, final AbstractJsonTypeAdapter<T1> adapter) {
     return new JsonTypeAdapterFactory() {
       @Override
       public <T> AbstractJsonTypeAdapter<T> createAdapter(EasyJson context, JsonType<?> got) {
@@ -89,4 +238,45 @@ public final class TypeAdapterRepository {
       }
     };
   }
+
+  /**
+   * 构建一个同时适配基本数据类型及其包装类型的工厂
+   *
+   * @param unboxed 基本数据类型
+   * @param boxed   包装类型
+   * @param adapter 已实现的类型适配器
+   * @param <T1>    适配器适配的类型
+   */
+  @SuppressWarnings("unchecked")
+  private static <T1> JsonTypeAdapterFactory buildFactory(final Class<?> unboxed, final Class<T1> boxed, final AbstractJsonTypeAdapter<T1> adapter) {
+    return new JsonTypeAdapterFactory() {
+      @Override
+      public <T> AbstractJsonTypeAdapter<T> createAdapter(EasyJson context, JsonType<?> got) {
+        Class<?> raw = got.getRaw();
+        return unboxed == raw || boxed == raw ? (AbstractJsonTypeAdapter<T>) adapter : null;
+      }
+    };
+  }
+
+  /**
+   * 构建一个适配指定类型及其所有子类型的工厂
+   * 数值型的基本数据类型同样视为 {@link Number} 的子类型
+   *
+   * @param type    类型
+   * @param adapter 已实现的类型适配器
+   * @param <T1>    适配器适配的类型
+   */
+  @SuppressWarnings("unchecked")
+  private static <T1> JsonTypeAdapterFactory buildHierarchyFactory(final Class<T1> type, final AbstractJsonTypeAdapter<T1> adapter) {
+    return new JsonTypeAdapterFactory() {
+      @Override
+      public <T> AbstractJsonTypeAdapter<T> createAdapter(EasyJson context, JsonType<?> got) {
+        Class<?> raw = got.getRaw();
+        if (raw.isPrimitive()) {
+          raw = Types.wrap(raw);
+        }
+        return type.isAssignableFrom(raw) ? (AbstractJsonTypeAdapter<T>) adapter : null;
+      }
+    };
+  }
 }
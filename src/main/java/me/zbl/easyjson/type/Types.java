@@ -36,6 +36,34 @@ public class Types {
     return t;
   }
 
+  /**
+   * 获取基本数据类型对应的包装类型
+   * 若不是基本数据类型则原样返回
+   */
+  public static Class<?> wrap(Class<?> c) {
+    if (!c.isPrimitive()) {
+      return c;
+    }
+    if (c == int.class) {
+      return Integer.class;
+    } else if (c == long.class) {
+      return Long.class;
+    } else if (c == double.class) {
+      return Double.class;
+    } else if (c == float.class) {
+      return Float.class;
+    } else if (c == short.class) {
+      return Short.class;
+    } else if (c == byte.class) {
+      return Byte.class;
+    } else if (c == boolean.class) {
+      return Boolean.class;
+    } else if (c == char.class) {
+      return Character.class;
+    }
+    return Void.class;
+  }
+
   /**
    * 获取类型的非泛型类型
    */
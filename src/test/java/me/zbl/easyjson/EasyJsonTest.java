@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link EasyJson} 中适配器的查找和缓存
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class EasyJsonTest {
+
+  static class Node {
+    int value;
+    Node next;
+
+    Node(int value, Node next) {
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  @Test
+  public void classAndTypeLookupsShareTheAdapter() {
+    EasyJson json = new EasyJson();
+    AbstractJsonTypeAdapter<Node> byClass = json.getAdapter(Node.class);
+    assertSame(byClass, json.getAdapter(Node.class));
+    assertSame(byClass, json.getAdapter(JsonType.get(Node.class)));
+  }
+
+  @Test
+  public void recursiveTypesAreResolved() {
+    EasyJson json = new EasyJson();
+    Node list = new Node(1, new Node(2, null));
+    assertEquals("{\"value\":1,\"next\":{\"value\":2,\"next\":null}}", json.toJson(list));
+    List<Object> mixed = Arrays.<Object>asList(list, 3, "s", null);
+    assertEquals("[{\"value\":1,\"next\":{\"value\":2,\"next\":null}},3,\"s\",null]", json.toJson(mixed));
+  }
+
+  @Test
+  public void nullTypeIsRejected() {
+    EasyJson json = new EasyJson();
+    try {
+      json.getAdapter((Class<?>) null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+    try {
+      json.getAdapter((JsonType<?>) null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link JsonArray} 的克隆和冻结
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonArrayTest {
+
+  private static JsonItem parse(String json) {
+    return new JsonTreeParser().parse(json);
+  }
+
+  @Test
+  public void elementTakenBeforeCloneStaysWithTheOriginal() {
+    JsonArray outer = (JsonArray) parse("[[1],{\"z\":1}]");
+    JsonArray first = (JsonArray) outer.getItem(0);
+    JsonObject second = (JsonObject) outer.getItem(1);
+    JsonArray clone = (JsonArray) outer.itemClone();
+    first.addItem(2);
+    second.addProperty("y", 2);
+    assertEquals(parse("[[1,2],{\"z\":1,\"y\":2}]"), outer);
+    assertEquals(parse("[[1],{\"z\":1}]"), clone);
+  }
+
+  @Test
+  public void elementAddedByReferenceStaysWithTheOriginal() {
+    JsonArray inner = new JsonArray();
+    inner.addItem(1);
+    JsonArray outer = new JsonArray();
+    outer.addItem(inner);
+    JsonArray clone = (JsonArray) outer.itemClone();
+    inner.addItem(2);
+    assertEquals(parse("[[1]]"), clone);
+    assertEquals(parse("[[1,2]]"), outer);
+  }
+
+  @Test
+  public void nestedElementInsideObjectStaysWithTheOriginal() {
+    JsonObject outer = (JsonObject) parse("{\"a\":[[1]]}");
+    JsonArray deep = (JsonArray) ((JsonArray) outer.getItem("a")).getItem(0);
+    JsonObject clone = (JsonObject) outer.itemClone();
+    deep.addItem(2);
+    ((JsonArray) clone.getItem("a")).addItem(3);
+    assertEquals(parse("{\"a\":[[1,2]]}"), outer);
+    assertEquals(parse("{\"a\":[[1],3]}"), clone);
+  }
+
+  @Test
+  public void freezeLeavesElementsSharedWithACloneMutable() {
+    JsonArray outer = (JsonArray) parse("[[1],{\"z\":1}]");
+    JsonArray clone = (JsonArray) outer.itemClone();
+    outer.freeze();
+    assertTrue(outer.itemAt(0).isFrozen());
+    assertFalse(clone.itemAt(0).isFrozen());
+    assertFalse(clone.itemAt(1).isFrozen());
+  }
+
+  @Test
+  public void frozenElementIsSharedAfterClone() {
+    JsonItem child = parse("[1]").freeze();
+    JsonArray root = new JsonArray();
+    root.addItem(child);
+    JsonArray clone = (JsonArray) root.itemClone();
+    assertSame(child, root.getItem(0));
+    assertSame(child, clone.getItem(0));
+    assertTrue(root.getItem(0).isFrozen());
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link JsonBasic} 的可修改性
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonBasicTest {
+
+  @Test
+  public void leavesAddedThroughThePublicApiAreMutable() {
+    JsonObject obj = new JsonObject();
+    obj.addProperty("n", 1);
+    obj.addProperty("b", true);
+    obj.addProperty("d", 1.5);
+    for (String key : new String[]{"n", "b", "d"}) {
+      JsonBasic leaf = (JsonBasic) obj.getItem(key);
+      assertFalse(leaf.isFrozen());
+      leaf.setContent("changed");
+      assertEquals("changed", obj.getItem(key).getStringValue());
+    }
+    JsonArray array = new JsonArray();
+    array.addItem(42);
+    ((JsonBasic) array.getItem(0)).setContent(43);
+    assertEquals(43, array.getItem(0).getIntValue());
+    JsonBasic boxed = JsonBasic.valueOf((Object) 7);
+    boxed.setContent(8);
+    assertEquals(8, boxed.getIntValue());
+  }
+
+  @Test
+  public void primitiveFactoriesAreImmutable() {
+    assertTrue(JsonBasic.valueOf(1L).isFrozen());
+    assertTrue(JsonBasic.valueOf(1.5).isFrozen());
+    assertTrue(JsonBasic.valueOf(true).isFrozen());
+  }
+
+  @Test
+  public void subclassesAreNotFrozenByClassIdentity() {
+    JsonBasic custom = new JsonBasic("x") {
+    };
+    assertFalse(custom.isFrozen());
+    custom.setContent("y");
+    assertEquals("y", custom.getStringValue());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void frozenCopyRejectsChanges() {
+    JsonBasic leaf = new JsonBasic("x");
+    JsonItem frozen = leaf.freeze();
+    assertTrue(frozen.isFrozen());
+    assertFalse(leaf.isFrozen());
+    ((JsonBasic) frozen).setContent("y");
+  }
+}
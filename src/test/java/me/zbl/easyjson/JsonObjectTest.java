@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link JsonObject} 的键、克隆和冻结
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonObjectTest {
+
+  private static JsonObject parse(String json) {
+    return (JsonObject) new JsonTreeParser().parse(json);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void rejectsNullKey() {
+    new JsonObject().addItem(null, JsonNull.getINSTANCE());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void rejectsNullKeyInAddProperty() {
+    new JsonObject().addProperty(null, "x");
+  }
+
+  @Test
+  public void lookupWithNullKeyFindsNothing() {
+    JsonObject obj = new JsonObject();
+    for (int i = 0; i < 20; i++) {
+      obj.addProperty("k" + i, i);
+    }
+    assertNull(obj.getItem(null));
+    assertFalse(obj.containsItem(null));
+    obj.removeItem(null);
+    assertEquals(20, obj.size());
+  }
+
+  @Test
+  public void childTakenBeforeCloneStaysWithTheOriginal() {
+    JsonObject outer = parse("{\"i\":{\"z\":1}}");
+    JsonObject inner = (JsonObject) outer.getItem("i");
+    JsonObject clone = (JsonObject) outer.itemClone();
+    inner.addProperty("y", 2);
+    assertEquals(parse("{\"i\":{\"z\":1,\"y\":2}}"), outer);
+    assertEquals(parse("{\"i\":{\"z\":1}}"), clone);
+  }
+
+  @Test
+  public void childAddedByReferenceStaysWithTheOriginal() {
+    JsonObject inner = new JsonObject();
+    inner.addProperty("z", 1);
+    JsonObject outer = new JsonObject();
+    outer.addItem("i", inner);
+    JsonObject clone = (JsonObject) outer.itemClone();
+    inner.addProperty("y", 2);
+    assertEquals(parse("{\"i\":{\"z\":1}}"), clone);
+    assertSame(inner, outer.getItem("i"));
+  }
+
+  @Test
+  public void nestedChildTakenBeforeCloneStaysWithTheOriginal() {
+    JsonObject outer = parse("{\"i\":{\"z\":{\"a\":1}},\"j\":[1]}");
+    JsonObject deep = (JsonObject) ((JsonObject) outer.getItem("i")).getItem("z");
+    JsonObject clone = (JsonObject) outer.itemClone();
+    JsonObject second = (JsonObject) outer.itemClone();
+    deep.addProperty("b", 2);
+    assertEquals(parse("{\"i\":{\"z\":{\"a\":1}},\"j\":[1]}"), clone);
+    assertEquals(parse("{\"i\":{\"z\":{\"a\":1}},\"j\":[1]}"), second);
+    assertEquals(parse("{\"i\":{\"z\":{\"a\":1,\"b\":2}},\"j\":[1]}"), outer);
+  }
+
+  @Test
+  public void changesAfterCloneStayOnOneSide() {
+    JsonObject outer = parse("{\"i\":{\"z\":1},\"j\":{\"z\":1}}");
+    JsonObject inner = (JsonObject) outer.getItem("i");
+    JsonObject clone = (JsonObject) outer.itemClone();
+    ((JsonObject) clone.getItem("i")).addProperty("c", 1);
+    ((JsonObject) clone.getItem("j")).addProperty("c", 1);
+    ((JsonObject) outer.getItem("j")).addProperty("o", 1);
+    inner.addProperty("o", 1);
+    assertEquals(parse("{\"i\":{\"z\":1,\"o\":1},\"j\":{\"z\":1,\"o\":1}}"), outer);
+    assertEquals(parse("{\"i\":{\"z\":1,\"c\":1},\"j\":{\"z\":1,\"c\":1}}"), clone);
+  }
+
+  @Test
+  public void freezeLeavesChildrenSharedWithACloneMutable() {
+    JsonObject outer = parse("{\"i\":{\"z\":1},\"j\":[1]}");
+    JsonObject clone = (JsonObject) outer.itemClone();
+    outer.freeze();
+    assertTrue(outer.valueAt(0).isFrozen());
+    assertFalse(clone.valueAt(0).isFrozen());
+    assertFalse(clone.valueAt(1).isFrozen());
+    ((JsonObject) clone.getItem("i")).addProperty("y", 2);
+    assertEquals(parse("{\"i\":{\"z\":1},\"j\":[1]}"), outer);
+  }
+
+  @Test
+  public void frozenChildIsSharedAfterClone() {
+    JsonItem child = parse("{\"a\":1}").freeze();
+    JsonObject root = new JsonObject();
+    root.addItem("c", child);
+    JsonObject clone = (JsonObject) root.itemClone();
+    assertSame(child, root.getItem("c"));
+    assertSame(child, clone.getItem("c"));
+    assertTrue(root.getItem("c").isFrozen());
+  }
+}
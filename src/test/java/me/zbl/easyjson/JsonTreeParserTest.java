@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link JsonTreeParser} 的嵌套层数限制
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonTreeParserTest {
+
+  private static String nested(String open, String close, int depth) {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      b.append(open);
+    }
+    b.append("1");
+    for (int i = 0; i < depth; i++) {
+      b.append(close);
+    }
+    return b.toString();
+  }
+
+  @Test
+  public void acceptsNestingUpToTheLimit() {
+    JsonItem item = new JsonTreeParser().parse(nested("[", "]", JsonTreeParser.DEFAULT_MAX_DEPTH));
+    assertTrue(item.typeOfJsonArray());
+    assertTrue(new JsonTreeParser(2).parse("{\"a\":[1]}") instanceof JsonObject);
+  }
+
+  @Test(expected = JsonUnknownFormatException.class)
+  public void rejectsNestingBeyondTheLimit() {
+    new JsonTreeParser().parse(nested("[", "]", JsonTreeParser.DEFAULT_MAX_DEPTH + 1));
+  }
+
+  @Test(expected = JsonUnknownFormatException.class)
+  public void deeplyNestedArraysDoNotOverflowTheStack() {
+    new JsonTreeParser().parse(nested("[", "]", 100000).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test(expected = JsonUnknownFormatException.class)
+  public void deeplyNestedObjectsDoNotOverflowTheStack() {
+    new JsonTreeParser().parse(nested("{\"a\":", "}", 100000));
+  }
+
+  @Test(expected = JsonUnknownFormatException.class)
+  public void customLimit() {
+    new JsonTreeParser(2).parse("{\"a\":[[1]]}");
+  }
+
+  @Test
+  public void objectsInsideDeeplyNestedArrays() {
+    String json = nested("[", "]", 12).replace("1", "{\"a\":[{\"b\":1}]}");
+    JsonItem item = new JsonTreeParser().parse(json);
+    for (int i = 0; i < 12; i++) {
+      item = ((JsonArray) item).getItem(0);
+    }
+    JsonItem b = ((JsonObject) ((JsonArray) ((JsonObject) item).getItem("a")).getItem(0)).getItem("b");
+    assertTrue(b.getIntValue() == 1);
+  }
+}
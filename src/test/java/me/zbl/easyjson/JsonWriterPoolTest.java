@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@link JsonWriterPool} 的复用、重置和过大缓冲区的丢弃
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonWriterPoolTest {
+
+  @Test
+  public void releasedInstanceIsReused() throws IOException {
+    JsonWriterPool pool = JsonWriterPool.acquire();
+    pool.charWriter().value("a");
+    pool.release();
+    assertSame(pool, JsonWriterPool.acquire());
+    pool.release();
+  }
+
+  @Test
+  public void nestedAcquisitionGetsAnotherInstance() {
+    JsonWriterPool outer = JsonWriterPool.acquire();
+    JsonWriterPool inner = JsonWriterPool.acquire();
+    assertNotSame(outer, inner);
+    inner.release();
+    // 槽位已被内层占用，外层的对象被丢弃
+    outer.release();
+    assertSame(inner, JsonWriterPool.acquire());
+    inner.release();
+  }
+
+  @Test
+  public void writersAreResetBeforeReuse() throws IOException {
+    JsonWriterPool pool = JsonWriterPool.acquire();
+    JsonStringWriter chars = pool.charWriter();
+    chars.setHtmlSafe(true);
+    chars.setTrusted(true);
+    chars.newJsonArray();
+    JsonUtf8Writer bytes = pool.byteWriter();
+    bytes.setAsciiOnly(true);
+    bytes.newJsonObject();
+    pool.release();
+
+    pool = JsonWriterPool.acquire();
+    chars = pool.charWriter();
+    assertFalse(chars.isHtmlSafe());
+    assertFalse(chars.isTrusted());
+    chars.value("<");
+    assertEquals("\"<\"", pool.charsToString());
+    bytes = pool.byteWriter();
+    assertFalse(bytes.isAsciiOnly());
+    bytes.value(1);
+    assertArrayEquals("1".getBytes("UTF-8"), bytes.toByteArray());
+    pool.release();
+  }
+
+  @Test
+  public void largeBuffersAreNotRetained() throws IOException {
+    char[] big = new char[JsonWriterPool.MAX_RETAINED_SIZE + 1];
+    Arrays.fill(big, 'x');
+    String value = new String(big);
+
+    JsonWriterPool pool = JsonWriterPool.acquire();
+    pool.charWriter().value(value);
+    pool.charsToString();
+    pool.release();
+    JsonWriterPool next = JsonWriterPool.acquire();
+    assertNotSame(pool, next);
+
+    next.byteWriter().value(value);
+    next.release();
+    assertNotSame(next, JsonWriterPool.acquire());
+  }
+}
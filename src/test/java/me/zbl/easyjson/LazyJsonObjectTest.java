@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.io.JsonStringWriter;
+import me.zbl.easyjson.io.JsonUtf8Writer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link LazyJsonObject} 的写出、格式检查和比较
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class LazyJsonObjectTest {
+
+  private static LazyJsonObject lazy(String json) {
+    return new LazyJsonObject(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String chars(JsonItem item) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonStringWriter w = new JsonStringWriter(out);
+    new JsonTreeWriter().write(item, w);
+    w.flush();
+    return out.toString();
+  }
+
+  private static String utf8(JsonItem item) throws IOException {
+    JsonUtf8Writer w = new JsonUtf8Writer();
+    new JsonTreeWriter().write(item, w);
+    return new String(w.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void untouchedMembersAreCopied() throws IOException {
+    LazyJsonObject obj = lazy("{\"a\" : {\"x\" : 1}, \"b\":2}");
+    assertEquals(2, obj.getItem("b").getIntValue());
+    assertEquals("{\"a\" : {\"x\" : 1}, \"b\":2}", chars(obj));
+    assertEquals("{\"a\" : {\"x\" : 1}, \"b\":2}", utf8(obj));
+  }
+
+  @Test
+  public void changesToATakenValueAreWrittenEvenAfterFreezing() throws IOException {
+    LazyJsonObject obj = lazy("{\"a\":{\"x\":1},\"b\":[1],\"c\":3}");
+    JsonObject a = (JsonObject) obj.getItem("a");
+    a.addProperty("y", 2);
+    a.freeze();
+    ((JsonArray) obj.getItem("b")).addItem(2);
+    assertEquals("{\"a\":{\"x\":1,\"y\":2},\"b\":[1,2],\"c\":3}", chars(obj));
+    assertEquals("{\"a\":{\"x\":1,\"y\":2},\"b\":[1,2],\"c\":3}", utf8(obj));
+  }
+
+  @Test
+  public void equalsJsonObjectWithTheSameMembers() {
+    String json = "{\"a\":{\"x\":1},\"b\":[1,2],\"c\":\"s\"}";
+    LazyJsonObject obj = lazy(json);
+    LazyJsonObject same = lazy("{\"c\":\"s\", \"b\":[1,2], \"a\":{\"x\":1}}");
+    JsonObject tree = (JsonObject) new JsonTreeParser().parse(json);
+    assertEquals(obj, same);
+    assertEquals(obj, tree);
+    assertEquals(tree, obj);
+    assertEquals(obj.toJsonObject(), obj);
+    assertEquals(tree.hashCode(), obj.hashCode());
+    assertEquals(tree.hashCode(), same.hashCode());
+    ((JsonObject) obj.getItem("a")).addProperty("y", 2);
+    assertFalse(obj.equals(same));
+    assertFalse(tree.equals(obj));
+  }
+
+  @Test
+  public void membersTheWriterWouldEscapeAreRewritten() throws IOException {
+    LazyJsonObject obj = lazy("{\"a\":\"<b>\",\"b\":1,\"c\":\"\u00e9\u2028\"}");
+    StringWriter out = new StringWriter();
+    JsonStringWriter w = new JsonStringWriter(out);
+    w.setHtmlSafe(true);
+    w.setAsciiOnly(true);
+    new JsonTreeWriter().write(obj, w);
+    w.flush();
+    assertEquals("{\"a\":\"\\u003cb\\u003e\",\"b\":1,\"c\":\"\\u00e9\\u2028\"}", out.toString());
+    JsonUtf8Writer utf8 = new JsonUtf8Writer();
+    new JsonTreeWriter().write(obj, utf8);
+    assertEquals("{\"a\":\"<b>\",\"b\":1,\"c\":\"\u00e9\\u2028\"}", new String(utf8.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void malformedMembersAreNotCopied() throws IOException {
+    String[] inputs = {"{\"a\":tru,\"b\":1}", "{\"a\":1.2.3}", "{\"a\":[1,,2]}", "{\"a\":{\"x\" 1}}", "{\"a\\q\":1}"};
+    for (String input : inputs) {
+      try {
+        utf8(lazy(input));
+        fail(input);
+      } catch (JsonUnknownFormatException expected) {
+      }
+    }
+  }
+}
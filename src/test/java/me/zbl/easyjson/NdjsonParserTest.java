@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link NdjsonParser} 的行切分、分段和错误位置
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class NdjsonParserTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+  /**
+   * 段很小，大多数行单独成段，较长的行超过段的长度
+   */
+  private final NdjsonParser parser = new NdjsonParser(executor, 16, 2);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static InputStream input(String ndjson) {
+    return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String longLine() {
+    StringBuilder b = new StringBuilder("{\"long\":\"");
+    for (int i = 0; i < 100; i++) {
+      b.append('x');
+    }
+    return b.append("\"}").toString();
+  }
+
+  private static List<JsonItem> expected() {
+    List<JsonItem> items = new ArrayList<>();
+    JsonTreeParser p = new JsonTreeParser();
+    items.add(p.parse("{\"a\":1}"));
+    items.add(p.parse("[1,2]"));
+    items.add(p.parse(longLine()));
+    items.add(p.parse("\"s\""));
+    items.add(p.parse("3"));
+    return items;
+  }
+
+  private static String document() {
+    return "{\"a\":1}\r\n\n  \r\n[1,2]\n" + longLine() + "\r\n\t\"s\" \n3";
+  }
+
+  private static Consumer<JsonItem> collect(final List<JsonItem> into) {
+    return new Consumer<JsonItem>() {
+      @Override
+      public void accept(JsonItem item) {
+        into.add(item);
+      }
+    };
+  }
+
+  @Test
+  public void orderedRecordsSkipBlankLinesAndCarriageReturns() {
+    List<JsonItem> items = new ArrayList<>();
+    assertEquals(5, parser.forEachOrdered(input(document()), collect(items)));
+    assertEquals(expected(), items);
+  }
+
+  @Test
+  public void unorderedRecordsAreAllDelivered() {
+    List<JsonItem> items = new ArrayList<>();
+    assertEquals(5, parser.forEach(input(document()), collect(items)));
+    assertEquals(new HashSet<>(expected()), new HashSet<>(items));
+  }
+
+  @Test
+  public void readsFiles() throws Exception {
+    Path file = Files.createTempFile("ndjson", ".txt");
+    try {
+      Files.write(file, document().getBytes(StandardCharsets.UTF_8));
+      List<JsonItem> items = new ArrayList<>();
+      assertEquals(5, new NdjsonParser(executor).forEachOrdered(file, collect(items)));
+      assertEquals(expected(), items);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void errorReportsTheByteOffsetOfTheRecord() {
+    String ndjson = "1\n[2]\n" + longLine() + "\n{bad}\n5\n";
+    int offset = ndjson.indexOf("{bad}");
+    for (NdjsonParser p : new NdjsonParser[]{parser, new NdjsonParser(executor)}) {
+      try {
+        p.forEachOrdered(input(ndjson), collect(new ArrayList<JsonItem>()));
+        fail();
+      } catch (JsonUnknownFormatException e) {
+        // 位于第 offset 个字节
+        assertTrue(e.getMessage(), e.getMessage().contains(" " + offset + " "));
+      }
+    }
+  }
+}
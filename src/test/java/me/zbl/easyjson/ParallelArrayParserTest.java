@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson;
+
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link ParallelArrayParser} 与 {@link ArrayElementScanner} 的元素切分和格式错误
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class ParallelArrayParserTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static ByteBuffer utf8(String json) {
+    return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void everyBatchSizeGivesTheSameElements() {
+    String json = " [1, \"a,]\\\"\" ,{\"k\":[2,3],\"s\":\"}\"}, [[]], null,\n-2.5e3 ] ";
+    JsonArray whole = (JsonArray) new JsonTreeParser().parse(json);
+    List<JsonItem> expected = new ArrayList<>();
+    for (JsonItem item : whole) {
+      expected.add(item);
+    }
+    for (int batchSize : new int[]{1, 2, 7, 1024}) {
+      assertEquals(expected, new ParallelArrayParser(executor, batchSize).parse(utf8(json)));
+    }
+  }
+
+  @Test
+  public void emptyArray() {
+    assertEquals(0, new ParallelArrayParser(executor, 1).parse(utf8(" [ ] ")).size());
+  }
+
+  @Test
+  public void rejectsMalformedArrays() {
+    String[] inputs = {"[1,]", "[,1]", "[1 2]", "[1]x", "[1][2]", "{\"a\":1}", "", "[1", "[\"a]", "[1}", "[1,,2]"};
+    for (int batchSize : new int[]{1, 1024}) {
+      ParallelArrayParser parser = new ParallelArrayParser(executor, batchSize);
+      for (String input : inputs) {
+        try {
+          parser.parse(utf8(input));
+          fail(input);
+        } catch (JsonUnknownFormatException expected) {
+        }
+      }
+    }
+  }
+}
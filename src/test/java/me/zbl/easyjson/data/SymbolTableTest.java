@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.data;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link SymbolTable} 的查找、替换和非 ASCII 键
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class SymbolTableTest {
+
+  @Test
+  public void equalKeysShareOneInstance() {
+    SymbolTable table = new SymbolTable(64);
+    String name = table.intern(new String("name"));
+    assertSame(name, table.intern(new String("name")));
+    assertSame(name, table.intern("xnamex".toCharArray(), 1, 4));
+    assertSame(name, table.intern("xnamex".getBytes(StandardCharsets.UTF_8), 1, 4));
+  }
+
+  @Test
+  public void rangesAreInternedOnFirstUse() {
+    SymbolTable table = new SymbolTable(64);
+    String fromChars = table.intern("[id]".toCharArray(), 1, 2);
+    assertEquals("id", fromChars);
+    assertSame(fromChars, table.intern("id"));
+    String fromBytes = table.intern("[type]".getBytes(StandardCharsets.UTF_8), 1, 4);
+    assertEquals("type", fromBytes);
+    assertSame(fromBytes, table.intern("type".toCharArray(), 0, 4));
+  }
+
+  @Test
+  public void nonAsciiBytesAreDecoded() {
+    SymbolTable table = new SymbolTable(64);
+    byte[] utf8 = "\u540d\u5b57\u00e9".getBytes(StandardCharsets.UTF_8);
+    String first = table.intern(utf8, 0, utf8.length);
+    assertEquals("\u540d\u5b57\u00e9", first);
+    assertSame(first, table.intern(utf8, 0, utf8.length));
+    assertSame(first, table.intern("\u540d\u5b57\u00e9".toCharArray(), 0, 3));
+  }
+
+  @Test
+  public void longKeysAreNotStored() {
+    SymbolTable table = new SymbolTable(64);
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i <= SymbolTable.MAX_SYMBOL_LENGTH; i++) {
+      b.append('k');
+    }
+    String key = b.toString();
+    assertSame(key, table.intern(key));
+    assertNotSame(key, table.intern(new String(key)));
+    assertEquals(key, table.intern(key.getBytes(StandardCharsets.UTF_8), 0, key.length()));
+  }
+
+  @Test
+  public void tableNeverGrows() {
+    SymbolTable table = new SymbolTable(2);
+    String[] keys = new String[100];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = table.intern(new String("key" + i));
+    }
+    int retained = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == table.intern(new String("key" + i))) {
+        retained++;
+      }
+    }
+    // 每次查找不到时都会替换一个键，最多只剩下两个
+    assertTrue(retained <= 2);
+    String last = table.intern(new String("key99"));
+    assertSame(last, table.intern(new String("key99")));
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.exceptions.JsonUnknownFormatException;
+import me.zbl.easyjson.io.lexical.JsonNumberKind;
+import me.zbl.easyjson.io.lexical.JsonToken;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link JsonStringReader} 与 {@link JsonUtf8Reader} 读取的记号一致，格式错误和调用顺序错误时的处理一致
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonReaderTest {
+
+  private final List<Path> files = new ArrayList<>();
+
+  @After
+  public void deleteFiles() throws IOException {
+    for (Path file : files) {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * 创建读取器的方式，较小的缓冲区和窗口使记号跨越缓冲区的边界
+   */
+  private abstract static class Input {
+
+    abstract JsonReader open(String json) throws IOException;
+  }
+
+  private Input[] inputs() {
+    return new Input[]{
+        new Input() {
+          @Override
+          JsonReader open(String json) {
+            return new JsonStringReader(new StringReader(json));
+          }
+        },
+        new Input() {
+          @Override
+          JsonReader open(String json) {
+            return new JsonStringReader(new StringReader(json), 16);
+          }
+        },
+        new Input() {
+          @Override
+          JsonReader open(String json) {
+            return new JsonUtf8Reader(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+          }
+        },
+        new Input() {
+          @Override
+          JsonReader open(String json) throws IOException {
+            Path file = Files.createTempFile("reader", ".json");
+            files.add(file);
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+            return new JsonUtf8Reader(FileChannel.open(file), 16);
+          }
+        }
+    };
+  }
+
+  /**
+   * 读出所有的记号及其值
+   */
+  private static String tokens(JsonReader r) throws IOException {
+    StringBuilder b = new StringBuilder();
+    while (true) {
+      JsonToken token = r.peek();
+      b.append(token).append(' ');
+      switch (token) {
+        case BEGIN_ARRAY:
+          r.beginJsonArray();
+          break;
+        case END_ARRAY:
+          r.endJsonArray();
+          break;
+        case BEGIN_OBJECT:
+          r.beginJsonObject();
+          break;
+        case END_OBJECT:
+          r.endJsonObject();
+          break;
+        case NAME:
+          b.append(r.nextName()).append(' ');
+          break;
+        case STRING:
+          b.append(r.nextString()).append(' ');
+          break;
+        case NUMBER:
+          b.append(r.peekNumberKind()).append(' ').append(r.nextNumber()).append(' ');
+          break;
+        case BOOLEAN:
+          b.append(r.nextBoolean()).append(' ');
+          break;
+        case NULL:
+          r.nextNull();
+          break;
+        default:
+          return b.toString();
+      }
+    }
+  }
+
+  @Test
+  public void readersAgreeOnEveryToken() throws IOException {
+    String json = "\ufeff {\"name\":\"a\\\"b\\\\c\\/\\b\\f\\n\\r\\t\\u00e9\\ud83d\\ude00\", \"\u4e2d\u6587\" : [ ],"
+        + "\"nested\":{\"a\":[{},[[]],true,false,null]},"
+        + "\"numbers\":[0,-0,12,-9223372036854775808,12345678901234567890,1.5,-2.5e-3,1E+2,0.1234567890123456789],"
+        + "\"long string\":\"" + "abcdefghijklmnopqrstuvwxyz0123456789" + "\"}\r\n";
+    String expected = null;
+    for (Input input : inputs()) {
+      String tokens = tokens(input.open(json));
+      if (null == expected) {
+        expected = tokens;
+        assertTrue(tokens, tokens.startsWith("BEGIN_OBJECT NAME name STRING a\"b\\c/\b\f\n\r\t\u00e9\ud83d\ude00 "));
+        assertTrue(tokens, tokens.contains("NUMBER DECIMAL -9223372036854775808 NUMBER DECIMAL 12345678901234567890 "
+            + "NUMBER DOUBLE 1.5 NUMBER DOUBLE -2.5e-3 NUMBER DOUBLE 1E+2 NUMBER DECIMAL 0.1234567890123456789 "));
+        assertTrue(tokens, tokens.endsWith("END_OBJECT END_DOCUMENT "));
+      }
+      assertEquals(expected, tokens);
+    }
+  }
+
+  @Test
+  public void typedNumbers() throws IOException {
+    for (Input input : inputs()) {
+      JsonReader r = input.open("[1.0, -2147483648, 9223372036854775807, 2.5, 2147483648, 9223372036854775808, \"7\", 1e400]");
+      r.beginJsonArray();
+      assertEquals(1L, r.nextLong());
+      assertEquals(Integer.MIN_VALUE, r.nextInt());
+      assertEquals(Long.MAX_VALUE, r.nextLong());
+      assertNumberFormatError(r, 0);
+      assertEquals(2.5, r.nextDouble(), 0);
+      assertNumberFormatError(r, 1);
+      assertEquals(2147483648L, r.nextLong());
+      assertNumberFormatError(r, 0);
+      assertEquals("9223372036854775808", r.nextString());
+      try {
+        r.nextLong();
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+      assertEquals("7", r.nextString());
+      assertEquals(Double.POSITIVE_INFINITY, r.nextDouble(), 0);
+      r.endJsonArray();
+      assertEquals(JsonToken.END_DOCUMENT, r.peek());
+    }
+  }
+
+  /**
+   * 数值不能转换时抛出 NumberFormatException，且不消费该数值
+   *
+   * @param asInt 为 1 时按 int 读取，否则按 long 读取
+   */
+  private static void assertNumberFormatError(JsonReader r, int asInt) throws IOException {
+    try {
+      if (asInt == 1) {
+        r.nextInt();
+      } else {
+        r.nextLong();
+      }
+      fail();
+    } catch (NumberFormatException expected) {
+    }
+    assertEquals(JsonToken.NUMBER, r.peek());
+  }
+
+  @Test
+  public void skipValueSkipsWholeValuesAndSingleNames() throws IOException {
+    for (Input input : inputs()) {
+      JsonReader r = input.open("{\"a\":{\"b\":[1,\"x\\\"]\",{\"c\":null}]},\"d\":true,\"e\":2}");
+      r.beginJsonObject();
+      assertEquals("a", r.nextName());
+      r.skipValue();
+      // 在键的位置只跳过键
+      r.skipValue();
+      assertTrue(r.nextBoolean());
+      assertEquals("e", r.nextName());
+      r.skipValue();
+      assertFalse(r.hasNext());
+      r.endJsonObject();
+      assertEquals(JsonToken.END_DOCUMENT, r.peek());
+    }
+  }
+
+  @Test
+  public void skipValueAtTheEndOfAScopeIsRejected() throws IOException {
+    for (Input input : inputs()) {
+      JsonReader r = input.open("[[],{}]");
+      r.beginJsonArray();
+      r.beginJsonArray();
+      assertNothingToSkip(r);
+      r.endJsonArray();
+      r.beginJsonObject();
+      assertNothingToSkip(r);
+      r.endJsonObject();
+      assertNothingToSkip(r);
+      r.endJsonArray();
+      assertNothingToSkip(r);
+    }
+  }
+
+  private static void assertNothingToSkip(JsonReader r) throws IOException {
+    JsonToken token = r.peek();
+    try {
+      r.skipValue();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    // 结束的括号没有被消费
+    assertEquals(token, r.peek());
+  }
+
+  @Test
+  public void callsThatDoNotMatchTheTokenAreRejected() throws IOException {
+    for (Input input : inputs()) {
+      JsonReader r = input.open("{\"a\":[1]}");
+      try {
+        r.beginJsonArray();
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+      r.beginJsonObject();
+      try {
+        r.nextString();
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+      assertEquals("a", r.nextName());
+      try {
+        r.endJsonObject();
+        fail();
+      } catch (IllegalStateException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void malformedInputIsRejected() throws IOException {
+    String[] malformed = {
+        "", " ", "[", "[1,]", "[,1]", "[1 2]", "1 2", "[1]x", "{\"a\" 1}", "{\"a\":1,}", "{1:2}", "{'a':1}",
+        "[01]", "[1.]", "[-]", "[.5]", "[1e]", "[1e+]", "[+1]", "[tru]", "[nul]", "[truex]", "[1x]",
+        "\"abc", "\"\\x\"", "\"\\u12g4\"", "\"\\u12", "\"a\u0001\"", "]", "}", "[}", "{]"
+    };
+    for (Input input : inputs()) {
+      for (String json : malformed) {
+        try {
+          JsonReader r = input.open(json);
+          r.skipValue();
+          // 值之后的内容在读到文档结束时检查
+          r.peek();
+          fail(json);
+        } catch (JsonUnknownFormatException expected) {
+        }
+      }
+    }
+  }
+
+  @Test
+  public void numberKinds() throws IOException {
+    String[] numbers = {"0", "-123456789012345678", "1234567890123456789", "0.5", "12345678901234.5", "1.5e99", "1.5e100"};
+    JsonNumberKind[] kinds = {
+        JsonNumberKind.LONG, JsonNumberKind.LONG, JsonNumberKind.DECIMAL, JsonNumberKind.DOUBLE,
+        JsonNumberKind.DOUBLE, JsonNumberKind.DOUBLE, JsonNumberKind.DECIMAL
+    };
+    for (Input input : inputs()) {
+      for (int i = 0; i < numbers.length; i++) {
+        assertEquals(numbers[i], kinds[i], input.open(numbers[i]).peekNumberKind());
+      }
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.EasyJsonBuilder;
+import me.zbl.easyjson.exceptions.JsonIOException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link JsonStringWriter} 的写顺序检查和输出缓冲
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonStringWriterTest {
+
+  /**
+   * 字符和 UTF-8 两种输出，检查逻辑相同
+   */
+  private static JsonStringWriter[] writers() {
+    return new JsonStringWriter[]{new JsonStringWriter(new StringWriter()), new JsonUtf8Writer()};
+  }
+
+  private static void assertIllegalOrder(Runnable action) {
+    try {
+      action.run();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  /**
+   * 将 IOException 包装起来，便于在匿名类中调用
+   */
+  private abstract static class Action implements Runnable {
+    @Override
+    public void run() {
+      try {
+        write();
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    abstract void write() throws IOException;
+  }
+
+  @Test
+  public void nameOutsideAnObjectIsRejected() throws IOException {
+    for (final JsonStringWriter w : writers()) {
+      w.newJsonArray();
+      assertIllegalOrder(new Action() {
+        @Override
+        void write() throws IOException {
+          w.name("a").value(1);
+        }
+      });
+    }
+    for (final JsonStringWriter w : writers()) {
+      assertIllegalOrder(new Action() {
+        @Override
+        void write() throws IOException {
+          w.name(PreEncodedName.of("a")).value(1);
+        }
+      });
+    }
+  }
+
+  @Test
+  public void valueInAnObjectWithoutANameIsRejected() throws IOException {
+    for (final JsonStringWriter w : writers()) {
+      w.newJsonObject();
+      w.name("a").value(1);
+      assertIllegalOrder(new Action() {
+        @Override
+        void write() throws IOException {
+          w.value(2);
+        }
+      });
+    }
+    for (final JsonStringWriter w : writers()) {
+      w.newJsonObject();
+      assertIllegalOrder(new Action() {
+        @Override
+        void write() throws IOException {
+          w.newJsonArray();
+        }
+      });
+    }
+  }
+
+  @Test
+  public void closingWithAPendingNameIsRejected() throws IOException {
+    for (final JsonStringWriter w : writers()) {
+      w.newJsonObject();
+      w.name("a");
+      assertIllegalOrder(new Action() {
+        @Override
+        void write() throws IOException {
+          w.finishJsonObject();
+        }
+      });
+    }
+  }
+
+  @Test
+  public void mismatchedScopesAreRejected() throws IOException {
+    for (final JsonStringWriter w : writers()) {
+      w.newJsonArray();
+      assertIllegalOrder(new Action() {
+        @Override
+        void write() throws IOException {
+          w.finishJsonObject();
+        }
+      });
+      w.finishJsonArray();
+      assertIllegalOrder(new Action() {
+        @Override
+        void write() throws IOException {
+          w.finishJsonArray();
+        }
+      });
+    }
+  }
+
+  @Test
+  public void unfinishedDocumentCannotBeClosed() throws IOException {
+    for (JsonStringWriter w : writers()) {
+      w.newJsonArray();
+      try {
+        w.close();
+        fail();
+      } catch (JsonIOException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void trustedModeSkipsTheChecks() throws IOException {
+    StringWriter out = new StringWriter();
+    JsonStringWriter w = new JsonStringWriter(out);
+    w.setTrusted(true);
+    // 顺序错误时写出不合法的 Json 而不是抛出异常
+    w.newJsonObject();
+    w.name("a").value(1);
+    w.value(2);
+    w.finishJsonArray();
+    w.value(3);
+    w.close();
+    assertEquals("{\"a\":12]3", out.toString());
+
+    JsonUtf8Writer u = new JsonUtf8Writer();
+    u.setTrusted(true);
+    u.newJsonArray();
+    u.name("b").value(1);
+    u.finishJsonArray();
+    u.newJsonObject();
+    u.close();
+    assertEquals("[\"b\":1]{", new String(u.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void resetRestoresTheChecks() throws IOException {
+    StringWriter out = new StringWriter();
+    final JsonStringWriter w = new JsonStringWriter(out);
+    w.setTrusted(true);
+    w.newJsonArray();
+    w.reset();
+    assertFalse(w.isTrusted());
+    w.newJsonObject();
+    assertIllegalOrder(new Action() {
+      @Override
+      void write() throws IOException {
+        w.value(1);
+      }
+    });
+  }
+
+  @Test
+  public void trustedWritersProduceTheSameOutput() {
+    Object o = Collections.singletonMap("k", new int[]{1, 2});
+    assertEquals(new EasyJsonBuilder().build().toJson(o), new EasyJsonBuilder().trustedWriters().build().toJson(o));
+    assertFalse(new EasyJsonBuilder().trustedWriters().build().newJsonWriter(new StringWriter()).isTrusted());
+  }
+
+  /**
+   * 记录写出和刷新的次数
+   */
+  private static final class CountingWriter extends FilterWriter {
+
+    private int writes;
+    private int flushes;
+
+    CountingWriter() {
+      super(new StringWriter());
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      writes++;
+      super.write(cbuf, off, len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+      writes++;
+      super.write(str, off, len);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      writes++;
+      super.write(c);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      flushes++;
+      super.flush();
+    }
+
+    @Override
+    public String toString() {
+      return out.toString();
+    }
+  }
+
+  @Test
+  public void outputReachesTheWriterWhenTheBufferFills() throws IOException {
+    CountingWriter out = new CountingWriter();
+    JsonStringWriter w = new JsonStringWriter(out, 16);
+    w.newJsonArray();
+    w.value("abcdef");
+    // ["abcdef" 共 9 个字符，仍在缓冲区中
+    assertEquals(0, out.writes);
+    assertEquals(9, w.getWrittenCount());
+    assertEquals(0, w.getFlushedCount());
+
+    w.value(123456);
+    // 恰好写满缓冲区，下一次写入时才写出
+    assertEquals(0, out.writes);
+    assertEquals(16, w.getWrittenCount());
+    w.value(7);
+    assertEquals(1, out.writes);
+    assertEquals(16, w.getFlushedCount());
+    assertEquals(18, w.getWrittenCount());
+    assertEquals("[\"abcdef\",123456", out.toString());
+
+    w.finishJsonArray();
+    w.flush();
+    assertEquals(2, out.writes);
+    assertEquals(1, out.flushes);
+    assertEquals(19, w.getFlushedCount());
+    assertEquals("[\"abcdef\",123456,7]", out.toString());
+
+    // 缓冲区为空时不写出
+    w.flush();
+    assertEquals(2, out.writes);
+    assertEquals(2, out.flushes);
+  }
+
+  @Test
+  public void chunksLargerThanTheBufferBypassIt() throws IOException {
+    char[] digits = new char[100];
+    Arrays.fill(digits, '9');
+    CountingWriter out = new CountingWriter();
+    JsonStringWriter w = new JsonStringWriter(out, 16);
+    w.newJsonArray();
+    w.jsonValue(digits, 0, digits.length);
+    // 先写出缓冲区中的 [，再直接写出整段
+    assertEquals(2, out.writes);
+    assertEquals(101, w.getFlushedCount());
+    w.finishJsonArray();
+    w.close();
+    assertEquals(3, out.writes);
+    assertEquals(102, w.getWrittenCount());
+    assertEquals("[" + new String(digits) + "]", out.toString());
+  }
+
+  @Test
+  public void utf8CountsAreInBytes() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonUtf8Writer w = new JsonUtf8Writer(out, 16);
+    w.value("\u00e9\u4e2d");
+    // 引号 2 个字节，两个字符分别为 2 和 3 个字节
+    assertEquals(7, w.getWrittenCount());
+    assertEquals(0, w.getFlushedCount());
+    assertEquals(0, out.size());
+    w.flush();
+    assertEquals(7, w.getFlushedCount());
+    assertEquals(7, out.size());
+
+    JsonUtf8Writer memory = new JsonUtf8Writer();
+    memory.newJsonArray();
+    for (int i = 0; i < 100; i++) {
+      memory.value(i);
+    }
+    memory.finishJsonArray();
+    // 没有输出流时只扩容，不写出
+    assertEquals(0, memory.getFlushedCount());
+    assertEquals(memory.size(), memory.getWrittenCount());
+    assertTrue(memory.size() > 256);
+  }
+
+  @Test
+  public void easyJsonFlushesTheWriter() throws IOException {
+    CountingWriter out = new CountingWriter();
+    new EasyJsonBuilder().writeBufferSize(64).build().toJson(Collections.singletonMap("k", "v"), out);
+    assertEquals("{\"k\":\"v\"}", out.toString());
+    assertEquals(1, out.flushes);
+  }
+}
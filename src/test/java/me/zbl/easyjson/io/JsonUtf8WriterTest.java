@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import me.zbl.easyjson.JsonTreeParser;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link JsonUtf8Writer} 与 {@link JsonStringWriter} 的输出一致性
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class JsonUtf8WriterTest {
+
+  private static String utf8(String value) throws IOException {
+    JsonUtf8Writer w = new JsonUtf8Writer();
+    w.value(value);
+    return new String(w.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static String chars(String value) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonStringWriter w = new JsonStringWriter(out);
+    w.value(value);
+    w.flush();
+    return out.toString();
+  }
+
+  @Test
+  public void loneSurrogatesAreEscapedByBothWriters() throws IOException {
+    String[] inputs = {"a\ud800b", "a\udc00b", "end\ud83d", "\udc00\ud800", "\ud83d\ude00\ud800"};
+    String[] expected = {"\"a\\ud800b\"", "\"a\\udc00b\"", "\"end\\ud83d\"", "\"\\udc00\\ud800\"", "\"\ud83d\ude00\\ud800\""};
+    for (int i = 0; i < inputs.length; i++) {
+      assertEquals(expected[i], utf8(inputs[i]));
+      assertEquals(expected[i], chars(inputs[i]));
+      assertEquals(inputs[i], new JsonTreeParser().parse(utf8(inputs[i])).getStringValue());
+    }
+  }
+
+  @Test
+  public void surrogatePairsAreEncodedDirectly() throws IOException {
+    String s = "x\ud83d\ude00y";
+    assertEquals("\"" + s + "\"", utf8(s));
+    assertEquals("\"" + s + "\"", chars(s));
+  }
+
+  @Test
+  public void longRawContentIsStreamedInChunks() throws IOException {
+    char[] digits = new char[100000];
+    Arrays.fill(digits, '7');
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonUtf8Writer w = new JsonUtf8Writer(out, 16);
+    w.jsonValue(digits, 0, digits.length);
+    // 没有为整段内容扩容，缓冲区中只剩最后一段
+    assertTrue(w.size() <= 16);
+    w.flush();
+    assertEquals(new String(digits), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void emptyMembersLeaveTheObjectEmpty() throws IOException {
+    JsonUtf8Writer utf8 = new JsonUtf8Writer();
+    utf8.newJsonObject();
+    utf8.jsonMembers(new byte[0], 0, 0);
+    utf8.name("a").value(1);
+    utf8.finishJsonObject();
+    assertEquals("{\"a\":1}", new String(utf8.toByteArray(), StandardCharsets.UTF_8));
+
+    StringWriter out = new StringWriter();
+    JsonStringWriter chars = new JsonStringWriter(out);
+    chars.newJsonObject();
+    chars.jsonMembers(new char[0], 0, 0);
+    chars.name("a").value(1);
+    chars.finishJsonObject();
+    chars.flush();
+    assertEquals("{\"a\":1}", out.toString());
+  }
+}
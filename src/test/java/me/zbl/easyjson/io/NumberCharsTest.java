@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link NumberChars} 的格式化结果
+ * <p>
+ * JDK 19 起 {@link Double#toString(double)} 同样输出最短表示，此时逐个比较结果；
+ * 更早的 JDK 有时会多输出几位，只检查能否精确还原且不比其更长
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class NumberCharsTest {
+
+  private static final boolean SHORTEST_TO_STRING = isShortestToString();
+
+  private static boolean isShortestToString() {
+    String version = System.getProperty("java.specification.version");
+    return !version.startsWith("1.") && Integer.parseInt(version) >= 19;
+  }
+
+  private static String format(double v) {
+    char[] buf = new char[NumberChars.MAX_CHARS];
+    return new String(buf, 0, NumberChars.writeDouble(v, buf, 0));
+  }
+
+  private static String format(long v) {
+    char[] buf = new char[NumberChars.MAX_CHARS];
+    return new String(buf, 0, NumberChars.writeLong(v, buf, 0));
+  }
+
+  /**
+   * 与 Double.toString 比较
+   */
+  private static void assertLikeToString(double v) {
+    String actual = format(v);
+    String expected = Double.toString(v);
+    if (SHORTEST_TO_STRING) {
+      assertEquals(expected, actual);
+      return;
+    }
+    assertEquals(actual, Double.doubleToRawLongBits(v), Double.doubleToRawLongBits(Double.parseDouble(actual)));
+    assertTrue(actual + " 比 " + expected + " 长", actual.length() <= expected.length());
+  }
+
+  @Test
+  public void boundaryValues() {
+    assertEquals("0.0", format(0.0));
+    assertEquals("-0.0", format(-0.0));
+    assertEquals("4.9E-324", format(Double.MIN_VALUE));
+    assertEquals("-4.9E-324", format(-Double.MIN_VALUE));
+    assertEquals("1.7976931348623157E308", format(Double.MAX_VALUE));
+    assertEquals("2.2250738585072014E-308", format(Double.MIN_NORMAL));
+    // 最大的非规格化数
+    assertEquals("2.225073858507201E-308", format(Double.longBitsToDouble(0x000FFFFFFFFFFFFFL)));
+    assertEquals("1.0", format(1.0));
+    assertEquals("0.001", format(0.001));
+    assertEquals("1.0E-4", format(1.0E-4));
+    assertEquals("9999999.0", format(9999999.0));
+    assertEquals("1.0E7", format(1.0E7));
+    assertEquals("0.002", format(2.0E-3));
+    assertEquals("1.0E23", format(1.0E23));
+    assertEquals("0.1", format(0.1));
+    assertEquals("0.30000000000000004", format(0.1 + 0.2));
+    assertEquals("9.007199254740992E15", format(9007199254740992.0));
+  }
+
+  @Test
+  public void powersOfTen() {
+    for (int k = -300; k <= 308; k++) {
+      double v = Double.parseDouble("1E" + k);
+      if (k >= -3 && k < 7) {
+        // 0.001 到 10^7 之间不使用科学计数法
+        assertLikeToString(v);
+      } else {
+        assertEquals("1.0E" + k, format(v));
+      }
+    }
+  }
+
+  @Test
+  public void subnormals() {
+    for (long bits = 1; bits < 10000; bits++) {
+      assertLikeToString(Double.longBitsToDouble(bits));
+    }
+    for (long bits = 0x000FFFFFFFFFFFFFL - 10000; bits <= 0x0010000000000000L + 10000; bits++) {
+      assertLikeToString(Double.longBitsToDouble(bits));
+    }
+  }
+
+  @Test
+  public void randomDoubles() {
+    Random random = new Random(20180217L);
+    for (int i = 0; i < 500000; i++) {
+      double v = Double.longBitsToDouble(random.nextLong());
+      if (Double.isNaN(v) || Double.isInfinite(v)) {
+        continue;
+      }
+      assertLikeToString(v);
+    }
+    for (int i = 0; i < 200000; i++) {
+      // 较短的小数，覆盖 0.001 到 10^7 之间的非科学计数法格式
+      assertLikeToString(random.nextInt(100000000) / Math.pow(10, random.nextInt(12)));
+    }
+  }
+
+  @Test
+  public void longs() {
+    assertEquals("0", format(0L));
+    assertEquals("-9223372036854775808", format(Long.MIN_VALUE));
+    assertEquals("9223372036854775807", format(Long.MAX_VALUE));
+    Random random = new Random(20180217L);
+    for (int i = 0; i < 100000; i++) {
+      long v = random.nextLong() >> random.nextInt(64);
+      assertEquals(Long.toString(v), format(v));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ParallelArrayWriter} 的输出与按顺序写出相同
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class ParallelArrayWriterTest {
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(4);
+  private static final ParallelArrayWriter PARALLEL = new ParallelArrayWriter(POOL, 2, 3);
+
+  @AfterClass
+  public static void shutdown() {
+    POOL.shutdown();
+  }
+
+  /**
+   * 字符串（含需要转义的字符）、数值、嵌套的对象和数组交替出现
+   */
+  private static final ParallelArrayWriter.ElementWriter ELEMENTS = new ParallelArrayWriter.ElementWriter() {
+    @Override
+    public void write(int i, JsonStringWriter w) throws IOException {
+      switch (i % 4) {
+        case 0:
+          w.value("<" + i + "> & '\u00e9 \"");
+          break;
+        case 1:
+          w.value(i * 1.5);
+          break;
+        case 2:
+          w.newJsonObject();
+          w.name("i").value(i);
+          w.name("s").value("=");
+          w.finishJsonObject();
+          break;
+        default:
+          PARALLEL.writeArray(w, 3, new ParallelArrayWriter.ElementWriter() {
+            @Override
+            public void write(int j, JsonStringWriter cw) throws IOException {
+              cw.value(j);
+            }
+          });
+          break;
+      }
+    }
+  };
+
+  private static String chars(ParallelArrayWriter arrays, int size, boolean htmlSafe) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonStringWriter w = new JsonStringWriter(out);
+    w.setHtmlSafe(htmlSafe);
+    w.newJsonObject();
+    w.name("items");
+    arrays.writeArray(w, size, ELEMENTS);
+    w.name("after").value(true);
+    w.finishJsonObject();
+    w.flush();
+    return out.toString();
+  }
+
+  private static String utf8(ParallelArrayWriter arrays, int size, boolean htmlSafe) throws IOException {
+    JsonUtf8Writer w = new JsonUtf8Writer();
+    w.setHtmlSafe(htmlSafe);
+    w.newJsonArray();
+    arrays.writeArray(w, size, ELEMENTS);
+    w.value(1);
+    w.finishJsonArray();
+    return new String(w.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void parallelOutputEqualsSequentialOutput() throws IOException {
+    int[] sizes = {0, 1, 2, 3, 7, 1000};
+    for (int size : sizes) {
+      for (boolean htmlSafe : new boolean[]{false, true}) {
+        assertEquals(chars(ParallelArrayWriter.SEQUENTIAL, size, htmlSafe), chars(PARALLEL, size, htmlSafe));
+        assertEquals(utf8(ParallelArrayWriter.SEQUENTIAL, size, htmlSafe), utf8(PARALLEL, size, htmlSafe));
+      }
+    }
+  }
+
+  @Test
+  public void htmlSafeSettingReachesTheChunks() throws IOException {
+    String out = utf8(PARALLEL, 100, true);
+    assertTrue(out.contains("\\u003c96\\u003e"));
+    assertTrue(!out.contains("<"));
+  }
+
+  @Test
+  public void threshold() {
+    assertTrue(PARALLEL.isParallel(2));
+    assertTrue(!PARALLEL.isParallel(1));
+    assertTrue(!ParallelArrayWriter.SEQUENTIAL.isParallel(Integer.MAX_VALUE));
+    assertTrue(!new ParallelArrayWriter(new ForkJoinPool(1)).isParallel(1 << 20));
+  }
+}
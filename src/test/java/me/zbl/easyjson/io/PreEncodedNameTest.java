@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@link PreEncodedName} 写出的结果与 {@link JsonStringWriter#name(String)} 一致
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class PreEncodedNameTest {
+
+  private static final String[] NAMES = {
+      "plain", "", "<a href='x'>&=", "q\"b\\s/", "\n\t\u0001\u001f", "\u00e9\u4e2d", "\u2028\u2029",
+      "\ud83d\ude00", "lone\ud800"
+  };
+
+  /**
+   * 在对象中写两个键值对，第二个键可以是预先编码的
+   */
+  private static void write(JsonStringWriter w, String name, boolean encoded) throws IOException {
+    w.newJsonObject();
+    w.name("first").value(1);
+    if (encoded) {
+      w.name(PreEncodedName.of(name));
+    } else {
+      w.name(name);
+    }
+    w.value(2);
+    w.finishJsonObject();
+  }
+
+  private static String chars(String name, boolean encoded, boolean htmlSafe, boolean asciiOnly) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonStringWriter w = new JsonStringWriter(out);
+    w.setHtmlSafe(htmlSafe);
+    w.setAsciiOnly(asciiOnly);
+    write(w, name, encoded);
+    w.flush();
+    return out.toString();
+  }
+
+  private static String utf8(String name, boolean encoded, boolean htmlSafe, boolean asciiOnly) throws IOException {
+    JsonUtf8Writer w = new JsonUtf8Writer();
+    w.setHtmlSafe(htmlSafe);
+    w.setAsciiOnly(asciiOnly);
+    write(w, name, encoded);
+    return new String(w.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void matchesNameInEveryEscapingMode() throws IOException {
+    for (String name : NAMES) {
+      for (int variant = 0; variant < 4; variant++) {
+        boolean htmlSafe = (variant & 1) != 0;
+        boolean asciiOnly = (variant & 2) != 0;
+        assertEquals(name, chars(name, false, htmlSafe, asciiOnly), chars(name, true, htmlSafe, asciiOnly));
+        assertEquals(name, utf8(name, false, htmlSafe, asciiOnly), utf8(name, true, htmlSafe, asciiOnly));
+      }
+    }
+  }
+
+  @Test
+  public void modesThatEncodeAlikeShareOneArray() {
+    PreEncodedName plain = PreEncodedName.of("plain");
+    assertSame(plain.chars(false, false), plain.chars(true, true));
+    assertSame(plain.utf8(false, false), plain.utf8(true, false));
+    PreEncodedName html = PreEncodedName.of("<\u00e9");
+    assertEquals("\"\\u003c\u00e9\":", new String(html.chars(true, false)));
+    assertEquals("\"\\u003c\\u00e9\":", new String(html.chars(true, true)));
+    assertEquals("\"<\\u00e9\":", new String(html.utf8(false, true), StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 JamesZBL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package me.zbl.easyjson.type;
+
+import me.zbl.easyjson.BindingPlan;
+import me.zbl.easyjson.EasyJson;
+import me.zbl.easyjson.EasyJsonBuilder;
+import me.zbl.easyjson.JsonType;
+import me.zbl.easyjson.annotations.JsonFieldName;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 运行时生成的适配器与按绑定计划遍历域的适配器输出一致
+ *
+ * @author JamesZBL
+ * @date 2018-02-17
+ */
+public class TypeAdapterGeneratorTest {
+
+  static class Base {
+    int inherited = -1;
+  }
+
+  static class Bean extends Base {
+    static int ignoredStatic = 9;
+    transient int ignoredTransient = 8;
+    byte b = 1;
+    short s = 2;
+    int i = 3;
+    long l = 4L;
+    float f = 5.5f;
+    double d = 6.25;
+    boolean z = true;
+    char c = '<';
+    @JsonFieldName("re<named>")
+    String text = "a\"b";
+    Integer boxed = 7;
+    String missing;
+    int[] array = {1, 2};
+    List<String> list = Arrays.asList("x", "y");
+    Inner inner = new Inner();
+  }
+
+  static class Inner {
+    double value = 0.5;
+  }
+
+  private static final String EXPECTED = "{\"inherited\":-1,\"b\":1,\"s\":2,\"i\":3,\"l\":4,\"f\":5.5,\"d\":6.25,\"z\":true,"
+      + "\"c\":\"<\",\"re<named>\":\"a\\\"b\",\"boxed\":7,\"missing\":null,\"array\":[1,2],\"list\":[\"x\",\"y\"],"
+      + "\"inner\":{\"value\":0.5}}";
+
+  @Test
+  public void generatedAdapterMatchesTheReflectiveOne() {
+    EasyJson generated = new EasyJsonBuilder().generateAdapters().build();
+    EasyJson reflective = new EasyJsonBuilder().build();
+    Object adapter = generated.getAdapter(JsonType.get(Bean.class));
+    assertTrue(adapter instanceof AbstractGeneratedTypeAdapter);
+    adapter = reflective.getAdapter(JsonType.get(Bean.class));
+    assertFalse(adapter instanceof AbstractGeneratedTypeAdapter);
+
+    assertEquals(EXPECTED, reflective.toJson(new Bean()));
+    assertEquals(EXPECTED, generated.toJson(new Bean()));
+    assertEquals("[null," + EXPECTED + "]", generated.toJson(new Bean[]{null, new Bean()}));
+  }
+
+  @Test
+  public void generatedAdapterRespectsEscapingSettings() {
+    EasyJson generated = new EasyJsonBuilder().generateAdapters().htmlSafe().build();
+    EasyJson reflective = new EasyJsonBuilder().htmlSafe().build();
+    String json = generated.toJson(new Bean());
+    assertEquals(reflective.toJson(new Bean()), json);
+    assertFalse(json.contains("<"));
+  }
+
+  @Test
+  public void eachClassGetsItsOwnData() {
+    BindingPlan plan = new EasyJsonBuilder().build().getBindingPlan(Inner.class);
+    AbstractGeneratedTypeAdapter first = TypeAdapterGenerator.generate(plan);
+    AbstractGeneratedTypeAdapter second = TypeAdapterGenerator.generate(plan);
+    assertNotNull(first);
+    assertNotNull(second);
+    assertTrue(first.getClass() != second.getClass());
+    assertEquals(first.convertToJson(new Inner()), second.convertToJson(new Inner()));
+  }
+
+  /**
+   * 域的数量超过生成的上限时，仍使用按绑定计划遍历域的适配器
+   */
+  @Test
+  public void tooManyFieldsFallBackToTheReflectiveAdapter() throws Exception {
+    final String name = "me/zbl/easyjson/type/ManyFields";
+    ClassFileBuilder b = new ClassFileBuilder(ClassFileBuilder.ACC_PUBLIC | ClassFileBuilder.ACC_SUPER, name, "java/lang/Object");
+    int n = 1025;
+    for (int i = 0; i < n; i++) {
+      b.field(ClassFileBuilder.ACC_PUBLIC, "f" + i, "I");
+    }
+    b.method(ClassFileBuilder.ACC_PUBLIC, "<init>", "()V", new ClassFileBuilder.Code(1, 1)
+        .op(ClassFileBuilder.ALOAD_0)
+        .op(ClassFileBuilder.INVOKESPECIAL, b.methodRef("java/lang/Object", "<init>", "()V"))
+        .op(ClassFileBuilder.RETURN));
+    final byte[] bytes = b.toByteArray();
+    Class<?> c = new ClassLoader(getClass().getClassLoader()) {
+      @Override
+      protected Class<?> findClass(String className) throws ClassNotFoundException {
+        if (!className.equals(name.replace('/', '.'))) {
+          throw new ClassNotFoundException(className);
+        }
+        return defineClass(className, bytes, 0, bytes.length);
+      }
+    }.loadClass(name.replace('/', '.'));
+
+    EasyJson generated = new EasyJsonBuilder().generateAdapters().build();
+    Object adapter = generated.getAdapter(JsonType.get(c));
+    assertFalse(adapter instanceof AbstractGeneratedTypeAdapter);
+    String json = generated.toJson(c.getConstructor().newInstance());
+    assertTrue(json.startsWith("{\"f0\":0,\"f1\":0,"));
+    assertTrue(json.endsWith(",\"f1024\":0}"));
+  }
+
+  @Test
+  public void otherClassesCannotTakeTheData() {
+    try {
+      AbstractGeneratedTypeAdapter.takeClassData(MethodHandles.lookup());
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+}